@@ -0,0 +1,27 @@
+package com.taxi.gateway.cache;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * A stored backend response. {@code headers} are read-only and exclude hop-by-hop headers.
+ */
+public record CachedResponse(int status, HttpHeaders headers, byte[] body, String etag, long expiresAtNanos) {
+
+    public boolean isFresh(long nowNanos) {
+        return nowNanos - expiresAtNanos < 0;
+    }
+
+    /**
+     * Approximate heap footprint used for the size bound of the cache.
+     */
+    public long weight() {
+        long headerBytes = 0;
+        for (var header : headers.entrySet()) {
+            headerBytes += header.getKey().length();
+            for (String value : header.getValue()) {
+                headerBytes += value.length();
+            }
+        }
+        return body.length + headerBytes + 64;
+    }
+}
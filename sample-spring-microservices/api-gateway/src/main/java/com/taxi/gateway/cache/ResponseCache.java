@@ -0,0 +1,79 @@
+package com.taxi.gateway.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded in-memory store of backend responses. Entries are evicted in least recently used order
+ * once their combined size exceeds {@code gateway.response-cache.max-bytes}.
+ */
+@Component
+public class ResponseCache {
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    public ResponseCache(MeterRegistry meterRegistry,
+                         @Value("${gateway.response-cache.max-bytes:67108864}") long maxBytes,
+                         @Value("${gateway.response-cache.max-entry-bytes:1048576}") long maxEntryBytes) {
+        if (maxBytes <= 0 || maxEntryBytes <= 0) {
+            throw new IllegalArgumentException("Cache size limits must be positive");
+        }
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxEntryBytes, maxBytes);
+        Gauge.builder("gateway.response.cache.size", this, ResponseCache::totalBytes)
+                .description("Bytes held by the gateway response cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("gateway.response.cache.entries", this, ResponseCache::size)
+                .description("Responses held by the gateway response cache")
+                .register(meterRegistry);
+    }
+
+    public synchronized CachedResponse get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Stores the response unless it is larger than {@code gateway.response-cache.max-entry-bytes}.
+     */
+    public synchronized boolean put(String key, CachedResponse response) {
+        long weight = response.weight();
+        if (weight > maxEntryBytes) {
+            return false;
+        }
+        CachedResponse previous = entries.put(key, response);
+        if (previous != null) {
+            totalBytes -= previous.weight();
+        }
+        totalBytes += weight;
+        Iterator<Map.Entry<String, CachedResponse>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().getValue().weight();
+            eldest.remove();
+        }
+        return true;
+    }
+
+    public synchronized void remove(String key) {
+        CachedResponse removed = entries.remove(key);
+        if (removed != null) {
+            totalBytes -= removed.weight();
+        }
+    }
+
+    public synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
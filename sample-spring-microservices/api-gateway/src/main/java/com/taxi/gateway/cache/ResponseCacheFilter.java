@@ -0,0 +1,246 @@
+package com.taxi.gateway.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Serves GET requests of routes with {@code response-cache-max-age-seconds} metadata from the
+ * {@link ResponseCache}.
+ *
+ * <p>A response is stored only when the backend allows shared caching ({@code s-maxage} or
+ * {@code public} with {@code max-age}), since every request through the gateway carries a token.
+ * It is kept for the backend's lifetime capped by the route's max age. A backend {@code ETag} is
+ * reused, otherwise one is derived from the body, and a matching {@code If-None-Match} is answered
+ * with 304 without a backend call.
+ */
+@Component
+@RequiredArgsConstructor
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+    public static final String MAX_AGE_METADATA = "response-cache-max-age-seconds";
+    // The response has to be decorated before the backend body is written to the client, and one
+    // slot is left for the request coalescing that runs inside the cache
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 2;
+
+    private static final Set<String> UNCACHED_HEADERS = Set.of(
+            HttpHeaders.CONNECTION.toLowerCase(Locale.ROOT),
+            "keep-alive",
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(Locale.ROOT),
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(Locale.ROOT),
+            HttpHeaders.DATE.toLowerCase(Locale.ROOT));
+
+    private final ResponseCache cache;
+    private final ResponseCacheMetrics metrics;
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        ServerHttpRequest request = exchange.getRequest();
+        if (route == null || request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+        long routeMaxAgeSeconds = routeMaxAgeSeconds(route);
+        if (routeMaxAgeSeconds <= 0) {
+            return chain.filter(exchange);
+        }
+
+        String key = cacheKey(route, request);
+        List<String> ifNoneMatch = request.getHeaders().getIfNoneMatch();
+        // A client asking for a fresh copy skips the stored one and replaces it
+        boolean reload = directives(request.getHeaders()).contains("no-cache");
+        CachedResponse cached = reload ? null : cache.get(key);
+        if (cached != null && cached.isFresh(System.nanoTime())) {
+            if (matches(ifNoneMatch, cached.etag())) {
+                metrics.notModified(route.getId(), cached.body().length);
+                return writeNotModified(exchange.getResponse(), cached);
+            }
+            metrics.hit(route.getId(), cached.body().length);
+            return writeCached(exchange.getResponse(), cached);
+        }
+
+        metrics.miss(route.getId());
+        ServerHttpResponse response = new CachingResponse(
+                exchange.getResponse(), key, routeMaxAgeSeconds, ifNoneMatch);
+        return chain.filter(exchange.mutate().response(response).build());
+    }
+
+    private Mono<Void> writeNotModified(ServerHttpResponse response, CachedResponse cached) {
+        response.setStatusCode(HttpStatus.NOT_MODIFIED);
+        response.getHeaders().setETag(cached.etag());
+        response.getHeaders().put(HttpHeaders.CACHE_CONTROL, cached.headers().get(HttpHeaders.CACHE_CONTROL));
+        return response.setComplete();
+    }
+
+    private Mono<Void> writeCached(ServerHttpResponse response, CachedResponse cached) {
+        response.setRawStatusCode(cached.status());
+        response.getHeaders().putAll(cached.headers());
+        response.getHeaders().setContentLength(cached.body().length);
+        response.getHeaders().set("X-Cache", "HIT");
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private static long routeMaxAgeSeconds(Route route) {
+        Object value = route.getMetadata().get(MAX_AGE_METADATA);
+        return value == null ? 0 : Long.parseLong(value.toString());
+    }
+
+    private static String cacheKey(Route route, ServerHttpRequest request) {
+        String query = request.getURI().getRawQuery();
+        String path = request.getURI().getRawPath();
+        return route.getId() + ' ' + (query == null ? path : path + '?' + query);
+    }
+
+    /**
+     * Lifetime the backend allows for shared caches, or -1 if the response must not be stored.
+     */
+    private static long sharedMaxAgeSeconds(HttpHeaders headers) {
+        Set<String> directives = directives(headers);
+        if (directives.contains("no-store") || directives.contains("no-cache") || directives.contains("private")) {
+            return -1;
+        }
+        long sMaxAge = directiveSeconds(directives, "s-maxage=");
+        if (sMaxAge >= 0) {
+            return sMaxAge;
+        }
+        return directives.contains("public") ? directiveSeconds(directives, "max-age=") : -1;
+    }
+
+    private static Set<String> directives(HttpHeaders headers) {
+        List<String> values = headers.get(HttpHeaders.CACHE_CONTROL);
+        if (values == null) {
+            return Set.of();
+        }
+        Set<String> directives = new HashSet<>();
+        for (String value : values) {
+            for (String directive : value.split(",")) {
+                directives.add(directive.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        return directives;
+    }
+
+    private static long directiveSeconds(Set<String> directives, String prefix) {
+        for (String directive : directives) {
+            if (directive.startsWith(prefix)) {
+                try {
+                    return Long.parseLong(directive.substring(prefix.length()).replace("\"", ""));
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matches(List<String> ifNoneMatch, String etag) {
+        // Weak comparison, as required for If-None-Match
+        String opaque = stripWeak(etag);
+        for (String candidate : ifNoneMatch) {
+            if (candidate.equals("*") || stripWeak(candidate).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static String bodyEtag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return '"' + HexFormat.of().formatHex(digest, 0, 16) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private class CachingResponse extends ServerHttpResponseDecorator {
+        private final String key;
+        private final long routeMaxAgeSeconds;
+        private final List<String> ifNoneMatch;
+
+        CachingResponse(ServerHttpResponse delegate, String key, long routeMaxAgeSeconds, List<String> ifNoneMatch) {
+            super(delegate);
+            this.key = key;
+            this.routeMaxAgeSeconds = routeMaxAgeSeconds;
+            this.ifNoneMatch = ifNoneMatch;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpHeaders headers = getHeaders();
+            long maxAgeSeconds = Math.min(sharedMaxAgeSeconds(headers), routeMaxAgeSeconds);
+            boolean cacheable = getStatusCode() != null && getStatusCode().value() == HttpStatus.OK.value()
+                    && maxAgeSeconds > 0
+                    && !headers.containsKey(HttpHeaders.SET_COOKIE)
+                    && !headers.getVary().contains("*");
+            if (!cacheable) {
+                // The stale entry, if any, no longer reflects the backend
+                cache.remove(key);
+                return super.writeWith(body);
+            }
+
+            return DataBufferUtils.join(body).flatMap(joined -> {
+                byte[] bytes = new byte[joined.readableByteCount()];
+                joined.read(bytes);
+                DataBufferUtils.release(joined);
+
+                String etag = headers.getETag();
+                if (etag == null) {
+                    etag = bodyEtag(bytes);
+                    headers.setETag(etag);
+                }
+                HttpHeaders stored = new HttpHeaders();
+                headers.forEach((name, values) -> {
+                    if (!UNCACHED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                        stored.put(name, List.copyOf(values));
+                    }
+                });
+                long expiresAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(maxAgeSeconds);
+                cache.put(key, new CachedResponse(
+                        HttpStatus.OK.value(), HttpHeaders.readOnlyHttpHeaders(stored), bytes, etag, expiresAt));
+
+                if (matches(ifNoneMatch, etag)) {
+                    setStatusCode(HttpStatus.NOT_MODIFIED);
+                    headers.remove(HttpHeaders.CONTENT_LENGTH);
+                    return getDelegate().setComplete();
+                }
+                headers.setContentLength(bytes.length);
+                return getDelegate().writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            });
+        }
+    }
+}
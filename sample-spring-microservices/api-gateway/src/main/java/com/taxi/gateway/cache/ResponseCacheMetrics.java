@@ -0,0 +1,80 @@
+package com.taxi.gateway.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-route response cache meters: {@code gateway.response.cache.requests{route,result}} with result
+ * {@code hit}, {@code not_modified} or {@code miss}, {@code gateway.response.cache.bytes.saved{route}}
+ * (body bytes not fetched from the backend) and {@code gateway.response.cache.hit.ratio{route}}.
+ */
+@Component
+public class ResponseCacheMetrics {
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RouteStats> routes = new ConcurrentHashMap<>();
+
+    public ResponseCacheMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void hit(String routeId, int bodyBytes) {
+        RouteStats stats = route(routeId);
+        stats.hits.increment();
+        stats.bytesSaved.increment(bodyBytes);
+    }
+
+    public void notModified(String routeId, int bodyBytes) {
+        RouteStats stats = route(routeId);
+        stats.notModified.increment();
+        stats.bytesSaved.increment(bodyBytes);
+    }
+
+    public void miss(String routeId) {
+        route(routeId).misses.increment();
+    }
+
+    private RouteStats route(String routeId) {
+        return routes.computeIfAbsent(routeId, id -> new RouteStats(meterRegistry, id));
+    }
+
+    private static final class RouteStats {
+        private final Counter hits;
+        private final Counter notModified;
+        private final Counter misses;
+        private final Counter bytesSaved;
+
+        private RouteStats(MeterRegistry meterRegistry, String routeId) {
+            this.hits = requests(meterRegistry, routeId, "hit");
+            this.notModified = requests(meterRegistry, routeId, "not_modified");
+            this.misses = requests(meterRegistry, routeId, "miss");
+            this.bytesSaved = Counter.builder("gateway.response.cache.bytes.saved")
+                    .description("Response body bytes served without calling the backend")
+                    .baseUnit("bytes")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.response.cache.hit.ratio", this, RouteStats::hitRatio)
+                    .description("Share of cacheable requests answered from the cache")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+        }
+
+        private double hitRatio() {
+            double served = hits.count() + notModified.count();
+            double total = served + misses.count();
+            return total == 0 ? 0 : served / total;
+        }
+
+        private static Counter requests(MeterRegistry meterRegistry, String routeId, String result) {
+            return Counter.builder("gateway.response.cache.requests")
+                    .description("Cacheable GET requests by cache outcome")
+                    .tag("route", routeId)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.taxi.gateway.coalescing;
+
+import com.taxi.gateway.cache.ResponseCacheFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Single-flight for GET requests of routes with {@link CoalescingScope} metadata: while a request
+ * for a path and query is on its way to the backend, identical requests in the same scope wait for
+ * it and get a copy of its response instead of calling the backend themselves. Nothing is kept
+ * once the response is out, so unlike the response cache this never serves stale data.
+ *
+ * <p>Runs just inside the response cache, so cache hits and 304s are answered first and every
+ * waiter still goes through its own cache decorator. Responses setting cookies, marked
+ * {@code private} in a shared scope, or larger than {@code gateway.coalescing.max-body-bytes} are
+ * not shared; nor is anything if the first request fails or is cancelled. Waiters then call the
+ * backend themselves. Meters: {@code gateway.coalescing.deduplicated{route}},
+ * {@code gateway.coalescing.fallbacks{route}} and {@code gateway.coalescing.in.flight}.
+ */
+@Component
+public class CoalescingFilter implements GlobalFilter, Ordered {
+    private static final Set<String> UNSHARED_HEADERS = Set.of(
+            HttpHeaders.CONNECTION.toLowerCase(Locale.ROOT),
+            "keep-alive",
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(Locale.ROOT),
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(Locale.ROOT));
+
+    private final int maxBodyBytes;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+    private final Map<String, RouteMeters> meters = new ConcurrentHashMap<>();
+
+    public CoalescingFilter(@Value("${gateway.coalescing.max-body-bytes:1048576}") int maxBodyBytes,
+                            MeterRegistry meterRegistry) {
+        this.maxBodyBytes = maxBodyBytes;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("gateway.coalescing.in.flight", flights, Map::size)
+                .description("Distinct GET requests currently shared by concurrent callers")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public int getOrder() {
+        return ResponseCacheFilter.ORDER + 1;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        CoalescingScope scope = route == null ? null : CoalescingScope.of(route);
+        if (scope == null || exchange.getRequest().getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+        return exchange.getPrincipal()
+                .map(principal -> scopeOf(principal, scope))
+                .defaultIfEmpty("anonymous")
+                .flatMap(callerScope -> {
+                    String key = flightKey(route, exchange.getRequest(), callerScope);
+                    Flight flight = new Flight();
+                    Flight existing = flights.putIfAbsent(key, flight);
+                    if (existing != null) {
+                        return follow(exchange, chain, existing, route.getId());
+                    }
+                    ServerHttpResponse response = new SharingResponse(exchange.getResponse(), key, flight, scope);
+                    return chain.filter(exchange.mutate().response(response).build())
+                            .doFinally(signal -> finish(key, flight, null));
+                });
+    }
+
+    private Mono<Void> follow(ServerWebExchange exchange, GatewayFilterChain chain, Flight flight, String routeId) {
+        RouteMeters routeMeters = meters.computeIfAbsent(routeId, id -> new RouteMeters(meterRegistry, id));
+        return flight.result.asMono().flatMap(shared -> {
+            if (shared.isEmpty()) {
+                routeMeters.fallbacks.increment();
+                return chain.filter(exchange);
+            }
+            routeMeters.deduplicated.increment();
+            return write(exchange.getResponse(), shared.get());
+        });
+    }
+
+    private void finish(String key, Flight flight, SharedResponse shared) {
+        // Removed first: a request arriving from now on starts a new flight rather than a stale copy
+        flights.remove(key, flight);
+        flight.result.tryEmitValue(Optional.ofNullable(shared));
+    }
+
+    private static Mono<Void> write(ServerHttpResponse response, SharedResponse shared) {
+        response.setStatusCode(HttpStatusCode.valueOf(shared.status()));
+        response.getHeaders().putAll(shared.headers());
+        response.getHeaders().setContentLength(shared.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(shared.body())));
+    }
+
+    private static String scopeOf(Principal principal, CoalescingScope scope) {
+        if (scope == CoalescingScope.SUBJECT || !(principal instanceof Authentication authentication)) {
+            return "sub:" + principal.getName();
+        }
+        return authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .sorted()
+                .collect(Collectors.joining(",", "authorities:", ""));
+    }
+
+    private static String flightKey(Route route, ServerHttpRequest request, String callerScope) {
+        String query = request.getURI().getRawQuery();
+        String path = request.getURI().getRawPath();
+        return route.getId() + ' ' + (query == null ? path : path + '?' + query) + ' ' + callerScope;
+    }
+
+    private static boolean shareable(HttpHeaders headers, CoalescingScope scope) {
+        if (headers.containsKey(HttpHeaders.SET_COOKIE)) {
+            return false;
+        }
+        List<String> cacheControl = headers.get(HttpHeaders.CACHE_CONTROL);
+        return scope == CoalescingScope.SUBJECT || cacheControl == null
+                || cacheControl.stream().noneMatch(value -> value.toLowerCase(Locale.ROOT).contains("private"));
+    }
+
+    private record SharedResponse(int status, HttpHeaders headers, byte[] body) {
+    }
+
+    private static final class Flight {
+        private final Sinks.One<Optional<SharedResponse>> result = Sinks.one();
+    }
+
+    private class SharingResponse extends ServerHttpResponseDecorator {
+        private final String key;
+        private final Flight flight;
+        private final CoalescingScope scope;
+
+        SharingResponse(ServerHttpResponse delegate, String key, Flight flight, CoalescingScope scope) {
+            super(delegate);
+            this.key = key;
+            this.flight = flight;
+            this.scope = scope;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpHeaders headers = getHeaders();
+            HttpStatusCode status = getStatusCode();
+            if (status == null || !shareable(headers, scope)) {
+                finish(key, flight, null);
+                return super.writeWith(body);
+            }
+            return DataBufferUtils.join(body).flatMap(joined -> {
+                byte[] bytes = new byte[joined.readableByteCount()];
+                joined.read(bytes);
+                DataBufferUtils.release(joined);
+
+                if (bytes.length <= maxBodyBytes) {
+                    HttpHeaders shared = new HttpHeaders();
+                    headers.forEach((name, values) -> {
+                        if (!UNSHARED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                            shared.put(name, List.copyOf(values));
+                        }
+                    });
+                    finish(key, flight, new SharedResponse(
+                            status.value(), HttpHeaders.readOnlyHttpHeaders(shared), bytes));
+                } else {
+                    finish(key, flight, null);
+                }
+                return getDelegate().writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            });
+        }
+    }
+
+    private static final class RouteMeters {
+        private final Counter deduplicated;
+        private final Counter fallbacks;
+
+        private RouteMeters(MeterRegistry meterRegistry, String routeId) {
+            this.deduplicated = Counter.builder("gateway.coalescing.deduplicated")
+                    .description("GET requests answered with the response of an identical concurrent request")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+            this.fallbacks = Counter.builder("gateway.coalescing.fallbacks")
+                    .description("Waiting requests that called the backend themselves because the response was not shared")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.taxi.gateway.coalescing;
+
+import org.springframework.cloud.gateway.route.Route;
+
+import java.util.Locale;
+
+/**
+ * Which callers may share a response, read from the {@code request-coalescing} route metadata:
+ * {@code subject} only coalesces requests of the same authenticated subject, {@code authorities}
+ * coalesces requests of any subjects holding the same authorities, for routes whose GET responses
+ * depend on the caller's roles but not on who the caller is.
+ */
+public enum CoalescingScope {
+    SUBJECT,
+    AUTHORITIES;
+
+    public static final String METADATA = "request-coalescing";
+
+    /**
+     * Returns the route's scope, or {@code null} if the route does not coalesce requests.
+     */
+    public static CoalescingScope of(Route route) {
+        Object value = route.getMetadata().get(METADATA);
+        return value == null ? null : valueOf(value.toString().trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,15 @@
+package com.taxi.gateway.config;
+
+import com.taxi.gateway.loadbalancer.PeakEwmaLoadBalancerConfiguration;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@code lb://} routes pick instances with the peak EWMA balancer instead of round robin. Instance
+ * lists come from the discovery client, by default the static
+ * {@code spring.cloud.discovery.client.simple.instances} in application.yml.
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = PeakEwmaLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
@@ -1,9 +1,16 @@
 package com.taxi.gateway.config;
 
+import com.taxi.gateway.security.CachingReactiveJwtDecoder;
+import com.taxi.gateway.security.JwkSetRefresher;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
 import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverter;
 import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtGrantedAuthoritiesConverterAdapter;
@@ -28,6 +35,20 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * Replaces the auto-configured decoder: keys come from the background-refreshed JWK set and
+     * verified tokens are cached until they expire.
+     */
+    @Bean
+    public ReactiveJwtDecoder jwtDecoder(JwkSetRefresher jwkSetRefresher,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}") String issuerUri,
+                                         @Value("${gateway.jwt.cache.max-entries:100000}") int maxEntries) {
+        NimbusReactiveJwtDecoder decoder = NimbusReactiveJwtDecoder.withJwkSource(jwkSetRefresher::select).build();
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuerUri));
+        return new CachingReactiveJwtDecoder(decoder, meterRegistry, maxEntries);
+    }
+
     @Bean
     public ReactiveJwtAuthenticationConverter jwtAuthenticationConverter() {
         JwtGrantedAuthoritiesConverter grantedAuthoritiesConverter = new JwtGrantedAuthoritiesConverter();
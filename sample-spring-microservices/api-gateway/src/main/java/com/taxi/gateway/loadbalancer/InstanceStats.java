@@ -0,0 +1,113 @@
+package com.taxi.gateway.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load and health of one backend instance as seen by this gateway: requests in flight, a peak EWMA
+ * of response times, consecutive failures and the ejection / slow-start windows. Reads used for
+ * picking an instance are lock-free; completions update the rest under the instance monitor.
+ */
+final class InstanceStats {
+    // Cost of an instance that has requests in flight but no response time yet, as in Finagle
+    private static final double UNSAMPLED_PENALTY = Long.MAX_VALUE >> 16;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private volatile double ewmaNanos;
+    private volatile long warmingSinceNanos;
+    private volatile long ejectedUntilNanos;
+    private long lastObservedNanos;
+    private int consecutiveFailures;
+    private int ejections;
+
+    InstanceStats(long nowNanos) {
+        this.warmingSinceNanos = nowNanos;
+        this.ejectedUntilNanos = nowNanos;
+    }
+
+    void start() {
+        outstanding.incrementAndGet();
+    }
+
+    void cancel() {
+        outstanding.decrementAndGet();
+    }
+
+    /**
+     * Records a finished request and returns whether it got the instance ejected. A failure never
+     * lowers the response time estimate, so an instance failing fast does not attract traffic.
+     */
+    synchronized boolean complete(long latencyNanos, boolean failed, long nowNanos, LoadBalancerSettings settings) {
+        outstanding.decrementAndGet();
+        if (isEjected(nowNanos)) {
+            // Stragglers sent before the ejection say nothing about the readmitted instance
+            return false;
+        }
+        observe(failed ? Math.max(latencyNanos, ewmaNanos) : latencyNanos, nowNanos, settings.decayNanos());
+        if (!failed) {
+            consecutiveFailures = 0;
+            if (ejections > 0 && nowNanos - warmingSinceNanos >= settings.slowStartNanos()) {
+                ejections = 0;
+            }
+            return false;
+        }
+        if (++consecutiveFailures < settings.failureThreshold()) {
+            return false;
+        }
+        ejections++;
+        long ejectionNanos = Math.min(settings.ejectionNanos() * ejections, settings.maxEjectionNanos());
+        // Readmitted as a fresh instance: probed once, then ramped up through slow start
+        ejectedUntilNanos = nowNanos + ejectionNanos;
+        warmingSinceNanos = ejectedUntilNanos;
+        consecutiveFailures = 0;
+        ewmaNanos = 0;
+        return true;
+    }
+
+    boolean isEjected(long nowNanos) {
+        return nowNanos - ejectedUntilNanos < 0;
+    }
+
+    /**
+     * Peak EWMA cost: expected response time times the requests that would be queued ahead, scaled
+     * up while the instance is still in its slow-start window.
+     */
+    double cost(long nowNanos, LoadBalancerSettings settings) {
+        int pending = outstanding.get();
+        double latency = ewmaNanos;
+        double cost;
+        if (latency == 0) {
+            cost = pending == 0 ? 0 : UNSAMPLED_PENALTY + pending;
+        } else {
+            cost = latency * (pending + 1);
+        }
+        return cost / weight(nowNanos, settings);
+    }
+
+    double ewmaNanos() {
+        return ewmaNanos;
+    }
+
+    int outstanding() {
+        return outstanding.get();
+    }
+
+    private double weight(long nowNanos, LoadBalancerSettings settings) {
+        long warming = nowNanos - warmingSinceNanos;
+        if (settings.slowStartNanos() == 0 || warming >= settings.slowStartNanos()) {
+            return 1.0;
+        }
+        return Math.max(settings.slowStartMinWeight(), (double) Math.max(warming, 0) / settings.slowStartNanos());
+    }
+
+    private void observe(double latencyNanos, long nowNanos, long decayNanos) {
+        double ewma = ewmaNanos;
+        if (ewma == 0 || latencyNanos > ewma) {
+            // Peak: a slow response is taken at face value right away and only decays later
+            ewmaNanos = latencyNanos;
+        } else {
+            double weight = Math.exp(-(double) Math.max(nowNanos - lastObservedNanos, 0) / decayNanos);
+            ewmaNanos = ewma * weight + latencyNanos * (1 - weight);
+        }
+        lastObservedNanos = nowNanos;
+    }
+}
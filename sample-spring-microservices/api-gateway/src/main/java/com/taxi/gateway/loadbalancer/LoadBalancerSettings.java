@@ -0,0 +1,29 @@
+package com.taxi.gateway.loadbalancer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tuning of {@link PeakEwmaLoadBalancer}: how fast response times are forgotten, how many
+ * consecutive failures eject an instance and for how long, and how long a new or readmitted
+ * instance is ramped up.
+ */
+record LoadBalancerSettings(long decayNanos, int failureThreshold, long ejectionNanos, long maxEjectionNanos,
+                            long slowStartNanos, double slowStartMinWeight) {
+
+    LoadBalancerSettings {
+        if (decayNanos <= 0 || failureThreshold <= 0 || ejectionNanos < 0 || maxEjectionNanos < ejectionNanos
+                || slowStartNanos < 0) {
+            throw new IllegalArgumentException("Invalid load balancer settings");
+        }
+        if (slowStartMinWeight <= 0 || slowStartMinWeight > 1) {
+            throw new IllegalArgumentException("Slow start minimum weight must be in (0, 1]");
+        }
+    }
+
+    static LoadBalancerSettings ofMillis(long decayMs, int failureThreshold, long ejectionMs, long maxEjectionMs,
+                                         long slowStartMs, double slowStartMinWeight) {
+        return new LoadBalancerSettings(TimeUnit.MILLISECONDS.toNanos(decayMs), failureThreshold,
+                TimeUnit.MILLISECONDS.toNanos(ejectionMs), TimeUnit.MILLISECONDS.toNanos(maxEjectionMs),
+                TimeUnit.MILLISECONDS.toNanos(slowStartMs), slowStartMinWeight);
+    }
+}
@@ -0,0 +1,103 @@
+package com.taxi.gateway.loadbalancer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link InstanceStats} of every backend instance the gateway has routed to, shared by the
+ * per-service {@link PeakEwmaLoadBalancer}s and fed by {@link LoadBalancerStatsFilter}. Meters:
+ * {@code gateway.loadbalancer.latency{service,instance}} (peak EWMA, ms),
+ * {@code gateway.loadbalancer.outstanding{service,instance}} and
+ * {@code gateway.loadbalancer.ejections{service,instance}}.
+ */
+@Component
+@Slf4j
+public class LoadBalancerStats {
+    private final LoadBalancerSettings settings;
+    private final MeterRegistry meterRegistry;
+    private final Map<InstanceKey, Entry> instances = new ConcurrentHashMap<>();
+
+    public LoadBalancerStats(@Value("${gateway.load-balancer.decay-time-ms:10000}") long decayMs,
+                             @Value("${gateway.load-balancer.failure-threshold:5}") int failureThreshold,
+                             @Value("${gateway.load-balancer.ejection-time-ms:30000}") long ejectionMs,
+                             @Value("${gateway.load-balancer.max-ejection-time-ms:300000}") long maxEjectionMs,
+                             @Value("${gateway.load-balancer.slow-start-ms:30000}") long slowStartMs,
+                             @Value("${gateway.load-balancer.slow-start-min-weight:0.1}") double slowStartMinWeight,
+                             MeterRegistry meterRegistry) {
+        this.settings = LoadBalancerSettings.ofMillis(decayMs, failureThreshold, ejectionMs, maxEjectionMs,
+                slowStartMs, slowStartMinWeight);
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void start(ServiceInstance instance, long nowNanos) {
+        entry(instance, nowNanos).stats.start();
+    }
+
+    public void cancel(ServiceInstance instance, long nowNanos) {
+        entry(instance, nowNanos).stats.cancel();
+    }
+
+    public void complete(ServiceInstance instance, long latencyNanos, boolean failed, long nowNanos) {
+        Entry entry = entry(instance, nowNanos);
+        if (entry.stats.complete(latencyNanos, failed, nowNanos, settings)) {
+            entry.ejections.increment();
+            log.warn("Ejected {} of {} after {} consecutive failures", entry.key.address(),
+                    entry.key.serviceId(), settings.failureThreshold());
+        }
+    }
+
+    boolean isEjected(ServiceInstance instance, long nowNanos) {
+        return entry(instance, nowNanos).stats.isEjected(nowNanos);
+    }
+
+    double cost(ServiceInstance instance, long nowNanos) {
+        return entry(instance, nowNanos).stats.cost(nowNanos, settings);
+    }
+
+    private Entry entry(ServiceInstance instance, long nowNanos) {
+        InstanceKey key = new InstanceKey(instance.getServiceId(), instance.getHost() + ":" + instance.getPort());
+        Entry entry = instances.get(key);
+        // An instance first seen now starts its slow start now
+        return entry != null ? entry : instances.computeIfAbsent(key, k -> new Entry(k, nowNanos, meterRegistry));
+    }
+
+    private record InstanceKey(String serviceId, String address) {
+    }
+
+    private static final class Entry {
+        private final InstanceKey key;
+        private final InstanceStats stats;
+        private final Counter ejections;
+
+        private Entry(InstanceKey key, long nowNanos, MeterRegistry meterRegistry) {
+            this.key = key;
+            this.stats = new InstanceStats(nowNanos);
+            this.ejections = Counter.builder("gateway.loadbalancer.ejections")
+                    .description("Times the instance was taken out of rotation after consecutive failures")
+                    .tag("service", key.serviceId())
+                    .tag("instance", key.address())
+                    .register(meterRegistry);
+            Gauge.builder("gateway.loadbalancer.latency", stats,
+                            s -> s.ewmaNanos() / TimeUnit.MILLISECONDS.toNanos(1))
+                    .description("Peak EWMA of the instance's response times")
+                    .baseUnit("milliseconds")
+                    .tag("service", key.serviceId())
+                    .tag("instance", key.address())
+                    .register(meterRegistry);
+            Gauge.builder("gateway.loadbalancer.outstanding", stats, InstanceStats::outstanding)
+                    .description("Requests in flight to the instance")
+                    .tag("service", key.serviceId())
+                    .tag("instance", key.address())
+                    .register(meterRegistry);
+        }
+    }
+}
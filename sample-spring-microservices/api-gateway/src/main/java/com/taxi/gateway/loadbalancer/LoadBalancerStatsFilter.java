@@ -0,0 +1,57 @@
+package com.taxi.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+
+/**
+ * Feeds {@link LoadBalancerStats} with the outcome of every load balanced request: in-flight
+ * count, response time, and whether it failed (connection error, timeout or 5xx). Runs right after
+ * the instance was chosen; {@code doFinally} also settles requests cancelled by the client, which
+ * the load balancer lifecycle callbacks never see.
+ */
+@Component
+public class LoadBalancerStatsFilter implements GlobalFilter, Ordered {
+    private final LoadBalancerStats stats;
+
+    public LoadBalancerStatsFilter(LoadBalancerStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public int getOrder() {
+        // After the hedging filter, which records its own attempts and does not continue the chain
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 2;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> response = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (response == null || !response.hasServer()) {
+            return chain.filter(exchange);
+        }
+        ServiceInstance instance = response.getServer();
+        long start = System.nanoTime();
+        stats.start(instance, start);
+        return chain.filter(exchange).doFinally(signal -> {
+            long now = System.nanoTime();
+            if (signal == SignalType.CANCEL) {
+                stats.cancel(instance, now);
+                return;
+            }
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            boolean failed = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+            stats.complete(instance, now - start, failed, now);
+        });
+    }
+}
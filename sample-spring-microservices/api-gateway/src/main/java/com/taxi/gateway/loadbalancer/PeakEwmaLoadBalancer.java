@@ -0,0 +1,98 @@
+package com.taxi.gateway.loadbalancer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.RetryableRequestContext;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Power-of-two-choices over the instances that are not ejected: two random instances are compared
+ * by their peak EWMA cost and the cheaper one wins, which steers traffic away from slow and busy
+ * instances without the herding of always picking the global minimum. If every instance is
+ * ejected, all of them are eligible again rather than failing the request. A request with a
+ * {@link RetryableRequestContext}, such as a hedge, is kept off its previous instance when there
+ * is another one.
+ */
+@Slf4j
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final String serviceId;
+    private final LoadBalancerStats stats;
+
+    public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider, String serviceId,
+                                LoadBalancerStats stats) {
+        this.supplierProvider = supplierProvider;
+        this.serviceId = serviceId;
+        this.stats = stats;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request)
+                .next()
+                .map(instances -> {
+                    if (instances.isEmpty()) {
+                        log.warn("No instances available for service {}", serviceId);
+                        return new EmptyResponse();
+                    }
+                    ServiceInstance previous = request != null
+                            && request.getContext() instanceof RetryableRequestContext context
+                            ? context.getPreviousServiceInstance() : null;
+                    ServiceInstance instance = select(instances, previous, System.nanoTime());
+                    if (supplier instanceof SelectedInstanceCallback callback) {
+                        callback.selectedServiceInstance(instance);
+                    }
+                    return new DefaultResponse(instance);
+                });
+    }
+
+    ServiceInstance select(List<ServiceInstance> instances, long nowNanos) {
+        return select(instances, null, nowNanos);
+    }
+
+    ServiceInstance select(List<ServiceInstance> instances, ServiceInstance previous, long nowNanos) {
+        List<ServiceInstance> candidates = instances;
+        if (instances.size() > 1) {
+            candidates = new ArrayList<>(instances.size());
+            for (ServiceInstance instance : instances) {
+                if (!stats.isEjected(instance, nowNanos) && !sameAddress(instance, previous)) {
+                    candidates.add(instance);
+                }
+            }
+            if (candidates.isEmpty()) {
+                candidates = instances;
+            }
+        }
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = candidates.get(first);
+        ServiceInstance b = candidates.get(second);
+        return stats.cost(a, nowNanos) <= stats.cost(b, nowNanos) ? a : b;
+    }
+
+    private static boolean sameAddress(ServiceInstance instance, ServiceInstance other) {
+        return other != null && instance.getPort() == other.getPort() && instance.getHost().equals(other.getHost());
+    }
+}
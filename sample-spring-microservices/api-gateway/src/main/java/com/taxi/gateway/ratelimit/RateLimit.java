@@ -0,0 +1,39 @@
+package com.taxi.gateway.ratelimit;
+
+import org.springframework.cloud.gateway.route.Route;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limit of a route, read from the {@code rate-limit-requests-per-second} and optional
+ * {@code rate-limit-burst} route metadata (defaults to one second worth of requests).
+ */
+public record RateLimit(long emissionIntervalNanos, long burstNanos) {
+    public static final String RATE_METADATA = "rate-limit-requests-per-second";
+    public static final String BURST_METADATA = "rate-limit-burst";
+
+    public static RateLimit of(double requestsPerSecond, int burst) {
+        if (requestsPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        long emissionInterval = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / requestsPerSecond));
+        return new RateLimit(emissionInterval, emissionInterval * burst);
+    }
+
+    /**
+     * Returns the route's limit, or {@code null} if the route is not limited.
+     */
+    public static RateLimit of(Route route) {
+        Map<String, Object> metadata = route.getMetadata();
+        Object rate = metadata.get(RATE_METADATA);
+        if (rate == null) {
+            return null;
+        }
+        double requestsPerSecond = Double.parseDouble(rate.toString());
+        Object burst = metadata.get(BURST_METADATA);
+        return of(requestsPerSecond, burst == null
+                ? (int) Math.max(1, Math.ceil(requestsPerSecond))
+                : Integer.parseInt(burst.toString()));
+    }
+}
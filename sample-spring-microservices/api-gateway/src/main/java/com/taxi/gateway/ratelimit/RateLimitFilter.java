@@ -0,0 +1,71 @@
+package com.taxi.gateway.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Applies the route's {@link RateLimit} per authenticated subject (the JWT {@code sub}) and
+ * answers requests over the limit with 429 and {@code Retry-After}. Anonymous requests, i.e. the
+ * registration endpoints, are not limited.
+ */
+@Component
+public class RateLimitFilter implements GlobalFilter, Ordered {
+    private final RateLimiter rateLimiter;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> rejected = new ConcurrentHashMap<>();
+
+    public RateLimitFilter(RateLimiter rateLimiter, MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public int getOrder() {
+        // Ahead of the filters doing work for the request, including the response cache
+        return Ordered.HIGHEST_PRECEDENCE + 10_000;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        RateLimit limit = route == null ? null : RateLimit.of(route);
+        if (limit == null) {
+            return chain.filter(exchange);
+        }
+        return exchange.getPrincipal()
+                .map(Principal::getName)
+                .map(subject -> rateLimiter.tryAcquire(route.getId(), subject, limit, System.nanoTime()))
+                .defaultIfEmpty(0L)
+                .flatMap(waitNanos -> waitNanos == 0
+                        ? chain.filter(exchange)
+                        : reject(exchange.getResponse(), route.getId(), waitNanos));
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response, String routeId, long waitNanos) {
+        rejected.computeIfAbsent(routeId, id -> Counter.builder("gateway.ratelimit.rejected")
+                .description("Requests answered with 429 by the gateway rate limiter")
+                .tag("route", id)
+                .register(meterRegistry)).increment();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return response.setComplete();
+    }
+}
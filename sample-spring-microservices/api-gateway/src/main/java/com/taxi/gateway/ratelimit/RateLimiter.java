@@ -0,0 +1,73 @@
+package com.taxi.gateway.ratelimit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process token buckets per route and subject. Full buckets are dropped by a sweep that runs at
+ * most every {@code gateway.rate-limit.sweep-interval-ms}, or right away once the map holds
+ * {@code gateway.rate-limit.max-buckets}; if the map is still over 90% of the bound after that,
+ * arbitrary buckets are dropped down to it, which only ever lets those subjects through early. The
+ * headroom keeps the next full sweep a tenth of the bound of new subjects away.
+ */
+@Component
+public class RateLimiter {
+    private final int maxBuckets;
+    private final int trimmedBuckets;
+    private final long sweepIntervalNanos;
+    private final Map<BucketKey, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep;
+
+    public RateLimiter(@Value("${gateway.rate-limit.max-buckets:100000}") int maxBuckets,
+                       @Value("${gateway.rate-limit.sweep-interval-ms:10000}") long sweepIntervalMs) {
+        if (maxBuckets <= 0) {
+            throw new IllegalArgumentException("Max buckets must be positive");
+        }
+        this.maxBuckets = maxBuckets;
+        this.trimmedBuckets = maxBuckets - Math.max(1, maxBuckets / 10);
+        this.sweepIntervalNanos = TimeUnit.MILLISECONDS.toNanos(sweepIntervalMs);
+        this.lastSweep = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Takes a token of the subject's bucket for the route and returns 0, or returns the nanos until
+     * the next request would be allowed.
+     */
+    public long tryAcquire(String routeId, String subject, RateLimit limit, long nowNanos) {
+        BucketKey key = new BucketKey(routeId, subject);
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            sweepIfDue(nowNanos);
+            bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(nowNanos));
+        }
+        return bucket.tryAcquire(limit, nowNanos);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private void sweepIfDue(long nowNanos) {
+        long last = lastSweep.get();
+        boolean due = nowNanos - last >= sweepIntervalNanos || buckets.size() >= maxBuckets;
+        if (!due || !lastSweep.compareAndSet(last, nowNanos)) {
+            return;
+        }
+        // A token taken from a bucket while it is removed is lost, at most one extra request passes
+        buckets.entrySet().removeIf(entry -> entry.getValue().isFull(nowNanos));
+        Iterator<BucketKey> keys = buckets.keySet().iterator();
+        while (buckets.size() > trimmedBuckets && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private record BucketKey(String routeId, String subject) {
+    }
+}
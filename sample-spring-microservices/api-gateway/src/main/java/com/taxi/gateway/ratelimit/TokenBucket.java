@@ -0,0 +1,38 @@
+package com.taxi.gateway.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket in its GCRA form: instead of a token count and a refill timestamp, the
+ * bucket keeps the single "theoretical arrival time" at which it would be full again, so taking a
+ * token is one CAS on one long. A bucket whose arrival time has passed is full and can be
+ * forgotten without changing any decision.
+ */
+final class TokenBucket {
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(long nowNanos) {
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes a token and returns 0, or returns the nanos until one is available.
+     */
+    long tryAcquire(RateLimit limit, long nowNanos) {
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long next = Math.max(arrival, nowNanos) + limit.emissionIntervalNanos();
+            long wait = next - nowNanos - limit.burstNanos();
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    boolean isFull(long nowNanos) {
+        return theoreticalArrival.get() - nowNanos <= 0;
+    }
+}
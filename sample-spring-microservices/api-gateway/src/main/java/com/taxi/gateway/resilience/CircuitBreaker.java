@@ -0,0 +1,103 @@
+package com.taxi.gateway.resilience;
+
+/**
+ * Count-based circuit breaker of one route. Closed, it keeps the outcomes of the last
+ * {@code window} calls and opens once the window is full and the failure rate reaches the
+ * threshold. Open, it rejects calls until the open time has passed, then lets a single probe
+ * through: its success closes the circuit with an empty window, its failure opens it again.
+ */
+final class CircuitBreaker {
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    enum Permit { CALL, PROBE }
+
+    private final CircuitBreakerPolicy policy;
+    private final boolean[] outcomes;
+    private int next;
+    private int calls;
+    private int failures;
+    private State state = State.CLOSED;
+    private long openUntilNanos;
+    private boolean probing;
+
+    CircuitBreaker(CircuitBreakerPolicy policy) {
+        this.policy = policy;
+        this.outcomes = new boolean[policy.window()];
+    }
+
+    /**
+     * Returns a permit for a call, or {@code null} if the circuit rejects it.
+     */
+    synchronized Permit acquire(long nowNanos) {
+        if (state == State.CLOSED) {
+            return Permit.CALL;
+        }
+        if (state == State.OPEN && nowNanos - openUntilNanos >= 0) {
+            state = State.HALF_OPEN;
+        }
+        if (state == State.HALF_OPEN && !probing) {
+            probing = true;
+            return Permit.PROBE;
+        }
+        return null;
+    }
+
+    /**
+     * Records the outcome of a permitted call; {@code failed} is {@code null} when the call was
+     * cancelled and says nothing about the backend.
+     */
+    synchronized void record(Permit permit, Boolean failed, long nowNanos) {
+        if (permit == Permit.PROBE) {
+            probing = false;
+            if (failed == null) {
+                return;
+            }
+            if (failed) {
+                open(nowNanos);
+            } else {
+                state = State.CLOSED;
+                resetWindow();
+            }
+            return;
+        }
+        // Calls admitted before the circuit opened say nothing about the backend now
+        if (failed == null || state != State.CLOSED) {
+            return;
+        }
+        if (calls == outcomes.length) {
+            failures -= outcomes[next] ? 1 : 0;
+        } else {
+            calls++;
+        }
+        outcomes[next] = failed;
+        failures += failed ? 1 : 0;
+        next = (next + 1) % outcomes.length;
+        if (calls == outcomes.length && failures * 100 >= policy.failureRatePercent() * calls) {
+            open(nowNanos);
+        }
+    }
+
+    synchronized long retryAfterNanos(long nowNanos) {
+        return Math.max(0, openUntilNanos - nowNanos);
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    CircuitBreakerPolicy policy() {
+        return policy;
+    }
+
+    private void open(long nowNanos) {
+        state = State.OPEN;
+        openUntilNanos = nowNanos + policy.openNanos();
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        next = 0;
+        calls = 0;
+        failures = 0;
+    }
+}
@@ -0,0 +1,114 @@
+package com.taxi.gateway.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Applies the route's {@link CircuitBreakerPolicy}: errors, timeouts and 5xx responses count as
+ * failures, and while the circuit is open requests are answered with 503 and {@code Retry-After}
+ * instead of queueing on a backend that is not answering. Cached responses are still served, since
+ * the response cache runs first. Meters: {@code gateway.circuitbreaker.state{route}} (0 closed,
+ * 1 open, 2 half open) and {@code gateway.circuitbreaker.rejected{route}}.
+ */
+@Component
+@Slf4j
+public class CircuitBreakerFilter implements GlobalFilter, Ordered {
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RouteCircuit> circuits = new ConcurrentHashMap<>();
+
+    public CircuitBreakerFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public int getOrder() {
+        // Around the instance choice, so hedged and load balanced attempts count as one call
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER - 1;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        CircuitBreakerPolicy policy = route == null ? null : CircuitBreakerPolicy.of(route);
+        if (policy == null) {
+            return chain.filter(exchange);
+        }
+        RouteCircuit circuit = circuits.computeIfAbsent(route.getId(),
+                id -> new RouteCircuit(new CircuitBreaker(policy), meterRegistry, id));
+        CircuitBreaker breaker = circuit.breaker(policy);
+        CircuitBreaker.Permit permit = breaker.acquire(System.nanoTime());
+        if (permit == null) {
+            circuit.rejected.increment();
+            return reject(exchange.getResponse(), breaker.retryAfterNanos(System.nanoTime()));
+        }
+        return chain.filter(exchange).doFinally(signal -> {
+            CircuitBreaker.State before = breaker.state();
+            Boolean failed = null;
+            if (signal != SignalType.CANCEL) {
+                HttpStatusCode status = exchange.getResponse().getStatusCode();
+                failed = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+            }
+            breaker.record(permit, failed, System.nanoTime());
+            CircuitBreaker.State after = breaker.state();
+            if (before != after) {
+                log.warn("Circuit of route {} is now {}", route.getId(), after);
+            }
+        });
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response, long retryAfterNanos) {
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        long retryAfterSeconds = Math.max(1, (retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return response.setComplete();
+    }
+
+    private static final class RouteCircuit {
+        private final Counter rejected;
+        private volatile CircuitBreaker breaker;
+
+        private RouteCircuit(CircuitBreaker breaker, MeterRegistry meterRegistry, String routeId) {
+            this.breaker = breaker;
+            this.rejected = Counter.builder("gateway.circuitbreaker.rejected")
+                    .description("Requests answered with 503 because the route's circuit was open")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.circuitbreaker.state", this, c -> c.breaker.state().ordinal())
+                    .description("Circuit state of the route: 0 closed, 1 open, 2 half open")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+        }
+
+        private CircuitBreaker breaker(CircuitBreakerPolicy policy) {
+            CircuitBreaker current = breaker;
+            if (!current.policy().equals(policy)) {
+                // The route's metadata changed with a route refresh; racing requests may each
+                // install a fresh breaker, which only forgets a few outcomes
+                current = new CircuitBreaker(policy);
+                breaker = current;
+            }
+            return current;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.taxi.gateway.resilience;
+
+import org.springframework.cloud.gateway.route.Route;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker of a route, read from the {@code circuit-breaker-failure-rate} (percent) and
+ * optional {@code circuit-breaker-window} (calls, default 20) and {@code circuit-breaker-open-ms}
+ * (default 10 s) route metadata.
+ */
+public record CircuitBreakerPolicy(int failureRatePercent, int window, long openNanos) {
+    public static final String FAILURE_RATE_METADATA = "circuit-breaker-failure-rate";
+    public static final String WINDOW_METADATA = "circuit-breaker-window";
+    public static final String OPEN_METADATA = "circuit-breaker-open-ms";
+
+    public CircuitBreakerPolicy {
+        if (failureRatePercent <= 0 || failureRatePercent > 100 || window <= 0 || openNanos <= 0) {
+            throw new IllegalArgumentException("Invalid circuit breaker policy");
+        }
+    }
+
+    /**
+     * Returns the route's policy, or {@code null} if the route has no circuit breaker.
+     */
+    public static CircuitBreakerPolicy of(Route route) {
+        Map<String, Object> metadata = route.getMetadata();
+        Object failureRate = metadata.get(FAILURE_RATE_METADATA);
+        if (failureRate == null) {
+            return null;
+        }
+        Object window = metadata.get(WINDOW_METADATA);
+        Object openMs = metadata.get(OPEN_METADATA);
+        return new CircuitBreakerPolicy(
+                Integer.parseInt(failureRate.toString()),
+                window == null ? 20 : Integer.parseInt(window.toString()),
+                TimeUnit.MILLISECONDS.toNanos(openMs == null ? 10_000 : Long.parseLong(openMs.toString())));
+    }
+}
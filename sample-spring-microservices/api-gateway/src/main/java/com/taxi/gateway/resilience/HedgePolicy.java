@@ -0,0 +1,41 @@
+package com.taxi.gateway.resilience;
+
+import org.springframework.cloud.gateway.route.Route;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hedging of a route's GET requests, read from the {@code hedge-percentile} route metadata (a
+ * request still running after this percentile of recent response times is sent to a second
+ * instance) and the optional {@code hedge-min-delay-ms} (floor of that delay, default 5 ms) and
+ * {@code hedge-budget-percent} (hedges allowed per 100 requests, default 5).
+ */
+public record HedgePolicy(double percentile, long minDelayNanos, int budgetPercent) {
+    public static final String PERCENTILE_METADATA = "hedge-percentile";
+    public static final String MIN_DELAY_METADATA = "hedge-min-delay-ms";
+    public static final String BUDGET_METADATA = "hedge-budget-percent";
+
+    public HedgePolicy {
+        if (percentile <= 0 || percentile >= 100 || minDelayNanos < 0 || budgetPercent <= 0 || budgetPercent > 100) {
+            throw new IllegalArgumentException("Invalid hedge policy");
+        }
+    }
+
+    /**
+     * Returns the route's policy, or {@code null} if the route is not hedged.
+     */
+    public static HedgePolicy of(Route route) {
+        Map<String, Object> metadata = route.getMetadata();
+        Object percentile = metadata.get(PERCENTILE_METADATA);
+        if (percentile == null) {
+            return null;
+        }
+        Object minDelayMs = metadata.get(MIN_DELAY_METADATA);
+        Object budget = metadata.get(BUDGET_METADATA);
+        return new HedgePolicy(
+                Double.parseDouble(percentile.toString()),
+                TimeUnit.MILLISECONDS.toNanos(minDelayMs == null ? 5 : Long.parseLong(minDelayMs.toString())),
+                budget == null ? 5 : Integer.parseInt(budget.toString()));
+    }
+}
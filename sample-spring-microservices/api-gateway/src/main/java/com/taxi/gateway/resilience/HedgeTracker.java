@@ -0,0 +1,100 @@
+package com.taxi.gateway.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hedging state of one route: the hedge delay, derived from an HdrHistogram of the route's recent
+ * response times, and the budget that caps hedges to a share of requests so a slow backend is not
+ * hit with twice the load. The delay is recomputed at most once per second and only from windows
+ * of at least {@value #MIN_SAMPLES} responses; until the first window is full the route is not
+ * hedged. Meters: {@code gateway.hedge.fired{route}}, {@code gateway.hedge.won{route}} and
+ * {@code gateway.hedge.delay{route}} (ms).
+ */
+final class HedgeTracker {
+    static final int MIN_SAMPLES = 100;
+
+    private static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // Budget in hundredths of a hedge: each request earns budgetPercent, a hedge costs 100
+    private static final long HEDGE_COST = 100;
+    private static final long MAX_CREDITS = 10 * HEDGE_COST;
+
+    private final Recorder recorder = new Recorder(3);
+    private final Histogram window = new Histogram(3);
+    private final AtomicLong credits = new AtomicLong();
+    private final AtomicLong lastRefresh;
+    private final Counter fired;
+    private final Counter won;
+    private Histogram interval;
+    private volatile long delayNanos = -1;
+
+    HedgeTracker(String routeId, long nowNanos, MeterRegistry meterRegistry) {
+        this.lastRefresh = new AtomicLong(nowNanos);
+        this.fired = Counter.builder("gateway.hedge.fired")
+                .description("Hedged requests sent to a second instance")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        this.won = Counter.builder("gateway.hedge.won")
+                .description("Hedged requests that answered before the original request")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Gauge.builder("gateway.hedge.delay", this, t -> t.delayNanos < 0 ? Double.NaN
+                        : (double) t.delayNanos / TimeUnit.MILLISECONDS.toNanos(1))
+                .description("Time after which a request of the route is hedged")
+                .baseUnit("milliseconds")
+                .tag("route", routeId)
+                .register(meterRegistry);
+    }
+
+    void recordLatency(long latencyNanos) {
+        recorder.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+    }
+
+    /**
+     * Counts a request towards the budget and returns its hedge delay, or -1 if it is not hedged.
+     */
+    long onRequest(HedgePolicy policy, long nowNanos) {
+        credits.getAndUpdate(c -> Math.min(c + policy.budgetPercent(), MAX_CREDITS));
+        long last = lastRefresh.get();
+        if (nowNanos - last >= REFRESH_NANOS && lastRefresh.compareAndSet(last, nowNanos)) {
+            refresh(policy);
+        }
+        return delayNanos;
+    }
+
+    /**
+     * Takes a hedge from the budget, returning {@code false} if it is used up.
+     */
+    boolean tryHedge() {
+        while (true) {
+            long available = credits.get();
+            if (available < HEDGE_COST) {
+                return false;
+            }
+            if (credits.compareAndSet(available, available - HEDGE_COST)) {
+                fired.increment();
+                return true;
+            }
+        }
+    }
+
+    void hedgeWon() {
+        won.increment();
+    }
+
+    private synchronized void refresh(HedgePolicy policy) {
+        interval = recorder.getIntervalHistogram(interval);
+        window.add(interval);
+        if (window.getTotalCount() >= MIN_SAMPLES) {
+            long micros = window.getValueAtPercentile(policy.percentile());
+            delayNanos = Math.max(policy.minDelayNanos(), TimeUnit.MICROSECONDS.toNanos(micros));
+            window.reset();
+        }
+    }
+}
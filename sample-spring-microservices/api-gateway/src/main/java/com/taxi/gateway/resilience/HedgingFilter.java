@@ -0,0 +1,225 @@
+package com.taxi.gateway.resilience;
+
+import com.taxi.gateway.loadbalancer.LoadBalancerStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.RetryableRequestContext;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactiveLoadBalancer;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.CONNECT_TIMEOUT_ATTR;
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.isAlreadyRouted;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.setAlreadyRouted;
+
+/**
+ * Routes GET requests of routes with a {@link HedgePolicy} itself instead of leaving them to the
+ * Netty routing filter: if the instance chosen by the load balancer has not answered within the
+ * route's hedge delay, the same request is sent to another instance and whichever answers first
+ * is returned, the other is cancelled. A hedge that fails or answers 5xx never wins over the
+ * original request. Responses are buffered and the route's {@code response-timeout} covers the whole
+ * exchange, so hedging is meant for the small JSON reads of this API: streaming routes such as the
+ * NDJSON trip exports must not have a hedge policy, and requests accepting a streaming media type
+ * are never hedged. Until the route has a hedge delay, requests go through the Netty routing
+ * filter as usual and only their latency is recorded.
+ */
+@Component
+public class HedgingFilter implements GlobalFilter, Ordered {
+    private static final List<MediaType> STREAMING_TYPES = List.of(MediaType.APPLICATION_NDJSON, MediaType.TEXT_EVENT_STREAM);
+
+    private final HttpClient httpClient;
+    private final ObjectProvider<List<HttpHeadersFilter>> headersFilters;
+    private final HttpClientProperties httpClientProperties;
+    private final LoadBalancerClientFactory clientFactory;
+    private final LoadBalancerStats loadBalancerStats;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, HedgeTracker> trackers = new ConcurrentHashMap<>();
+
+    public HedgingFilter(HttpClient httpClient, ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+                         HttpClientProperties httpClientProperties, LoadBalancerClientFactory clientFactory,
+                         LoadBalancerStats loadBalancerStats, MeterRegistry meterRegistry) {
+        this.httpClient = httpClient;
+        this.headersFilters = headersFilters;
+        this.httpClientProperties = httpClientProperties;
+        this.clientFactory = clientFactory;
+        this.loadBalancerStats = loadBalancerStats;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public int getOrder() {
+        // Right after the load balancer chose the first instance
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        HedgePolicy policy = route == null ? null : HedgePolicy.of(route);
+        Response<ServiceInstance> chosen = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (policy == null || exchange.getRequest().getMethod() != HttpMethod.GET || chosen == null
+                || !chosen.hasServer() || isAlreadyRouted(exchange)) {
+            return chain.filter(exchange);
+        }
+        if (acceptsStream(exchange.getRequest().getHeaders())) {
+            return chain.filter(exchange);
+        }
+
+        long now = System.nanoTime();
+        HedgeTracker tracker = trackers.computeIfAbsent(route.getId(), id -> new HedgeTracker(id, now, meterRegistry));
+        long hedgeDelayNanos = tracker.onRequest(policy, now);
+        if (hedgeDelayNanos < 0) {
+            // Not enough samples for a delay yet: nothing to race, so nothing to buffer
+            return chain.filter(exchange).doFinally(signal -> tracker.recordLatency(System.nanoTime() - now));
+        }
+        setAlreadyRouted(exchange);
+        ServiceInstance primary = chosen.getServer();
+        URI url = exchange.getRequiredAttribute(GATEWAY_REQUEST_URL_ATTR);
+        HttpHeaders headers = HttpHeadersFilter.filterRequest(headersFilters.getIfAvailable(), exchange);
+
+        HttpClient client = httpClient(route);
+        Mono<UpstreamResponse> first = send(client, primary, url, headers)
+                .doOnSuccess(response -> tracker.recordLatency(System.nanoTime() - now))
+                .doOnError(error -> tracker.recordLatency(System.nanoTime() - now))
+                // A request cut short by a hedge still took at least this long
+                .doOnCancel(() -> tracker.recordLatency(System.nanoTime() - now));
+        Mono<UpstreamResponse> hedge = Mono.delay(Duration.ofNanos(hedgeDelayNanos))
+                .flatMap(tick -> chooseOther(exchange, primary))
+                .filter(other -> tracker.tryHedge())
+                .flatMap(other -> send(client, other, rebase(url, other), headers))
+                .flatMap(response -> response.status() >= 500
+                        ? Mono.<UpstreamResponse>error(new IllegalStateException("Hedge failed"))
+                        : Mono.just(response))
+                .doOnNext(response -> tracker.hedgeWon());
+        Mono<UpstreamResponse> race = Mono.firstWithValue(first, hedge)
+                .onErrorMap(NoSuchElementException.class,
+                        e -> e.getSuppressed().length > 0 ? e.getSuppressed()[0] : e);
+
+        Duration timeout = responseTimeout(route);
+        if (timeout != null) {
+            race = race.timeout(timeout, Mono.error(() -> new ResponseStatusException(
+                    HttpStatus.GATEWAY_TIMEOUT, "Response took longer than timeout: " + timeout)));
+        }
+        return race.flatMap(response -> write(exchange, response));
+    }
+
+    private Mono<UpstreamResponse> send(HttpClient client, ServiceInstance instance, URI url, HttpHeaders headers) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            loadBalancerStats.start(instance, start);
+            return client
+                    .headers(h -> {
+                        headers.forEach(h::set);
+                        h.remove(HttpHeaders.HOST);
+                    })
+                    .get()
+                    .uri(url.toASCIIString())
+                    .responseSingle((response, body) -> body.asByteArray()
+                            .defaultIfEmpty(new byte[0])
+                            .map(bytes -> {
+                                HttpHeaders responseHeaders = new HttpHeaders();
+                                response.responseHeaders().forEach(e -> responseHeaders.add(e.getKey(), e.getValue()));
+                                return new UpstreamResponse(response.status().code(), responseHeaders, bytes);
+                            }))
+                    .doOnSuccess(response -> loadBalancerStats.complete(instance, System.nanoTime() - start,
+                            response.status() >= 500, System.nanoTime()))
+                    .doOnError(error -> loadBalancerStats.complete(instance, System.nanoTime() - start,
+                            true, System.nanoTime()))
+                    .doOnCancel(() -> loadBalancerStats.cancel(instance, System.nanoTime()));
+        });
+    }
+
+    private Mono<ServiceInstance> chooseOther(ServerWebExchange exchange, ServiceInstance primary) {
+        ReactiveLoadBalancer<ServiceInstance> loadBalancer = clientFactory.getInstance(primary.getServiceId());
+        if (loadBalancer == null) {
+            return Mono.empty();
+        }
+        // The load balancer leaves out the previous instance when it has another one
+        RetryableRequestContext context = new RetryableRequestContext(primary,
+                new RequestData(exchange.getRequest(), exchange.getAttributes()));
+        return Mono.from(loadBalancer.choose(new DefaultRequest<>(context)))
+                .filter(Response::hasServer)
+                .map(Response::getServer)
+                .filter(other -> !other.getHost().equals(primary.getHost()) || other.getPort() != primary.getPort());
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, UpstreamResponse upstream) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatusCode.valueOf(upstream.status()));
+        HttpHeaders headers = HttpHeadersFilter.filter(headersFilters.getIfAvailable(), upstream.headers(), exchange,
+                HttpHeadersFilter.Type.RESPONSE);
+        response.getHeaders().addAll(headers);
+        response.getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+        response.getHeaders().setContentLength(upstream.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(upstream.body())));
+    }
+
+    private static boolean acceptsStream(HttpHeaders headers) {
+        return headers.getAccept().stream()
+                .anyMatch(type -> STREAMING_TYPES.stream().anyMatch(streaming -> streaming.equalsTypeAndSubtype(type)));
+    }
+
+    private HttpClient httpClient(Route route) {
+        // Same as NettyRoutingFilter: the route's connect timeout overrides the global one
+        Object connectTimeout = route.getMetadata().get(CONNECT_TIMEOUT_ATTR);
+        if (connectTimeout == null) {
+            return httpClient;
+        }
+        return httpClient.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Integer.parseInt(connectTimeout.toString()));
+    }
+
+    private Duration responseTimeout(Route route) {
+        Object routeTimeout = route.getMetadata().get(RESPONSE_TIMEOUT_ATTR);
+        if (routeTimeout != null) {
+            long timeoutMs = Long.parseLong(routeTimeout.toString());
+            return timeoutMs >= 0 ? Duration.ofMillis(timeoutMs) : null;
+        }
+        return httpClientProperties.getResponseTimeout();
+    }
+
+    private static URI rebase(URI url, ServiceInstance instance) {
+        return UriComponentsBuilder.fromUri(url)
+                .scheme(instance.isSecure() ? "https" : "http")
+                .host(instance.getHost())
+                .port(instance.getPort())
+                .build(true)
+                .toUri();
+    }
+
+    private record UpstreamResponse(int status, HttpHeaders headers, byte[] body) {
+    }
+}
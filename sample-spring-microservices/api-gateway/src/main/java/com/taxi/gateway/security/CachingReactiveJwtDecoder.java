@@ -0,0 +1,108 @@
+package com.taxi.gateway.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Remembers tokens the delegate already verified, keyed by the SHA-256 of the token, until their
+ * {@code exp}. A chatty client reuses one token for its whole lifetime, so only its first request
+ * pays for parsing, the signature check and validation. Tokens without {@code exp} are never
+ * cached. The cache is bounded: each entry expires at its token's {@code exp}, and once
+ * {@code maxEntries} is reached an insert evicts an older, rarely used entry.
+ *
+ * <p>Metrics: {@code gateway.jwt.cache.requests{result=hit|miss}} and {@code gateway.jwt.cache.size}.
+ */
+public class CachingReactiveJwtDecoder implements ReactiveJwtDecoder {
+    private final ReactiveJwtDecoder delegate;
+    private final Cache<ByteBuffer, Jwt> verified;
+    private final Counter hits;
+    private final Counter misses;
+
+    public CachingReactiveJwtDecoder(ReactiveJwtDecoder delegate, MeterRegistry meterRegistry, int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Max entries must be positive");
+        }
+        this.delegate = delegate;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new UntilExpiresAt())
+                .build();
+        this.hits = requests(meterRegistry, "hit");
+        this.misses = requests(meterRegistry, "miss");
+        Gauge.builder("gateway.jwt.cache.size", verified, Cache::estimatedSize)
+                .description("Verified tokens held by the gateway")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Jwt> decode(String token) throws JwtException {
+        ByteBuffer key = hash(token);
+        Jwt jwt = verified.getIfPresent(key);
+        if (jwt != null) {
+            hits.increment();
+            return Mono.just(jwt);
+        }
+        misses.increment();
+        return delegate.decode(token).doOnNext(decoded -> remember(key, decoded));
+    }
+
+    public long size() {
+        verified.cleanUp();
+        return verified.estimatedSize();
+    }
+
+    private void remember(ByteBuffer key, Jwt jwt) {
+        if (jwt.getExpiresAt() != null && Instant.now().isBefore(jwt.getExpiresAt())) {
+            verified.put(key, jwt);
+        }
+    }
+
+    private static ByteBuffer hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Expires each entry at its token's {@code exp}, regardless of later reads. */
+    private static class UntilExpiresAt implements Expiry<ByteBuffer, Jwt> {
+        @Override
+        public long expireAfterCreate(ByteBuffer key, Jwt jwt, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), jwt.getExpiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, Jwt jwt, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, jwt, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, Jwt jwt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("gateway.jwt.cache.requests")
+                .description("Bearer tokens looked up in the verified token cache")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,88 @@
+package com.taxi.gateway.security;
+
+import com.taxi.common.security.InternalPrincipal;
+import com.taxi.common.security.InternalPrincipalCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trusted-hop mode ({@code taxi.internal-auth.enabled}): replaces the bearer token of an
+ * authenticated request by a {@value InternalPrincipalCodec#HEADER} header signed with the secret
+ * shared with the backends, valid until the token expires. A header of that name sent by a client
+ * is always dropped, whether the mode is enabled or not.
+ */
+@Component
+public class InternalPrincipalFilter implements GlobalFilter, Ordered {
+    private final InternalPrincipalCodec codec;
+    private final List<String> forwardedClaims;
+
+    public InternalPrincipalFilter(@Value("${taxi.internal-auth.enabled:false}") boolean enabled,
+                                   @Value("${taxi.internal-auth.secret:}") String secret,
+                                   @Value("${taxi.internal-auth.forwarded-claims:user_id}") List<String> forwardedClaims) {
+        this.codec = enabled ? new InternalPrincipalCodec(secret) : null;
+        this.forwardedClaims = forwardedClaims;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 20_000;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerWebExchange untrusted = exchange;
+        if (exchange.getRequest().getHeaders().containsKey(InternalPrincipalCodec.HEADER)) {
+            untrusted = exchange.mutate()
+                    .request(request -> request.headers(headers -> headers.remove(InternalPrincipalCodec.HEADER)))
+                    .build();
+        }
+        if (codec == null) {
+            return chain.filter(untrusted);
+        }
+        ServerWebExchange forwarded = untrusted;
+        return exchange.getPrincipal()
+                .filter(JwtAuthenticationToken.class::isInstance)
+                .cast(JwtAuthenticationToken.class)
+                .filter(authentication -> authentication.getToken().getExpiresAt() != null)
+                .map(authentication -> {
+                    String header = codec.encode(toPrincipal(authentication));
+                    return forwarded.mutate()
+                            .request(request -> request.headers(headers -> {
+                                headers.remove(HttpHeaders.AUTHORIZATION);
+                                headers.set(InternalPrincipalCodec.HEADER, header);
+                            }))
+                            .build();
+                })
+                .defaultIfEmpty(forwarded)
+                .flatMap(chain::filter);
+    }
+
+    private InternalPrincipal toPrincipal(JwtAuthenticationToken authentication) {
+        Jwt jwt = authentication.getToken();
+        Map<String, Object> claims = new LinkedHashMap<>();
+        for (String name : forwardedClaims) {
+            Object value = jwt.getClaims().get(name);
+            if (value != null) {
+                claims.put(name, value);
+            }
+        }
+        return new InternalPrincipal(
+                authentication.getName(),
+                authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList(),
+                claims,
+                jwt.getExpiresAt());
+    }
+}
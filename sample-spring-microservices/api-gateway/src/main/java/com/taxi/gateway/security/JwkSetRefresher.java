@@ -0,0 +1,116 @@
+package com.taxi.gateway.security;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jwt.SignedJWT;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the issuer's JWK set in memory and refreshes it in the background, so verifying a token
+ * never waits for the JWKS endpoint. Only a key id missing from the current set, i.e. a key
+ * rotation between two refreshes, makes a request wait for a fetch, and at most one fetch per
+ * {@code gateway.jwt.jwk-min-refresh-interval-ms} is made for it.
+ */
+@Component
+@Slf4j
+public class JwkSetRefresher {
+    private final WebClient webClient;
+    private final String jwkSetUri;
+    private final Duration refreshInterval;
+    private final long minRefreshIntervalNanos;
+    private final AtomicReference<JWKSet> current = new AtomicReference<>(new JWKSet());
+    private final AtomicReference<Mono<JWKSet>> inFlight = new AtomicReference<>();
+    private volatile long lastFetchNanos;
+    private Disposable schedule;
+
+    public JwkSetRefresher(WebClient.Builder webClientBuilder,
+                           @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") String jwkSetUri,
+                           @Value("${gateway.jwt.jwk-refresh-interval-ms:300000}") long refreshIntervalMs,
+                           @Value("${gateway.jwt.jwk-min-refresh-interval-ms:30000}") long minRefreshIntervalMs) {
+        this.webClient = webClientBuilder.build();
+        this.jwkSetUri = jwkSetUri;
+        this.refreshInterval = Duration.ofMillis(refreshIntervalMs);
+        this.minRefreshIntervalNanos = Duration.ofMillis(minRefreshIntervalMs).toNanos();
+        this.lastFetchNanos = System.nanoTime() - minRefreshIntervalNanos;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        schedule = Flux.interval(Duration.ZERO, refreshInterval)
+                .concatMap(tick -> refresh().onErrorResume(e -> {
+                    log.warn("Failed to refresh the JWK set from {}", jwkSetUri, e);
+                    return Mono.empty();
+                }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (schedule != null) {
+            schedule.dispose();
+        }
+    }
+
+    /**
+     * JWK source for the decoder: the keys of the cached set matching the token header.
+     */
+    public Flux<JWK> select(SignedJWT jwt) {
+        JWKSelector selector = new JWKSelector(JWKMatcher.forJWSHeader(jwt.getHeader()));
+        List<JWK> keys = selector.select(current.get());
+        if (!keys.isEmpty() || System.nanoTime() - lastFetchNanos < minRefreshIntervalNanos) {
+            return Flux.fromIterable(keys);
+        }
+        return refresh().flatMapIterable(selector::select);
+    }
+
+    private Mono<JWKSet> refresh() {
+        Mono<JWKSet> running = inFlight.get();
+        if (running != null) {
+            return running;
+        }
+        Mono<JWKSet> fetch = webClient.get()
+                .uri(jwkSetUri)
+                .retrieve()
+                .bodyToMono(String.class)
+                .map(JwkSetRefresher::parse)
+                .doOnNext(jwkSet -> {
+                    current.set(jwkSet);
+                    log.debug("Refreshed JWK set with {} keys", jwkSet.getKeys().size());
+                })
+                .doFinally(signal -> {
+                    lastFetchNanos = System.nanoTime();
+                    inFlight.set(null);
+                })
+                .cache();
+        if (inFlight.compareAndSet(null, fetch)) {
+            return fetch;
+        }
+        // Lost the race to another caller, share its fetch
+        running = inFlight.get();
+        return running != null ? running : Mono.just(current.get());
+    }
+
+    private static JWKSet parse(String body) {
+        try {
+            return JWKSet.parse(body);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Invalid JWK set", e);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.taxi.gateway.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+class ResponseCacheFilterTest {
+    private static final String PATH = "/api/drivers/42";
+    private static final String KEY = "driver-service " + PATH;
+    private static final String BODY = "{\"id\":42}";
+
+    private final ResponseCache cache = new ResponseCache(new SimpleMeterRegistry(), 1_000_000, 100_000);
+    private final ResponseCacheFilter filter = new ResponseCacheFilter(cache, new ResponseCacheMetrics(new SimpleMeterRegistry()));
+    private final AtomicInteger backendCalls = new AtomicInteger();
+
+    @Test
+    void shouldServeSharedMaxAgeResponsesFromCache() {
+        GatewayFilterChain backend = backend(cacheControl("s-maxage=30"));
+
+        MockServerWebExchange first = run(request(), backend);
+        MockServerWebExchange second = run(request(), backend);
+
+        assertThat(backendCalls).hasValue(1);
+        assertThat(first.getResponse().getBodyAsString().block()).isEqualTo(BODY);
+        assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(second.getResponse().getHeaders().getFirst("X-Cache")).isEqualTo("HIT");
+        assertThat(second.getResponse().getBodyAsString().block()).isEqualTo(BODY);
+    }
+
+    @Test
+    void shouldStorePublicResponsesForTheirMaxAge() {
+        run(request(), backend(cacheControl("public, max-age=30")));
+
+        assertThat(cache.get(KEY)).isNotNull();
+    }
+
+    @Test
+    void shouldNotStoreResponsesReservedForOneClient() {
+        for (String cacheControl : new String[]{"private, max-age=30", "no-store", "max-age=30"}) {
+            run(request(), backend(cacheControl(cacheControl)));
+
+            assertThat(cache.get(KEY)).as(cacheControl).isNull();
+        }
+        assertThat(backendCalls).hasValue(3);
+    }
+
+    @Test
+    void shouldNotStoreResponsesSettingCookiesOrVaryingOnEverything() {
+        HttpHeaders cookie = cacheControl("s-maxage=30");
+        cookie.add(HttpHeaders.SET_COOKIE, "session=1");
+        HttpHeaders varyAll = cacheControl("s-maxage=30");
+        varyAll.setVary(List.of("*"));
+
+        run(request(), backend(cookie));
+        assertThat(cache.get(KEY)).isNull();
+        run(request(), backend(varyAll));
+        assertThat(cache.get(KEY)).isNull();
+    }
+
+    @Test
+    void shouldAnswerMatchingIfNoneMatchWithNotModifiedOnHitAndMiss() {
+        HttpHeaders headers = cacheControl("s-maxage=30");
+        headers.setETag("\"v1\"");
+        GatewayFilterChain backend = backend(headers);
+
+        MockServerWebExchange miss = run(request().ifNoneMatch("\"v1\""), backend);
+        MockServerWebExchange hit = run(request().ifNoneMatch("W/\"v1\""), backend);
+
+        assertThat(backendCalls).hasValue(1);
+        assertThat(miss.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(miss.getResponse().getBodyAsString().block()).isEmpty();
+        assertThat(cache.get(KEY)).isNotNull();
+        assertThat(hit.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(hit.getResponse().getHeaders().getETag()).isEqualTo("\"v1\"");
+        assertThat(hit.getResponse().getBodyAsString().block()).isEmpty();
+    }
+
+    @Test
+    void shouldRemoveTheStoredEntryWhenTheBackendStopsAllowingCaching() {
+        cache.put(KEY, new CachedResponse(HttpStatus.OK.value(), new HttpHeaders(),
+                BODY.getBytes(StandardCharsets.UTF_8), "\"v1\"", System.nanoTime() + TimeUnit.SECONDS.toNanos(30)));
+
+        MockServerWebExchange reload = run(request().header(HttpHeaders.CACHE_CONTROL, "no-cache"),
+                backend(cacheControl("no-store")));
+
+        assertThat(backendCalls).hasValue(1);
+        assertThat(reload.getResponse().getBodyAsString().block()).isEqualTo(BODY);
+        assertThat(cache.get(KEY)).isNull();
+    }
+
+    private MockServerWebExchange run(MockServerHttpRequest.BaseBuilder<?> request, GatewayFilterChain chain) {
+        Route route = Route.async()
+                .id("driver-service")
+                .uri(URI.create("http://localhost:8082"))
+                .predicate(exchange -> true)
+                .metadata(ResponseCacheFilter.MAX_AGE_METADATA, 60)
+                .build();
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, route);
+        filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+        return exchange;
+    }
+
+    private GatewayFilterChain backend(HttpHeaders headers) {
+        return exchange -> Mono.defer(() -> {
+            backendCalls.incrementAndGet();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            response.getHeaders().addAll(headers);
+            byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        });
+    }
+
+    private static MockServerHttpRequest.BaseBuilder<?> request() {
+        return MockServerHttpRequest.get(PATH);
+    }
+
+    private static HttpHeaders cacheControl(String value) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl(value);
+        return headers;
+    }
+}
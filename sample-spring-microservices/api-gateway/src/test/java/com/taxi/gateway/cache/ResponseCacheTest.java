@@ -0,0 +1,51 @@
+package com.taxi.gateway.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheTest {
+
+    private final ResponseCache cache = new ResponseCache(new SimpleMeterRegistry(), 1_000, 500);
+
+    @Test
+    void shouldEvictLeastRecentlyUsedWhenFull() {
+        cache.put("a", response(300));
+        cache.put("b", response(300));
+        cache.get("a");
+        cache.put("c", response(300));
+
+        assertThat(cache.get("a")).isNotNull();
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isNotNull();
+        assertThat(cache.totalBytes()).isLessThanOrEqualTo(1_000);
+    }
+
+    @Test
+    void shouldRejectOversizedEntriesAndTrackReplacedOnes() {
+        assertThat(cache.put("big", response(600))).isFalse();
+        assertThat(cache.get("big")).isNull();
+
+        cache.put("a", response(100));
+        cache.put("a", response(200));
+        cache.remove("missing");
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.totalBytes()).isEqualTo(response(200).weight());
+    }
+
+    @Test
+    void shouldExpireByLifetime() {
+        CachedResponse response = response(10);
+
+        assertThat(response.isFresh(response.expiresAtNanos() - 1)).isTrue();
+        assertThat(response.isFresh(response.expiresAtNanos())).isFalse();
+    }
+
+    private static CachedResponse response(int bodyBytes) {
+        return new CachedResponse(200, HttpHeaders.readOnlyHttpHeaders(new HttpHeaders()),
+                new byte[bodyBytes], "\"etag\"", 1_000_000L);
+    }
+}
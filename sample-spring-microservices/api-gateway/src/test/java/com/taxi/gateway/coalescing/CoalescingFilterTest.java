@@ -0,0 +1,96 @@
+package com.taxi.gateway.coalescing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+class CoalescingFilterTest {
+    private static final String SUBJECT = "test.subject";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CoalescingFilter filter = new CoalescingFilter(1_024, meterRegistry);
+    private final AtomicInteger backendCalls = new AtomicInteger();
+
+    @Test
+    void shouldShareOneBackendCallAcrossSubjectsWithSameAuthorities() {
+        List<MockServerWebExchange> exchanges = List.of(
+                exchange("authorities", "rider-1"), exchange("authorities", "rider-2"), exchange("authorities", "rider-3"));
+
+        run(exchanges, backend(new HttpHeaders()));
+
+        assertThat(backendCalls).hasValue(1);
+        for (MockServerWebExchange exchange : exchanges) {
+            assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("{\"id\":42}");
+        }
+        assertThat(meterRegistry.get("gateway.coalescing.deduplicated").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldKeepSubjectsApartInSubjectScope() {
+        run(List.of(exchange("subject", "rider-1"), exchange("subject", "rider-1"), exchange("subject", "rider-2")),
+                backend(new HttpHeaders()));
+
+        assertThat(backendCalls).hasValue(2);
+    }
+
+    @Test
+    void shouldLetWaitersCallBackendWhenResponseSetsCookie() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.SET_COOKIE, "session=1");
+
+        run(List.of(exchange("authorities", "rider-1"), exchange("authorities", "rider-2")), backend(headers));
+
+        assertThat(backendCalls).hasValue(2);
+        assertThat(meterRegistry.get("gateway.coalescing.fallbacks").counter().count()).isEqualTo(1);
+    }
+
+    private void run(List<MockServerWebExchange> exchanges, GatewayFilterChain chain) {
+        Mono.when(exchanges.stream()
+                        .map(exchange -> filter.filter(exchange.mutate().principal(Mono.just(
+                                new TestingAuthenticationToken(exchange.getAttribute(SUBJECT), null, "ROLE_RIDER"))).build(), chain))
+                        .toList())
+                .block(Duration.ofSeconds(5));
+    }
+
+    private GatewayFilterChain backend(HttpHeaders headers) {
+        return exchange -> Mono.delay(Duration.ofMillis(100)).then(Mono.defer(() -> {
+            backendCalls.incrementAndGet();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            response.getHeaders().addAll(headers);
+            byte[] body = "{\"id\":42}".getBytes(StandardCharsets.UTF_8);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        }));
+    }
+
+    private static MockServerWebExchange exchange(String scope, String subject) {
+        Route route = Route.async()
+                .id("driver-service")
+                .uri(URI.create("http://localhost:8082"))
+                .predicate(exchange -> true)
+                .metadata(CoalescingScope.METADATA, scope)
+                .build();
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/drivers/42"));
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, route);
+        exchange.getAttributes().put(SUBJECT, subject);
+        return exchange;
+    }
+}
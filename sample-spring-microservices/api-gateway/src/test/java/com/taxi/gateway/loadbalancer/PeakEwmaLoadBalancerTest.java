@@ -0,0 +1,96 @@
+package com.taxi.gateway.loadbalancer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class PeakEwmaLoadBalancerTest {
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LoadBalancerStats stats = new LoadBalancerStats(10_000, 3, 1_000, 10_000, 10_000, 0.1, meterRegistry);
+    @SuppressWarnings("unchecked")
+    private final PeakEwmaLoadBalancer loadBalancer =
+            new PeakEwmaLoadBalancer(mock(ObjectProvider.class), "trip-service", stats);
+
+    private final ServiceInstance first = instance(8083);
+    private final ServiceInstance second = instance(8093);
+    private final List<ServiceInstance> instances = List.of(first, second);
+
+    @Test
+    void shouldPreferFasterAndLessLoadedInstance() {
+        long now = 20 * SECOND;
+        respond(first, 40 * MS, now);
+        respond(second, 5 * MS, now);
+        assertThat(loadBalancer.select(instances, now)).isSameAs(second);
+
+        // Eight requests queued on the fast instance make it costlier than the slow one
+        for (int i = 0; i < 8; i++) {
+            stats.start(second, now);
+        }
+        assertThat(loadBalancer.select(instances, now)).isSameAs(first);
+    }
+
+    @Test
+    void shouldEjectAfterConsecutiveFailuresAndReadmitLater() {
+        long now = 20 * SECOND;
+        respond(first, 5 * MS, now);
+        respond(second, 50 * MS, now);
+        for (int i = 0; i < 3; i++) {
+            stats.start(first, now);
+            stats.complete(first, MS, true, now);
+        }
+
+        assertThat(loadBalancer.select(instances, now)).isSameAs(second);
+        assertThat(meterRegistry.get("gateway.loadbalancer.ejections").tag("instance", "localhost:8083")
+                .counter().count()).isEqualTo(1);
+
+        // Back after the ejection time, probed first because it has no response time yet
+        assertThat(loadBalancer.select(instances, now + SECOND)).isSameAs(first);
+    }
+
+    @Test
+    void shouldFallBackToAllInstancesWhenEveryInstanceIsEjected() {
+        long now = 20 * SECOND;
+        for (ServiceInstance instance : instances) {
+            for (int i = 0; i < 3; i++) {
+                stats.start(instance, now);
+                stats.complete(instance, MS, true, now);
+            }
+        }
+
+        assertThat(loadBalancer.select(instances, now)).isIn(first, second);
+    }
+
+    @Test
+    void shouldRampUpNewInstanceDuringSlowStart() {
+        long now = 0;
+        respond(first, 10 * MS, now);
+        now = 20 * SECOND;
+        respond(first, 10 * MS, now);
+
+        // Equally fast, but first seen just now: its cost is scaled up until slow start is over
+        ServiceInstance added = instance(8103);
+        respond(added, 5 * MS, now);
+        assertThat(loadBalancer.select(List.of(first, added), now + SECOND)).isSameAs(first);
+        assertThat(loadBalancer.select(List.of(first, added), now + 10 * SECOND)).isSameAs(added);
+    }
+
+    private void respond(ServiceInstance instance, long latencyNanos, long now) {
+        stats.start(instance, now);
+        stats.complete(instance, latencyNanos, false, now);
+    }
+
+    private static ServiceInstance instance(int port) {
+        return new DefaultServiceInstance("trip-service-" + port, "trip-service", "localhost", port, false);
+    }
+}
@@ -0,0 +1,66 @@
+package com.taxi.gateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final RateLimiter rateLimiter = new RateLimiter(1_000, 10_000);
+    private final RateLimit limit = RateLimit.of(2, 4);
+
+    @Test
+    void shouldAllowBurstThenRefillAtRate() {
+        long now = 0;
+        for (int i = 0; i < 4; i++) {
+            assertThat(rateLimiter.tryAcquire("route", "driver-1", limit, now)).isZero();
+        }
+
+        long wait = rateLimiter.tryAcquire("route", "driver-1", limit, now);
+        assertThat(wait).isEqualTo(SECOND / 2);
+        assertThat(rateLimiter.tryAcquire("route", "driver-1", limit, now + wait)).isZero();
+        assertThat(rateLimiter.tryAcquire("route", "driver-1", limit, now + wait)).isPositive();
+    }
+
+    @Test
+    void shouldKeepSubjectsAndRoutesApart() {
+        for (int i = 0; i < 4; i++) {
+            rateLimiter.tryAcquire("route", "driver-1", limit, 0);
+        }
+
+        assertThat(rateLimiter.tryAcquire("route", "driver-1", limit, 0)).isPositive();
+        assertThat(rateLimiter.tryAcquire("route", "driver-2", limit, 0)).isZero();
+        assertThat(rateLimiter.tryAcquire("other-route", "driver-1", limit, 0)).isZero();
+    }
+
+    @Test
+    void shouldStayBoundedAndForgetFullBuckets() {
+        for (int i = 0; i < 5_000; i++) {
+            rateLimiter.tryAcquire("route", "driver-" + i, limit, 0);
+        }
+        assertThat(rateLimiter.size()).isLessThanOrEqualTo(1_000);
+
+        // Every bucket is full again two seconds later and is dropped by the next sweep
+        rateLimiter.tryAcquire("route", "new-driver", limit, 2 * SECOND + 10_000 * 1_000_000L);
+        assertThat(rateLimiter.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldLeaveHeadroomWhenTrimmingBuckets() {
+        for (int i = 0; i < 1_000; i++) {
+            rateLimiter.tryAcquire("route", "driver-" + i, limit, 0);
+        }
+        assertThat(rateLimiter.size()).isEqualTo(1_000);
+
+        // The overflow sweep trims to 90% of the bound, so the next 99 subjects need no sweep
+        rateLimiter.tryAcquire("route", "driver-1000", limit, 0);
+        assertThat(rateLimiter.size()).isEqualTo(901);
+        for (int i = 1_001; i < 1_100; i++) {
+            rateLimiter.tryAcquire("route", "driver-" + i, limit, 0);
+        }
+        assertThat(rateLimiter.size()).isEqualTo(1_000);
+    }
+}
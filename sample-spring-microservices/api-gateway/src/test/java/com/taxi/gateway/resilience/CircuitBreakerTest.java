@@ -0,0 +1,69 @@
+package com.taxi.gateway.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final CircuitBreaker breaker = new CircuitBreaker(new CircuitBreakerPolicy(50, 4, SECOND));
+
+    @Test
+    void shouldOpenOnceWindowReachesFailureRate() {
+        record(false, 0);
+        record(true, 0);
+        record(true, 0);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        record(false, 0);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.acquire(SECOND / 2)).isNull();
+        assertThat(breaker.retryAfterNanos(SECOND / 2)).isEqualTo(SECOND / 2);
+    }
+
+    @Test
+    void shouldSlideWindowOverOldOutcomes() {
+        record(true, 0);
+        for (int i = 0; i < 10; i++) {
+            record(false, 0);
+        }
+        record(true, 0);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void shouldLetOneProbeThroughAfterOpenTime() {
+        for (int i = 0; i < 4; i++) {
+            record(true, 0);
+        }
+
+        CircuitBreaker.Permit probe = breaker.acquire(SECOND);
+        assertThat(probe).isEqualTo(CircuitBreaker.Permit.PROBE);
+        assertThat(breaker.acquire(SECOND)).isNull();
+
+        breaker.record(probe, true, SECOND);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.acquire(SECOND + SECOND / 2)).isNull();
+
+        probe = breaker.acquire(2 * SECOND);
+        breaker.record(probe, false, 2 * SECOND);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.acquire(2 * SECOND)).isEqualTo(CircuitBreaker.Permit.CALL);
+    }
+
+    @Test
+    void shouldIgnoreCancelledCalls() {
+        for (int i = 0; i < 8; i++) {
+            breaker.record(breaker.acquire(0), null, 0);
+        }
+        record(true, 0);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private void record(boolean failed, long now) {
+        breaker.record(breaker.acquire(now), failed, now);
+    }
+}
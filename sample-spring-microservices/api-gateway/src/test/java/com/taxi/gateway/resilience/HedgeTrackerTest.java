@@ -0,0 +1,53 @@
+package com.taxi.gateway.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HedgeTrackerTest {
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HedgeTracker tracker = new HedgeTracker("trip-service", 0, meterRegistry);
+    private final HedgePolicy policy = new HedgePolicy(90, MS, 10);
+
+    @Test
+    void shouldNotHedgeUntilEnoughResponsesWereSeen() {
+        for (int i = 0; i < HedgeTracker.MIN_SAMPLES - 1; i++) {
+            tracker.recordLatency(10 * MS);
+        }
+        assertThat(tracker.onRequest(policy, SECOND)).isNegative();
+
+        tracker.recordLatency(10 * MS);
+        assertThat(tracker.onRequest(policy, 2 * SECOND)).isCloseTo(10 * MS, within(MS / 10));
+    }
+
+    @Test
+    void shouldHedgeAfterConfiguredPercentile() {
+        for (int i = 1; i <= 1_000; i++) {
+            tracker.recordLatency(i * MS / 10);
+        }
+
+        // 90% of the responses took at most 90 ms
+        assertThat(tracker.onRequest(policy, SECOND)).isCloseTo(90 * MS, within(MS));
+    }
+
+    @Test
+    void shouldCapHedgesToBudget() {
+        // 10% budget: ten requests earn one hedge
+        for (int i = 0; i < 9; i++) {
+            tracker.onRequest(policy, 0);
+        }
+        assertThat(tracker.tryHedge()).isFalse();
+
+        tracker.onRequest(policy, 0);
+        assertThat(tracker.tryHedge()).isTrue();
+        assertThat(tracker.tryHedge()).isFalse();
+        assertThat(meterRegistry.get("gateway.hedge.fired").counter().count()).isEqualTo(1);
+    }
+}
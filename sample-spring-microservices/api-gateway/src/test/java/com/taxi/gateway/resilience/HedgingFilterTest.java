@@ -0,0 +1,75 @@
+package com.taxi.gateway.resilience;
+
+import com.taxi.gateway.loadbalancer.LoadBalancerStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.isAlreadyRouted;
+
+class HedgingFilterTest {
+
+    @SuppressWarnings("unchecked")
+    private final HedgingFilter filter = new HedgingFilter(HttpClient.create(), mock(ObjectProvider.class),
+            new HttpClientProperties(), mock(LoadBalancerClientFactory.class),
+            new LoadBalancerStats(10_000, 5, 30_000, 300_000, 30_000, 0.1, new SimpleMeterRegistry()),
+            new SimpleMeterRegistry());
+    private final AtomicInteger routedByChain = new AtomicInteger();
+    private final GatewayFilterChain chain = exchange -> Mono.fromRunnable(routedByChain::incrementAndGet);
+
+    @Test
+    void shouldLeaveRoutingToNettyUntilRouteHasHedgeDelay() {
+        MockServerWebExchange exchange = exchange(MediaType.APPLICATION_JSON);
+
+        filter.filter(exchange, chain).block();
+
+        assertThat(routedByChain).hasValue(1);
+        assertThat(isAlreadyRouted(exchange)).isFalse();
+    }
+
+    @Test
+    void shouldNotHedgeStreamingRequests() {
+        MockServerWebExchange exchange = exchange(MediaType.APPLICATION_NDJSON);
+
+        filter.filter(exchange, chain).block();
+
+        assertThat(routedByChain).hasValue(1);
+        assertThat(isAlreadyRouted(exchange)).isFalse();
+    }
+
+    private static MockServerWebExchange exchange(MediaType accept) {
+        Route route = Route.async()
+                .id("trip-service")
+                .uri(URI.create("lb://trip-service"))
+                .predicate(exchange -> true)
+                .metadata(HedgePolicy.PERCENTILE_METADATA, 95)
+                .build();
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/api/trips/42").header(HttpHeaders.ACCEPT, accept.toString()));
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, route);
+        exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, URI.create("http://localhost:8083/api/trips/42"));
+        exchange.getAttributes().put(GATEWAY_LOADBALANCER_RESPONSE_ATTR, new DefaultResponse(
+                new DefaultServiceInstance("trip-1", "trip-service", "localhost", 8083, false)));
+        return exchange;
+    }
+}
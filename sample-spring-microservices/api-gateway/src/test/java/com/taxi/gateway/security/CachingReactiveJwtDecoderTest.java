@@ -0,0 +1,72 @@
+package com.taxi.gateway.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingReactiveJwtDecoderTest {
+
+    private final AtomicInteger verifications = new AtomicInteger();
+    private Instant expiresAt = Instant.now().plusSeconds(300);
+    private final ReactiveJwtDecoder delegate = token -> {
+        verifications.incrementAndGet();
+        return Mono.just(Jwt.withTokenValue(token)
+                .header("alg", "RS256")
+                .subject("driver-1")
+                .issuedAt(expiresAt.minusSeconds(600))
+                .expiresAt(expiresAt)
+                .build());
+    };
+    private final CachingReactiveJwtDecoder decoder =
+            new CachingReactiveJwtDecoder(delegate, new SimpleMeterRegistry(), 2);
+
+    @Test
+    void shouldVerifyEachTokenOnlyOnce() {
+        Jwt first = decoder.decode("token-a").block();
+        Jwt second = decoder.decode("token-a").block();
+        decoder.decode("token-b").block();
+
+        assertThat(second).isSameAs(first);
+        assertThat(verifications).hasValue(2);
+    }
+
+    @Test
+    void shouldVerifyAgainOnceExpired() {
+        expiresAt = Instant.now().minusSeconds(1);
+        decoder.decode("token-a").block();
+        decoder.decode("token-a").block();
+
+        assertThat(verifications).hasValue(2);
+        assertThat(decoder.size()).isZero();
+    }
+
+    @Test
+    void shouldNotGrowBeyondMaxEntries() {
+        decoder.decode("token-a").block();
+        decoder.decode("token-b").block();
+        decoder.decode("token-c").block();
+
+        assertThat(decoder.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldCacheNewTokensWhenFull() {
+        decoder.decode("token-a").block();
+        decoder.decode("token-b").block();
+        assertThat(decoder.size()).isEqualTo(2);
+
+        Jwt first = decoder.decode("token-c").block();
+        Jwt second = decoder.decode("token-c").block();
+
+        assertThat(second).isSameAs(first);
+        assertThat(verifications).hasValue(3);
+        assertThat(decoder.size()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,36 @@
+#!/bin/sh
+# Compares a JMH JSON result with a baseline and fails when a benchmark got slower or allocates more.
+#
+#   benchmarks/compare-baseline.sh <baseline.json> [current.json] [threshold-percent]
+#
+# current.json defaults to benchmarks/target/jmh-result.json, written by "mvn -pl benchmarks exec:exec",
+# and the threshold to 10 percent.
+set -eu
+
+if [ $# -lt 1 ] || [ $# -gt 3 ]; then
+    echo "Usage: $0 <baseline.json> [current.json] [threshold-percent]" >&2
+    exit 2
+fi
+
+module=$(cd "$(dirname "$0")" && pwd)
+
+absolute() {
+    case "$1" in
+        /*) echo "$1" ;;
+        *) echo "$PWD/$1" ;;
+    esac
+}
+
+baseline=$(absolute "$1")
+current=$(absolute "${2:-$module/target/jmh-result.json}")
+threshold=${3:-10}
+
+for file in "$baseline" "$current"; do
+    if [ ! -f "$file" ]; then
+        echo "No such result file: $file" >&2
+        exit 2
+    fi
+done
+
+mvn -B -q -f "$module/../pom.xml" -pl benchmarks exec:exec \
+    "-Dexec.args=-cp %classpath com.taxi.benchmark.BaselineComparison $baseline $current $threshold"
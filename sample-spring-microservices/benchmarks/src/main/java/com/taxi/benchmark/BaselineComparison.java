@@ -0,0 +1,140 @@
+package com.taxi.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Compares two JMH JSON results, typically the one committed as a baseline and a fresh run of
+ * {@link TaxiBenchmarks}. A benchmark regressed when its score got worse by more than the threshold
+ * and by more than the two error margins together, or when it allocates more than the threshold
+ * (plus a few bytes of profiler noise) per operation. Exits with status 1 if anything regressed.
+ *
+ * <p>Usage: {@code BaselineComparison <baseline.json> <current.json> [threshold-percent]}, or
+ * {@code benchmarks/compare-baseline.sh}.
+ */
+public final class BaselineComparison {
+    static final double DEFAULT_THRESHOLD_PERCENT = 10;
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+    private static final double ALLOCATION_NOISE_BYTES = 8;
+
+    private BaselineComparison() {
+    }
+
+    record Result(String mode, double score, double error, String unit, double bytesPerOp) {
+
+        boolean higherIsBetter() {
+            return "thrpt".equals(mode);
+        }
+    }
+
+    record Comparison(String benchmark, Result baseline, Result current, boolean slower, boolean allocatesMore) {
+
+        boolean regressed() {
+            return slower || allocatesMore;
+        }
+    }
+
+    /**
+     * Results by benchmark name and parameters, in file order.
+     */
+    static Map<String, Result> read(Path file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file.toFile())) {
+            JsonNode primary = run.path("primaryMetric");
+            JsonNode allocation = run.path("secondaryMetrics").path(ALLOCATION_METRIC).path("score");
+            results.put(key(run), new Result(
+                    run.path("mode").asText(),
+                    primary.path("score").asDouble(),
+                    errorOf(primary),
+                    primary.path("scoreUnit").asText(),
+                    allocation.isNumber() ? allocation.asDouble() : Double.NaN));
+        }
+        return results;
+    }
+
+    private static String key(JsonNode run) {
+        String benchmark = run.path("benchmark").asText();
+        JsonNode params = run.path("params");
+        if (params.isEmpty()) {
+            return benchmark;
+        }
+        StringJoiner joiner = new StringJoiner(", ", benchmark + " [", "]");
+        for (Iterator<Map.Entry<String, JsonNode>> it = params.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> param = it.next();
+            joiner.add(param.getKey() + "=" + param.getValue().asText());
+        }
+        return joiner.toString();
+    }
+
+    private static double errorOf(JsonNode metric) {
+        // NaN when the run had too few iterations to compute one
+        JsonNode error = metric.path("scoreError");
+        return error.isNumber() ? error.asDouble() : 0;
+    }
+
+    /**
+     * Compares the benchmarks present in both results.
+     */
+    static List<Comparison> compare(Map<String, Result> baseline, Map<String, Result> current, double thresholdPercent) {
+        double threshold = thresholdPercent / 100;
+        List<Comparison> comparisons = new ArrayList<>();
+        baseline.forEach((benchmark, before) -> {
+            Result after = current.get(benchmark);
+            if (after == null) {
+                return;
+            }
+            double worsening = before.higherIsBetter() ? before.score() - after.score() : after.score() - before.score();
+            boolean slower = worsening > Math.abs(before.score()) * threshold
+                    && worsening > before.error() + after.error();
+            boolean allocatesMore = !Double.isNaN(before.bytesPerOp()) && !Double.isNaN(after.bytesPerOp())
+                    && after.bytesPerOp() > before.bytesPerOp() * (1 + threshold) + ALLOCATION_NOISE_BYTES;
+            comparisons.add(new Comparison(benchmark, before, after, slower, allocatesMore));
+        });
+        return comparisons;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: BaselineComparison <baseline.json> <current.json> [threshold-percent]");
+            System.exit(2);
+        }
+        Map<String, Result> baseline = read(Path.of(args[0]));
+        Map<String, Result> current = read(Path.of(args[1]));
+        double thresholdPercent = args.length == 3 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+
+        List<Comparison> comparisons = compare(baseline, current, thresholdPercent);
+        System.out.printf("%-90s %14s %14s %8s %10s %10s%n", "Benchmark", "Baseline", "Current", "Change", "B/op", "B/op now");
+        for (Comparison comparison : comparisons) {
+            Result before = comparison.baseline();
+            Result after = comparison.current();
+            System.out.printf("%-90s %14.3f %14.3f %+7.1f%% %10.1f %10.1f  %s%s%n",
+                    comparison.benchmark(), before.score(), after.score(),
+                    (after.score() - before.score()) * 100 / before.score(),
+                    before.bytesPerOp(), after.bytesPerOp(), after.unit(),
+                    comparison.regressed()
+                            ? (comparison.slower() ? "  SLOWER" : "") + (comparison.allocatesMore() ? "  ALLOCATES MORE" : "")
+                            : "");
+        }
+        baseline.keySet().stream().filter(benchmark -> !current.containsKey(benchmark))
+                .forEach(benchmark -> System.out.println("Not in current run: " + benchmark));
+        current.keySet().stream().filter(benchmark -> !baseline.containsKey(benchmark))
+                .forEach(benchmark -> System.out.println("Not in baseline: " + benchmark));
+
+        long regressions = comparisons.stream().filter(Comparison::regressed).count();
+        if (regressions > 0) {
+            System.out.printf("%d of %d benchmarks regressed by more than %.1f%%%n",
+                    regressions, comparisons.size(), thresholdPercent);
+            System.exit(1);
+        }
+        System.out.printf("No regressions beyond %.1f%% in %d benchmarks%n", thresholdPercent, comparisons.size());
+    }
+}
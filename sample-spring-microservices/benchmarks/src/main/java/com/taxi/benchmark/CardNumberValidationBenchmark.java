@@ -0,0 +1,29 @@
+package com.taxi.benchmark;
+
+import com.taxi.user.validation.CardNumberValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation of one card number as entered at payment method registration: grouped with spaces,
+ * plain digits, and one failing the Luhn check.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CardNumberValidationBenchmark {
+
+    @Param({"4111 1111 1111 1111", "5555555555554444", "4111-1111-1111-1112"})
+    public String cardNumber;
+
+    private final CardNumberValidator validator = new CardNumberValidator();
+
+    @Benchmark
+    public boolean validate() {
+        return validator.isValid(cardNumber, null);
+    }
+}
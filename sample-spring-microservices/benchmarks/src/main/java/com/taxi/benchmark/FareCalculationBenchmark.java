@@ -0,0 +1,57 @@
+package com.taxi.benchmark;
+
+import com.taxi.trip.service.FareCalculationService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One fare quote per operation, as trip requests compute it: distance between pickup and dropoff,
+ * then the fare for the hour of the request, in cents and through the {@code BigDecimal} API.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FareCalculationBenchmark {
+    private static final int QUOTES = 1_024;
+
+    private final FareCalculationService fareCalculationService = new FareCalculationService();
+    private final double[] coordinates = new double[QUOTES * 4];
+    private final LocalDateTime[] requestTimes = new LocalDateTime[QUOTES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        // Pickup and dropoff within a city, up to ~20 km apart, at any hour
+        Random random = new Random(42);
+        for (int i = 0; i < QUOTES; i++) {
+            coordinates[i * 4] = 40.70 + random.nextDouble() * 0.1;
+            coordinates[i * 4 + 1] = -74.02 + random.nextDouble() * 0.1;
+            coordinates[i * 4 + 2] = 40.60 + random.nextDouble() * 0.3;
+            coordinates[i * 4 + 3] = -74.10 + random.nextDouble() * 0.3;
+            requestTimes[i] = LocalDateTime.of(2024, 5, 1, random.nextInt(24), random.nextInt(60));
+        }
+    }
+
+    @Benchmark
+    public long quoteCents() {
+        int i = next++ & (QUOTES - 1);
+        double distance = fareCalculationService.distanceKm(
+                coordinates[i * 4], coordinates[i * 4 + 1], coordinates[i * 4 + 2], coordinates[i * 4 + 3]);
+        return fareCalculationService.calculateFareCents(distance, requestTimes[i].getHour());
+    }
+
+    @Benchmark
+    public BigDecimal quote() {
+        int i = next++ & (QUOTES - 1);
+        Double distance = fareCalculationService.calculateDistance(
+                coordinates[i * 4], coordinates[i * 4 + 1], coordinates[i * 4 + 2], coordinates[i * 4 + 3]);
+        return fareCalculationService.calculateFare(distance, requestTimes[i]);
+    }
+}
@@ -0,0 +1,100 @@
+package com.taxi.benchmark;
+
+import com.taxi.trip.service.FareCalculationService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one fare quote (distance plus fare) with the fixed-point engine against the former
+ * {@code BigDecimal} and haversine implementation. {@link TaxiBenchmarks} runs it with the GC
+ * profiler, so {@code gc.alloc.rate.norm} shows the bytes allocated per quote next to the ns per quote.
+ *
+ * <p>Run with {@code mvn -pl benchmarks exec:exec -Djmh.args=FareQuoteBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FareQuoteBenchmark {
+    private static final int QUOTES = 1_024;
+
+    private final FareCalculationService fareCalculationService = new FareCalculationService();
+    private final double[] coordinates = new double[QUOTES * 4];
+    private final LocalDateTime[] requestTimes = new LocalDateTime[QUOTES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        // Pin drags within a city: pickup and dropoff up to ~20 km apart
+        Random random = new Random(42);
+        for (int i = 0; i < QUOTES; i++) {
+            coordinates[i * 4] = 40.70 + random.nextDouble() * 0.1;
+            coordinates[i * 4 + 1] = -74.02 + random.nextDouble() * 0.1;
+            coordinates[i * 4 + 2] = 40.60 + random.nextDouble() * 0.3;
+            coordinates[i * 4 + 3] = -74.10 + random.nextDouble() * 0.3;
+            requestTimes[i] = LocalDateTime.of(2024, 5, 1, random.nextInt(24), random.nextInt(60));
+        }
+    }
+
+    @Benchmark
+    public long fixedPointQuote() {
+        int i = next++ & (QUOTES - 1);
+        double distance = fareCalculationService.distanceKm(
+                coordinates[i * 4], coordinates[i * 4 + 1], coordinates[i * 4 + 2], coordinates[i * 4 + 3]);
+        return fareCalculationService.calculateFareCents(distance, requestTimes[i].getHour());
+    }
+
+    @Benchmark
+    public BigDecimal fixedPointQuoteAsDecimal() {
+        int i = next++ & (QUOTES - 1);
+        Double distance = fareCalculationService.calculateDistance(
+                coordinates[i * 4], coordinates[i * 4 + 1], coordinates[i * 4 + 2], coordinates[i * 4 + 3]);
+        return fareCalculationService.calculateFare(distance, requestTimes[i]);
+    }
+
+    @Benchmark
+    public BigDecimal legacyQuote() {
+        int i = next++ & (QUOTES - 1);
+        Double distance = LegacyFare.calculateDistance(
+                coordinates[i * 4], coordinates[i * 4 + 1], coordinates[i * 4 + 2], coordinates[i * 4 + 3]);
+        return LegacyFare.calculateFare(distance, requestTimes[i]);
+    }
+
+    /**
+     * The fare calculation as it was before the fixed-point engine, kept as the baseline.
+     */
+    static final class LegacyFare {
+        private static final BigDecimal BASE_FARE = new BigDecimal("5.00");
+        private static final BigDecimal COST_PER_KM = new BigDecimal("2.50");
+        private static final BigDecimal PEAK_HOUR_MULTIPLIER = new BigDecimal("1.5");
+        private static final BigDecimal NIGHT_HOUR_MULTIPLIER = new BigDecimal("1.3");
+
+        static BigDecimal calculateFare(Double distance, LocalDateTime requestTime) {
+            BigDecimal fare = BASE_FARE.add(COST_PER_KM.multiply(BigDecimal.valueOf(distance)));
+            int hour = requestTime.getHour();
+            if ((hour >= 7 && hour < 9) || (hour >= 17 && hour < 19)) {
+                fare = fare.multiply(PEAK_HOUR_MULTIPLIER);
+            } else if (hour >= 22 || hour < 6) {
+                fare = fare.multiply(NIGHT_HOUR_MULTIPLIER);
+            }
+            return fare.setScale(2, RoundingMode.HALF_UP);
+        }
+
+        static Double calculateDistance(Double lat1, Double lon1, Double lat2, Double lon2) {
+            double latDistance = Math.toRadians(lat2 - lat1);
+            double lonDistance = Math.toRadians(lon2 - lon1);
+            double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                    + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                    * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+            double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+            return 6371 * c;
+        }
+    }
+}
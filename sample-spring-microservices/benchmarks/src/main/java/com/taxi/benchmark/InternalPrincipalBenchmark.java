@@ -0,0 +1,84 @@
+package com.taxi.benchmark;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.taxi.common.security.InternalPrincipal;
+import com.taxi.common.security.InternalPrincipalCodec;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authentication cost per request on a backend: verifying the bearer token as the servlet
+ * services do, against checking the gateway-minted {@link InternalPrincipalCodec#HEADER} header in
+ * trusted-hop mode. Minting the header is the extra work the gateway does per request.
+ *
+ * <p>Run with {@code mvn -pl benchmarks exec:exec -Djmh.args=InternalPrincipalBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InternalPrincipalBenchmark {
+    private static final String ISSUER = "http://localhost:8080/realms/taxi";
+
+    private NimbusJwtDecoder jwtDecoder;
+    private InternalPrincipalCodec codec;
+    private InternalPrincipal principal;
+    private String token;
+    private String header;
+
+    @Setup
+    public void setUp() throws JOSEException {
+        RSAKey key = new RSAKeyGenerator(2048).keyID("taxi").generate();
+        jwtDecoder = NimbusJwtDecoder.withPublicKey(key.toRSAPublicKey()).build();
+        jwtDecoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(ISSUER));
+        Date expiresAt = new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("taxi").build(),
+                new JWTClaimsSet.Builder()
+                        .issuer(ISSUER)
+                        .subject("rider@example.com")
+                        .claim("roles", List.of("USER"))
+                        .claim("user_id", 42L)
+                        .issueTime(new Date())
+                        .expirationTime(expiresAt)
+                        .build());
+        jwt.sign(new RSASSASigner(key));
+        token = jwt.serialize();
+
+        codec = new InternalPrincipalCodec("0123456789abcdef0123456789abcdef");
+        principal = new InternalPrincipal("rider@example.com", List.of("ROLE_USER"),
+                Map.of("user_id", 42L), expiresAt.toInstant());
+        header = codec.encode(principal);
+    }
+
+    @Benchmark
+    public Jwt backendVerifiesBearerToken() {
+        return jwtDecoder.decode(token);
+    }
+
+    @Benchmark
+    public InternalPrincipal backendChecksInternalHeader() {
+        return codec.decode(header, Instant.now());
+    }
+
+    @Benchmark
+    public String gatewayMintsInternalHeader() {
+        return codec.encode(principal);
+    }
+}
@@ -0,0 +1,74 @@
+package com.taxi.benchmark;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.taxi.gateway.security.CachingReactiveJwtDecoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Flux;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gateway CPU spent on the bearer token of one request: full parsing, RS256 verification and
+ * validation by the Nimbus decoder, against a lookup in {@link CachingReactiveJwtDecoder} for a
+ * token the client keeps reusing. Both use an in-memory JWK source, so no network is involved.
+ *
+ * <p>Run with {@code mvn -pl benchmarks exec:exec -Djmh.args=JwtDecodeBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtDecodeBenchmark {
+    private static final String ISSUER = "http://localhost:8080/realms/taxi";
+
+    private ReactiveJwtDecoder verifyingDecoder;
+    private ReactiveJwtDecoder cachingDecoder;
+    private String token;
+
+    @Setup
+    public void setUp() throws JOSEException {
+        RSAKey key = new RSAKeyGenerator(2048).keyID("taxi").generate();
+        NimbusReactiveJwtDecoder decoder = NimbusReactiveJwtDecoder
+                .withJwkSource(jwt -> Flux.just(key.toPublicJWK()))
+                .build();
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(ISSUER));
+        verifyingDecoder = decoder;
+        cachingDecoder = new CachingReactiveJwtDecoder(decoder, new SimpleMeterRegistry(), 100_000);
+
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(ISSUER)
+                .subject("driver-42")
+                .claim("roles", new String[]{"DRIVER"})
+                .issueTime(new Date())
+                .expirationTime(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("taxi").build(), claims);
+        jwt.sign(new RSASSASigner(key));
+        token = jwt.serialize();
+    }
+
+    @Benchmark
+    public Jwt verifyEveryRequest() {
+        return verifyingDecoder.decode(token).block();
+    }
+
+    @Benchmark
+    public Jwt cachedVerification() {
+        return cachingDecoder.decode(token).block();
+    }
+}
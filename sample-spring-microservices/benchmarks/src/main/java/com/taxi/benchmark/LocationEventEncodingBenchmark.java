@@ -0,0 +1,126 @@
+package com.taxi.benchmark;
+
+import com.taxi.common.config.KafkaTopics;
+import com.taxi.common.event.DriverLocationUpdateEvent;
+import com.taxi.common.serde.BinaryEventSerializer;
+import org.apache.kafka.common.compress.Compression;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.MemoryRecordsBuilder;
+import org.apache.kafka.common.record.MemoryRecords;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.Serializer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.IterationParams;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old driver location producer profile (unkeyed JSON with type headers, no compression)
+ * with the keyed binary profiles. Each invocation encodes one producer batch of location events
+ * exactly as the Kafka client lays it out on the wire, so the score is events/sec of producer-side
+ * encoding; the {@code bytesPerEvent} secondary metric is the resulting size on the wire.
+ *
+ * <p>Run with {@code mvn -pl benchmarks exec:exec -Djmh.args=LocationEventEncodingBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LocationEventEncodingBenchmark {
+    private static final int EVENTS_PER_BATCH = 500;
+    private static final int DRIVERS = 2_000;
+
+    @Param({"JSON_UNKEYED", "BINARY_KEYED_LZ4", "BINARY_KEYED_ZSTD"})
+    public Profile profile;
+
+    private DriverLocationUpdateEvent[] events;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        events = sampleEvents(EVENTS_PER_BATCH);
+        buffer = ByteBuffer.allocate(256 * 1024);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS_PER_BATCH)
+    public int encodeBatch(WireSize wireSize) {
+        int bytes = profile.encode(events, buffer);
+        wireSize.batches++;
+        wireSize.bytes += bytes;
+        return bytes;
+    }
+
+    /**
+     * Reports the encoded batch size per event alongside the score, in the JMH results.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class WireSize {
+        private long batches;
+        private long bytes;
+        private int iterations;
+
+        @Setup(Level.Iteration)
+        public void setUp(IterationParams params) {
+            iterations = params.getCount();
+            batches = 0;
+            bytes = 0;
+        }
+
+        public double bytesPerEvent() {
+            // JMH sums event counters over the iterations, so each one reports its share
+            return batches == 0 ? 0 : (double) bytes / (batches * EVENTS_PER_BATCH) / iterations;
+        }
+    }
+
+    public enum Profile {
+        JSON_UNKEYED(new JsonSerializer<>(), false, Compression.NONE),
+        BINARY_KEYED_LZ4(new BinaryEventSerializer(), true, Compression.lz4().build()),
+        BINARY_KEYED_ZSTD(new BinaryEventSerializer(), true, Compression.zstd().build());
+
+        private final Serializer<Object> serializer;
+        private final boolean keyed;
+        private final Compression compression;
+
+        Profile(Serializer<Object> serializer, boolean keyed, Compression compression) {
+            this.serializer = serializer;
+            this.keyed = keyed;
+            this.compression = compression;
+        }
+
+        int encode(DriverLocationUpdateEvent[] events, ByteBuffer buffer) {
+            buffer.clear();
+            MemoryRecordsBuilder builder = MemoryRecords.builder(buffer, compression, TimestampType.CREATE_TIME, 0L);
+            long timestamp = System.currentTimeMillis();
+            for (DriverLocationUpdateEvent event : events) {
+                RecordHeaders headers = new RecordHeaders();
+                byte[] value = serializer.serialize(KafkaTopics.DRIVER_LOCATION_UPDATE, headers, event);
+                byte[] key = keyed ? String.valueOf(event.getDriverId()).getBytes(StandardCharsets.UTF_8) : null;
+                builder.append(timestamp, key, value, headers.toArray());
+            }
+            return builder.build().sizeInBytes();
+        }
+    }
+
+    private static DriverLocationUpdateEvent[] sampleEvents(int count) {
+        Random random = new Random(42);
+        DriverLocationUpdateEvent[] events = new DriverLocationUpdateEvent[count];
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < count; i++) {
+            events[i] = new DriverLocationUpdateEvent(
+                    (long) random.nextInt(DRIVERS) + 1,
+                    40.60 + random.nextDouble() * 0.25,
+                    -74.05 + random.nextDouble() * 0.30,
+                    now.plusNanos(i * 1_000_000L));
+        }
+        return events;
+    }
+}
@@ -0,0 +1,95 @@
+package com.taxi.benchmark;
+
+import com.icegreen.greenmail.store.FolderException;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.taxi.notification.mail.Email;
+import com.taxi.notification.mail.MailDeliverySettings;
+import com.taxi.notification.mail.MailDispatcher;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Emails/sec delivered to an in-process GreenMail SMTP server. {@code SESSION_PER_MESSAGE} is the
+ * former {@code JavaMailSender.send} per email, which opens and closes an SMTP session each time;
+ * {@code POOLED} hands the emails to {@link MailDispatcher}, which sends them in batches over reused
+ * connections. A remote server with TLS and AUTH makes each session far more expensive than here.
+ *
+ * <p>Run with {@code mvn -pl benchmarks exec:exec -Djmh.args=MailDeliveryBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 4, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MailDeliveryBenchmark {
+    private static final int EMAILS_PER_INVOCATION = 100;
+
+    public enum Delivery { SESSION_PER_MESSAGE, POOLED }
+
+    @Param
+    public Delivery delivery;
+
+    private GreenMail greenMail;
+    private JavaMailSenderImpl mailSender;
+    private MailDispatcher dispatcher;
+    private Email[] emails;
+    private SimpleMailMessage[] messages;
+
+    @Setup
+    public void setUp() {
+        greenMail = new GreenMail(ServerSetupTest.SMTP.dynamicPort());
+        greenMail.start();
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(greenMail.getSmtp().getPort());
+        // EHLO name given, so a session does not measure a local host name lookup
+        mailSender.getJavaMailProperties().setProperty("mail.smtp.localhost", "localhost");
+        dispatcher = new MailDispatcher(mailSender, new MailDeliverySettings(10_000, Duration.ofSeconds(30), 2, 50,
+                Duration.ofSeconds(30), 5, Duration.ofMillis(500), Duration.ofSeconds(30), Duration.ofSeconds(10)));
+        dispatcher.start();
+
+        emails = new Email[EMAILS_PER_INVOCATION];
+        messages = new SimpleMailMessage[EMAILS_PER_INVOCATION];
+        for (int i = 0; i < EMAILS_PER_INVOCATION; i++) {
+            emails[i] = new Email("noreply@taxi.example.com", "rider-" + (i % 10) + "@example.com",
+                    "Trip Summary - Trip #" + i, "Thank you for using our taxi service! Distance: 7.50 km, Cost: $25.50",
+                    null);
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(emails[i].from());
+            message.setTo(emails[i].to());
+            message.setSubject(emails[i].subject());
+            message.setText(emails[i].text());
+            messages[i] = message;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        dispatcher.stop();
+        greenMail.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EMAILS_PER_INVOCATION)
+    public void deliver() throws FolderException {
+        greenMail.purgeEmailFromAllMailboxes();
+        if (delivery == Delivery.SESSION_PER_MESSAGE) {
+            for (SimpleMailMessage message : messages) {
+                mailSender.send(message);
+            }
+        } else {
+            for (Email email : emails) {
+                dispatcher.submit(email);
+            }
+        }
+        if (!greenMail.waitForIncomingEmail(30_000, EMAILS_PER_INVOCATION)) {
+            throw new IllegalStateException("Emails were not delivered in time");
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.taxi.benchmark;
+
+import com.taxi.common.event.TripCompletedEvent;
+import com.taxi.common.outbox.OutboxWriter;
+import com.taxi.payment.gateway.PaymentGateway;
+import com.taxi.payment.idempotency.PaymentIdempotencyCache;
+import com.taxi.payment.repository.PaymentBatchRepository;
+import com.taxi.payment.repository.PaymentRepository;
+import com.taxi.payment.service.KeyOrderedExecutor;
+import com.taxi.payment.service.PaymentService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Load test of the payment listener: each invocation hands one polled batch of trip completed
+ * events to {@link PaymentService#processTripCompletedEvents} against a gateway with a fixed
+ * latency, so the score is payments/sec for the given {@code payment.processing.max-in-flight}.
+ * With {@code maxInFlight = 1} it matches the former one-at-a-time listener.
+ *
+ * <p>Run with {@code mvn -pl benchmarks exec:exec -Djmh.args=PaymentThroughputBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentThroughputBenchmark {
+    private static final int EVENTS_PER_BATCH = 256;
+    private static final long GATEWAY_LATENCY_MS = 10;
+
+    @Param({"1", "16", "64", "256"})
+    public int maxInFlight;
+
+    private final AtomicLong nextTripId = new AtomicLong();
+    private KeyOrderedExecutor executor;
+    private PaymentService paymentService;
+
+    @Setup
+    public void setUp() {
+        PaymentRepository repository = mock(PaymentRepository.class, withSettings().stubOnly());
+        when(repository.findSettledTripIds(anyCollection())).thenReturn(Set.of());
+        PaymentBatchRepository batchRepository = mock(PaymentBatchRepository.class, withSettings().stubOnly());
+        when(batchRepository.claimPending(anyList(), any())).thenAnswer(invocation -> invocation.getArgument(0));
+        OutboxWriter outboxWriter = mock(OutboxWriter.class, withSettings().stubOnly());
+        TransactionTemplate transactionTemplate = new TransactionTemplate(
+                mock(PlatformTransactionManager.class, withSettings().stubOnly()));
+
+        executor = new KeyOrderedExecutor(maxInFlight);
+        paymentService = new PaymentService(repository, batchRepository, outboxWriter, transactionTemplate,
+                new PaymentGateway(GATEWAY_LATENCY_MS), executor, new PaymentIdempotencyCache(
+                        mock(JdbcTemplate.class), new SimpleMeterRegistry(), 100_000, 1_000_000, 0.01));
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS_PER_BATCH)
+    public void processBatch() {
+        List<TripCompletedEvent> events = new ArrayList<>(EVENTS_PER_BATCH);
+        for (int i = 0; i < EVENTS_PER_BATCH; i++) {
+            long tripId = nextTripId.incrementAndGet();
+            events.add(new TripCompletedEvent(tripId, tripId % 1_000, tripId % 100, "user@example.com",
+                    "A", "B", new BigDecimal("25.50"), 7.5, LocalDateTime.now(), LocalDateTime.now()));
+        }
+        paymentService.processTripCompletedEvents(events);
+    }
+}
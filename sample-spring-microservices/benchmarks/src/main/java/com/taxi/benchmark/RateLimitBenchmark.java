@@ -0,0 +1,97 @@
+package com.taxi.benchmark;
+
+import com.taxi.gateway.ratelimit.RateLimit;
+import com.taxi.gateway.ratelimit.RateLimitFilter;
+import com.taxi.gateway.ratelimit.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Overhead of the gateway rate limiter per request: the bucket lookup and CAS alone, and the whole
+ * {@link RateLimitFilter} with a pass-through chain, against the same exchange without a limited
+ * route. Requests pick among 50,000 subjects and every subject stays under its limit, so every
+ * request takes the allow path. Add {@code -t 8} to the arguments to measure under contention on a
+ * machine with enough cores.
+ *
+ * <p>Run with {@code mvn -pl benchmarks exec:exec -Djmh.args=RateLimitBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimitBenchmark {
+    private static final int SUBJECTS = 50_000;
+    private static final GatewayFilterChain PASS_THROUGH = exchange -> Mono.empty();
+
+    private final RateLimit limit = RateLimit.of(1_000_000, 1_000_000);
+    private final String[] subjects = new String[SUBJECTS];
+    private final ServerWebExchange[] limitedExchanges = new ServerWebExchange[SUBJECTS];
+    private final ServerWebExchange[] unlimitedExchanges = new ServerWebExchange[SUBJECTS];
+    private RateLimiter rateLimiter;
+    private RateLimitFilter filter;
+
+    @Setup
+    public void setUp() {
+        rateLimiter = new RateLimiter(100_000, 10_000);
+        filter = new RateLimitFilter(rateLimiter, new SimpleMeterRegistry());
+        Route limited = route("driver-location", Map.of(
+                RateLimit.RATE_METADATA, 1_000_000, RateLimit.BURST_METADATA, 1_000_000));
+        Route unlimited = route("driver-service", Map.of());
+        for (int i = 0; i < SUBJECTS; i++) {
+            subjects[i] = "driver-" + i;
+            limitedExchanges[i] = exchange(limited, subjects[i]);
+            unlimitedExchanges[i] = exchange(unlimited, subjects[i]);
+        }
+    }
+
+    @Benchmark
+    public long limiter() {
+        String subject = subjects[ThreadLocalRandom.current().nextInt(SUBJECTS)];
+        return rateLimiter.tryAcquire("driver-location", subject, limit, System.nanoTime());
+    }
+
+    @Benchmark
+    public void filterLimitedRoute() {
+        filter.filter(limitedExchanges[ThreadLocalRandom.current().nextInt(SUBJECTS)], PASS_THROUGH).block();
+    }
+
+    @Benchmark
+    public void filterUnlimitedRoute() {
+        filter.filter(unlimitedExchanges[ThreadLocalRandom.current().nextInt(SUBJECTS)], PASS_THROUGH).block();
+    }
+
+    private static Route route(String id, Map<String, Object> metadata) {
+        return Route.async()
+                .id(id)
+                .uri("http://localhost:8082")
+                .predicate(exchange -> true)
+                .metadata(metadata)
+                .build();
+    }
+
+    private static ServerWebExchange exchange(Route route, String subject) {
+        Principal principal = new TestingAuthenticationToken(subject, null);
+        ServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/api/drivers/1/location"))
+                .mutate()
+                .principal(Mono.just(principal))
+                .build();
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, route);
+        return exchange;
+    }
+}
@@ -0,0 +1,87 @@
+package com.taxi.benchmark;
+
+import com.taxi.driver.dto.DriverResponse;
+import com.taxi.driver.location.LocationWriteBuffer;
+import com.taxi.driver.model.Car;
+import com.taxi.driver.model.Driver;
+import com.taxi.driver.model.DriverLocation;
+import com.taxi.driver.service.DriverMapper;
+import com.taxi.trip.dto.TripResponse;
+import com.taxi.trip.model.Trip;
+import com.taxi.trip.service.TripMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of one entity to its API response, which trip history pages and exports and the driver
+ * listings do once per row. The driver is mapped with its persisted location and with a newer one
+ * still in the write-behind buffer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResponseMappingBenchmark {
+    private static final LocalDateTime REQUESTED_AT = LocalDateTime.of(2024, 5, 1, 8, 15);
+
+    private final Trip trip = new Trip();
+    private final Driver driver = new Driver();
+    private final LocationWriteBuffer.PendingLocation pending =
+            new LocationWriteBuffer.PendingLocation(7L, 40.7306, -73.9352, REQUESTED_AT.plusSeconds(5));
+
+    @Setup
+    public void setUp() {
+        trip.setId(42L);
+        trip.setUserId(3L);
+        trip.setDriverId(7L);
+        trip.setPickupLocation("350 5th Ave, New York");
+        trip.setDropoffLocation("JFK Airport Terminal 4");
+        trip.setEstimatedCost(new BigDecimal("48.75"));
+        trip.setActualCost(new BigDecimal("51.20"));
+        trip.setDistance(18.4);
+        trip.setStatus(Trip.TripStatus.COMPLETED);
+        trip.setRequestedAt(REQUESTED_AT);
+        trip.setStartedAt(REQUESTED_AT.plusMinutes(6));
+        trip.setCompletedAt(REQUESTED_AT.plusMinutes(41));
+
+        driver.setId(7L);
+        driver.setFirstName("Ana");
+        driver.setLastName("Silva");
+        driver.setEmail("ana.silva@example.com");
+        driver.setPhoneNumber("+1 212 555 0147");
+        driver.setLicenseNumber("D1234-56789");
+        driver.setActive(true);
+        Car car = new Car();
+        car.setMake("Toyota");
+        car.setModel("Prius");
+        car.setYear(2022);
+        car.setLicensePlate("T123456C");
+        car.setColor("White");
+        driver.setCar(car);
+        DriverLocation location = new DriverLocation();
+        location.setLatitude(40.7128);
+        location.setLongitude(-74.0060);
+        location.setTimestamp(REQUESTED_AT);
+        driver.setCurrentLocation(location);
+    }
+
+    @Benchmark
+    public TripResponse trip() {
+        return TripMapper.toResponse(trip);
+    }
+
+    @Benchmark
+    public DriverResponse driver() {
+        return DriverMapper.toResponse(driver, null);
+    }
+
+    @Benchmark
+    public DriverResponse driverWithBufferedLocation() {
+        return DriverMapper.toResponse(driver, pending);
+    }
+}
@@ -0,0 +1,40 @@
+package com.taxi.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks of this module with the GC profiler, so every result carries
+ * {@code gc.alloc.rate.norm} (bytes allocated per operation), and writes the results as JSON for
+ * {@link BaselineComparison}. Takes the usual JMH command line, e.g. a benchmark regex, {@code -f 3}
+ * or {@code -rff result.json}. Benchmarks needing Docker only run when a pattern selects them.
+ *
+ * <p>Run with {@code mvn -pl benchmarks -am install -DskipTests && mvn -pl benchmarks exec:exec}, which
+ * writes {@code benchmarks/target/jmh-result.json}; pass JMH options with {@code -Djmh.args="..."}.
+ */
+public final class TaxiBenchmarks {
+    private static final String DOCKER_BENCHMARKS = TripAcceptContentionBenchmark.class.getSimpleName();
+
+    private TaxiBenchmarks() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class);
+        if (commandLine.getIncludes().isEmpty()) {
+            options.exclude(DOCKER_BENCHMARKS);
+        }
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,110 @@
+package com.taxi.benchmark;
+
+import com.taxi.trip.repository.TripTransitionRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency of {@code accept} while 128 drivers race for the same trip, against a PostgreSQL
+ * container. All threads hammer the current trip until one of them wins, then move on to the next.
+ * {@code CAS} is the single conditional update used by the service; {@code READ_CHECK_WRITE} is the
+ * former read, status check and unconditional write. The {@code wins} counter shows that only the
+ * latter lets several drivers win the same trip.
+ *
+ * <p>Requires Docker, so {@link TaxiBenchmarks} only runs it when selected: run with
+ * {@code mvn -pl benchmarks exec:exec -Djmh.args=TripAcceptContentionBenchmark}.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(128)
+@Fork(1)
+public class TripAcceptContentionBenchmark {
+    private static final int TRIPS = 200_000;
+
+    @State(Scope.Benchmark)
+    public static class Database {
+        @Param({"CAS", "READ_CHECK_WRITE"})
+        public String strategy;
+
+        PostgreSQLContainer<?> postgres;
+        HikariDataSource dataSource;
+        JdbcTemplate jdbcTemplate;
+        TripTransitionRepository transitions;
+        final AtomicLong currentTrip = new AtomicLong(1);
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            postgres = new PostgreSQLContainer<>("postgres:15-alpine").withCommand("postgres", "-c", "max_connections=200");
+            postgres.start();
+            dataSource = new HikariDataSource();
+            dataSource.setJdbcUrl(postgres.getJdbcUrl());
+            dataSource.setUsername(postgres.getUsername());
+            dataSource.setPassword(postgres.getPassword());
+            // One connection per racing driver, as if each accept came from its own request
+            dataSource.setMaximumPoolSize(128);
+            jdbcTemplate = new JdbcTemplate(dataSource);
+            transitions = new TripTransitionRepository(jdbcTemplate);
+            jdbcTemplate.execute("""
+                    CREATE TABLE trips (
+                        id BIGINT PRIMARY KEY, user_id BIGINT NOT NULL, driver_id BIGINT,
+                        pickup_location VARCHAR(255) NOT NULL, pickup_latitude DOUBLE PRECISION NOT NULL,
+                        pickup_longitude DOUBLE PRECISION NOT NULL, dropoff_location VARCHAR(255) NOT NULL,
+                        dropoff_latitude DOUBLE PRECISION NOT NULL, dropoff_longitude DOUBLE PRECISION NOT NULL,
+                        estimated_cost NUMERIC(38, 2) NOT NULL, actual_cost NUMERIC(38, 2),
+                        distance DOUBLE PRECISION NOT NULL, status VARCHAR(255) NOT NULL,
+                        requested_at TIMESTAMP NOT NULL, started_at TIMESTAMP, completed_at TIMESTAMP,
+                        created_at TIMESTAMP NOT NULL, updated_at TIMESTAMP NOT NULL)""");
+            jdbcTemplate.execute("""
+                    INSERT INTO trips
+                    SELECT id, 1, NULL, 'A', 40.71, -74.0, 'B', 40.75, -73.98, 12.50, NULL, 3.2,
+                        'REQUESTED', now(), NULL, NULL, now(), now()
+                    FROM generate_series(1, %d) AS id""".formatted(TRIPS));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            dataSource.close();
+            postgres.stop();
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcome {
+        public long wins;
+        public long conflicts;
+    }
+
+    @Benchmark
+    public boolean accept(Database db, Outcome outcome) {
+        long tripId = db.currentTrip.get();
+        long driverId = Thread.currentThread().threadId();
+        boolean won = "CAS".equals(db.strategy)
+                ? db.transitions.accept(tripId, driverId).isPresent()
+                : readCheckWrite(db.jdbcTemplate, tripId, driverId);
+        if (won) {
+            outcome.wins++;
+            db.currentTrip.compareAndSet(tripId, tripId + 1);
+        } else {
+            outcome.conflicts++;
+        }
+        return won;
+    }
+
+    private static boolean readCheckWrite(JdbcTemplate jdbcTemplate, long tripId, long driverId) {
+        String status = jdbcTemplate.queryForObject("SELECT status FROM trips WHERE id = ?", String.class, tripId);
+        if (!"REQUESTED".equals(status)) {
+            return false;
+        }
+        jdbcTemplate.update("UPDATE trips SET status = 'ACCEPTED', driver_id = ?, updated_at = now() WHERE id = ?",
+                driverId, tripId);
+        return true;
+    }
+}
@@ -0,0 +1,69 @@
+package com.taxi.benchmark;
+
+import com.taxi.common.config.KafkaTopics;
+import com.taxi.common.event.TripCompletedEvent;
+import com.taxi.common.serde.EventSerde;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of one {@link TripCompletedEvent} with the serializers and deserializers the
+ * services configure for each {@code taxi.kafka.serde}: Jackson for {@code json}, reached through the
+ * deserializer's JSON fallback, and the hand-written codec for {@code binary}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TripCompletedEventSerdeBenchmark {
+
+    @Param({"JSON", "BINARY"})
+    public EventSerde serde;
+
+    private Serializer<Object> serializer;
+    private Deserializer<?> deserializer;
+    private TripCompletedEvent event;
+    private byte[] encoded;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() throws ReflectiveOperationException {
+        serializer = serde.serializer();
+        Map<String, Object> props = new HashMap<>();
+        serde.configureConsumer(props, TripCompletedEvent.class);
+        deserializer = ((Class<? extends Deserializer<?>>) props.get(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG))
+                .getDeclaredConstructor().newInstance();
+        deserializer.configure(props, false);
+
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 8, 21, 7);
+        event = new TripCompletedEvent(42L, 3L, 7L, "rider@example.com", "350 5th Ave, New York",
+                "JFK Airport Terminal 4", new BigDecimal("51.20"), 18.4, start, start.plusMinutes(35));
+        encoded = serializer.serialize(KafkaTopics.TRIP_COMPLETED, event);
+    }
+
+    @TearDown
+    public void tearDown() {
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(KafkaTopics.TRIP_COMPLETED, event);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return deserializer.deserialize(KafkaTopics.TRIP_COMPLETED, encoded);
+    }
+}
@@ -0,0 +1,87 @@
+package com.taxi.benchmark;
+
+import com.taxi.common.event.TripCompletedEvent;
+import com.taxi.notification.template.TripSummaryTemplates;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of one trip summary email: {@code legacyFormat} is the former
+ * {@code EmailService.buildEmailContent} ({@code String.format} and a new {@code DateTimeFormatter}
+ * per email), {@code templateText} and {@code templateHtml} the precompiled
+ * {@link TripSummaryTemplates}. {@link TaxiBenchmarks} runs it with the GC profiler, so
+ * {@code gc.alloc.rate.norm} shows the bytes allocated per email.
+ *
+ * <p>Run with {@code mvn -pl benchmarks exec:exec -Djmh.args=TripSummaryRenderBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TripSummaryRenderBenchmark {
+    private TripSummaryTemplates templates;
+    private TripCompletedEvent event;
+
+    @Setup
+    public void setUp() {
+        templates = new TripSummaryTemplates(new ClassPathResource("templates/trip-summary.txt"),
+                new ClassPathResource("templates/trip-summary.html"));
+        event = new TripCompletedEvent(4_711L, 7L, 3L, "rider@example.com", "Main St 1", "Airport",
+                new BigDecimal("25.50"), 7.456, LocalDateTime.of(2024, 5, 1, 8, 15),
+                LocalDateTime.of(2024, 5, 1, 8, 42, 30));
+    }
+
+    @Benchmark
+    public String legacyFormat() {
+        return buildEmailContent(event);
+    }
+
+    @Benchmark
+    public String templateText() {
+        return templates.text(event);
+    }
+
+    @Benchmark
+    public String templateHtml() {
+        return templates.html(event);
+    }
+
+    private static String buildEmailContent(TripCompletedEvent event) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+        return String.format("""
+                Dear Customer,
+
+                Thank you for using our taxi service! Here is your trip summary:
+
+                Trip ID: %d
+                Pickup Location: %s
+                Dropoff Location: %s
+                Distance: %.2f km
+                Cost: $%.2f
+
+                Trip Start: %s
+                Trip End: %s
+
+                We hope you enjoyed your ride!
+
+                Best regards,
+                Taxi Reservation System
+                """,
+                event.getTripId(),
+                event.getPickupLocation(),
+                event.getDropoffLocation(),
+                event.getDistance(),
+                event.getCost(),
+                event.getStartTime().format(formatter),
+                event.getEndTime().format(formatter)
+        );
+    }
+}
@@ -0,0 +1,73 @@
+package com.taxi.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BaselineComparisonTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldReadScoreAllocationAndParametersFromJmhJson() throws IOException {
+        Map<String, BaselineComparison.Result> results = BaselineComparison.read(write("result.json",
+                run("com.taxi.benchmark.CardNumberValidationBenchmark.validate", "avgt", 120.5, 2.5, 88,
+                        "\"cardNumber\": \"5555555555554444\"")));
+
+        assertThat(results).containsOnlyKeys(
+                "com.taxi.benchmark.CardNumberValidationBenchmark.validate [cardNumber=5555555555554444]");
+        BaselineComparison.Result result = results.values().iterator().next();
+        assertThat(result.score()).isEqualTo(120.5);
+        assertThat(result.error()).isEqualTo(2.5);
+        assertThat(result.unit()).isEqualTo("ns/op");
+        assertThat(result.bytesPerOp()).isEqualTo(88);
+    }
+
+    @Test
+    void shouldFlagSlowerAndMoreAllocatingBenchmarks() throws IOException {
+        Map<String, BaselineComparison.Result> baseline = BaselineComparison.read(write("baseline.json",
+                run("a.Slower.run", "avgt", 100, 1, 0, ""),
+                run("a.Noisy.run", "avgt", 100, 20, 0, ""),
+                run("a.Allocating.run", "avgt", 100, 1, 48, ""),
+                run("a.Throughput.run", "thrpt", 1_000, 5, 0, ""),
+                run("a.Removed.run", "avgt", 100, 1, 0, "")));
+        Map<String, BaselineComparison.Result> current = BaselineComparison.read(write("current.json",
+                run("a.Slower.run", "avgt", 120, 1, 0, ""),
+                run("a.Noisy.run", "avgt", 125, 20, 0, ""),
+                run("a.Allocating.run", "avgt", 95, 1, 96, ""),
+                run("a.Throughput.run", "thrpt", 850, 5, 0, "")));
+
+        List<BaselineComparison.Comparison> comparisons = BaselineComparison.compare(baseline, current, 10);
+
+        assertThat(comparisons).extracting(BaselineComparison.Comparison::benchmark)
+                .containsExactly("a.Slower.run", "a.Noisy.run", "a.Allocating.run", "a.Throughput.run");
+        assertThat(comparisons).extracting(BaselineComparison.Comparison::slower)
+                .containsExactly(true, false, false, true);
+        assertThat(comparisons).extracting(BaselineComparison.Comparison::allocatesMore)
+                .containsExactly(false, false, true, false);
+    }
+
+    private Path write(String name, String... runs) throws IOException {
+        return Files.writeString(dir.resolve(name), "[" + String.join(",", runs) + "]");
+    }
+
+    private static String run(String benchmark, String mode, double score, double error, double bytesPerOp,
+                              String params) {
+        return """
+                {
+                  "benchmark": "%s",
+                  "mode": "%s",
+                  "params": {%s},
+                  "primaryMetric": {"score": %s, "scoreError": %s, "scoreUnit": "%s"},
+                  "secondaryMetrics": {"gc.alloc.rate.norm": {"score": %s, "scoreUnit": "B/op"}}
+                }""".formatted(benchmark, mode, params, score, error, "thrpt".equals(mode) ? "ops/s" : "ns/op", bytesPerOp);
+    }
+}
@@ -0,0 +1,206 @@
+package com.taxi.common.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sizes a listener container to its consumer group's lag. Every check interval it reads the group's
+ * committed offsets and the end offsets of its topics through the admin client, and lets
+ * {@link ConcurrencyPolicy} pick the concurrency between the configured bounds and the partition
+ * count. A change restarts the container with the new concurrency, which rebalances the group, so
+ * rush-hour backlogs get more consumers without keeping them for the rest of the day. Partitions the
+ * group has not committed on yet count from their earliest offset, so the consumers are expected to
+ * use {@code auto.offset.reset=earliest}.
+ *
+ * <p>Metrics: {@code kafka.consumer.lag{group,topic,partition}},
+ * {@code kafka.listener.concurrency{listener}} and
+ * {@code kafka.listener.concurrency.changes{listener,direction}}.
+ */
+@Slf4j
+public class AdaptiveConcurrencyController implements SmartLifecycle {
+    private final KafkaListenerEndpointRegistry registry;
+    private final String listenerId;
+    private final Supplier<Admin> adminFactory;
+    private final AdaptiveConcurrencySettings settings;
+    private final ConcurrencyPolicy policy;
+    private final AtomicInteger concurrency = new AtomicInteger();
+    private final MultiGauge partitionLag;
+    private final Counter scaledUp;
+    private final Counter scaledDown;
+
+    private volatile boolean running;
+    private Admin admin;
+    private Thread worker;
+
+    public AdaptiveConcurrencyController(KafkaListenerEndpointRegistry registry,
+                                         String listenerId,
+                                         Supplier<Admin> adminFactory,
+                                         MeterRegistry meterRegistry,
+                                         AdaptiveConcurrencySettings settings) {
+        this.registry = registry;
+        this.listenerId = listenerId;
+        this.adminFactory = adminFactory;
+        this.settings = settings;
+        this.policy = new ConcurrencyPolicy(settings);
+        this.partitionLag = MultiGauge.builder("kafka.consumer.lag")
+                .description("Messages between the consumer group's committed offset and the end of the partition")
+                .register(meterRegistry);
+        Gauge.builder("kafka.listener.concurrency", concurrency, AtomicInteger::get)
+                .description("Consumers the listener container currently runs")
+                .tag("listener", listenerId)
+                .register(meterRegistry);
+        this.scaledUp = changes(meterRegistry, "up");
+        this.scaledDown = changes(meterRegistry, "down");
+    }
+
+    private Counter changes(MeterRegistry meterRegistry, String direction) {
+        return Counter.builder("kafka.listener.concurrency.changes")
+                .description("Restarts of the listener container with a different concurrency")
+                .tags("listener", listenerId, "direction", direction)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reads the lag and applies the policy's decision. Returns the concurrency the container runs with.
+     */
+    int check() throws InterruptedException, ExecutionException, TimeoutException {
+        MessageListenerContainer listenerContainer = registry.getListenerContainer(listenerId);
+        if (!(listenerContainer instanceof ConcurrentMessageListenerContainer<?, ?> container)) {
+            throw new IllegalStateException("No concurrent listener container with id " + listenerId);
+        }
+        int current = container.getConcurrency();
+        concurrency.set(current);
+        if (!container.isRunning()) {
+            return current;
+        }
+
+        String groupId = container.getGroupId();
+        Map<TopicPartition, Long> lags = lags(groupId, List.of(container.getContainerProperties().getTopics()));
+        long totalLag = 0;
+        List<MultiGauge.Row<?>> rows = new ArrayList<>(lags.size());
+        for (Map.Entry<TopicPartition, Long> lag : lags.entrySet()) {
+            totalLag += lag.getValue();
+            rows.add(MultiGauge.Row.of(Tags.of("group", groupId, "topic", lag.getKey().topic(),
+                    "partition", String.valueOf(lag.getKey().partition())), lag.getValue()));
+        }
+        partitionLag.register(rows, true);
+
+        int target = policy.decide(current, totalLag, lags.size(), System.nanoTime());
+        if (target != current) {
+            log.info("Restarting listener {} with concurrency {} (was {}), lag of group {} is {}",
+                    listenerId, target, current, groupId, totalLag);
+            container.stop();
+            container.setConcurrency(target);
+            container.start();
+            concurrency.set(target);
+            (target > current ? scaledUp : scaledDown).increment();
+        }
+        return target;
+    }
+
+    private Map<TopicPartition, Long> lags(String groupId, List<String> topics)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        long timeoutMs = settings.checkInterval().toMillis();
+        Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(groupId)
+                .partitionsToOffsetAndMetadata().get(timeoutMs, TimeUnit.MILLISECONDS);
+        Map<String, TopicDescription> descriptions = admin.describeTopics(topics)
+                .allTopicNames().get(timeoutMs, TimeUnit.MILLISECONDS);
+
+        Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+        descriptions.values().forEach(description -> description.partitions().forEach(partition ->
+                latest.put(new TopicPartition(description.name(), partition.partition()), OffsetSpec.latest())));
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> ends = admin.listOffsets(latest)
+                .all().get(timeoutMs, TimeUnit.MILLISECONDS);
+
+        // Nothing committed yet: the group starts at the beginning of the partition (auto.offset.reset=earliest)
+        Map<TopicPartition, OffsetSpec> uncommitted = new HashMap<>();
+        latest.keySet().stream().filter(partition -> committed.get(partition) == null)
+                .forEach(partition -> uncommitted.put(partition, OffsetSpec.earliest()));
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> starts = uncommitted.isEmpty() ? Map.of()
+                : admin.listOffsets(uncommitted).all().get(timeoutMs, TimeUnit.MILLISECONDS);
+
+        Map<TopicPartition, Long> lags = new HashMap<>(ends.size());
+        ends.forEach((partition, end) -> {
+            OffsetAndMetadata offset = committed.get(partition);
+            long position = offset != null ? offset.offset() : starts.get(partition).offset();
+            lags.put(partition, Math.max(0, end.offset() - position));
+        });
+        return lags;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                check();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | TimeoutException | RuntimeException e) {
+                log.warn("Failed to check the lag of listener {}", listenerId, e);
+            }
+            try {
+                Thread.sleep(settings.checkInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        admin = adminFactory.get();
+        running = true;
+        worker = Thread.ofPlatform().name("adaptive-concurrency-" + listenerId).daemon().start(this::run);
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(settings.checkInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            worker = null;
+        }
+        if (admin != null) {
+            admin.close();
+            admin = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
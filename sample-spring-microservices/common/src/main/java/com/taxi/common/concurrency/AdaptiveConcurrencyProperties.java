@@ -0,0 +1,45 @@
+package com.taxi.common.concurrency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import org.apache.kafka.clients.admin.Admin;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaAdmin;
+
+import java.time.Duration;
+
+/**
+ * {@code taxi.kafka.adaptive-concurrency.*}, bound once for the services sizing a listener with
+ * {@link AdaptiveConcurrencyController}. See {@link AdaptiveConcurrencySettings} for their meaning.
+ */
+@Data
+@ConfigurationProperties("taxi.kafka.adaptive-concurrency")
+public class AdaptiveConcurrencyProperties {
+    private boolean enabled = true;
+    private int minConcurrency = 1;
+    private int maxConcurrency = 6;
+    private long checkIntervalMs = 10000;
+    private long scaleUpLag = 1000;
+    private long scaleDownLag = 100;
+    private int scaleUpChecks = 2;
+    private int scaleDownChecks = 6;
+    private long cooldownMs = 30000;
+
+    public AdaptiveConcurrencySettings toSettings() {
+        return new AdaptiveConcurrencySettings(minConcurrency, maxConcurrency, Duration.ofMillis(checkIntervalMs),
+                scaleUpLag, scaleDownLag, scaleUpChecks, scaleDownChecks, Duration.ofMillis(cooldownMs));
+    }
+
+    /**
+     * A controller for the listener container with the given id, talking to the brokers {@code kafkaAdmin}
+     * is configured for.
+     */
+    public AdaptiveConcurrencyController controller(String listenerId,
+                                                    KafkaListenerEndpointRegistry registry,
+                                                    KafkaAdmin kafkaAdmin,
+                                                    MeterRegistry meterRegistry) {
+        return new AdaptiveConcurrencyController(registry, listenerId,
+                () -> Admin.create(kafkaAdmin.getConfigurationProperties()), meterRegistry, toSettings());
+    }
+}
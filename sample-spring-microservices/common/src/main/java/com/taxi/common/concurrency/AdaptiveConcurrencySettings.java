@@ -0,0 +1,27 @@
+package com.taxi.common.concurrency;
+
+import java.time.Duration;
+
+/**
+ * Tuning of {@link AdaptiveConcurrencyController}. Concurrency grows when the lag per consumer stayed
+ * above {@code scaleUpLag} for {@code scaleUpChecks} checks in a row, and shrinks by one when it
+ * stayed below {@code scaleDownLag} for {@code scaleDownChecks} checks; in between it is left alone.
+ * No change is made within {@code cooldown} of the previous one, while the group rebalances.
+ */
+public record AdaptiveConcurrencySettings(int minConcurrency, int maxConcurrency, Duration checkInterval,
+                                          long scaleUpLag, long scaleDownLag, int scaleUpChecks,
+                                          int scaleDownChecks, Duration cooldown) {
+
+    public AdaptiveConcurrencySettings {
+        if (minConcurrency <= 0 || maxConcurrency < minConcurrency) {
+            throw new IllegalArgumentException("Concurrency bounds must satisfy 0 < min <= max");
+        }
+        if (scaleDownLag < 0 || scaleUpLag <= scaleDownLag) {
+            throw new IllegalArgumentException("Scale-up lag must be above scale-down lag");
+        }
+        if (scaleUpChecks <= 0 || scaleDownChecks <= 0 || checkInterval.isNegative() || checkInterval.isZero()
+                || cooldown.isNegative()) {
+            throw new IllegalArgumentException("Invalid adaptive concurrency check settings");
+        }
+    }
+}
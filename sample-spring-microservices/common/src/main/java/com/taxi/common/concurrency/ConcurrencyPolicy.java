@@ -0,0 +1,57 @@
+package com.taxi.common.concurrency;
+
+/**
+ * Decides the listener concurrency from the group's total lag, with hysteresis: scaling up jumps
+ * straight to as many consumers as it takes to get each below {@code scaleUpLag}, scaling down drops
+ * one consumer at a time, and both need the condition to hold over consecutive checks. Never goes
+ * beyond the partition count, since extra consumers would get no partition.
+ */
+class ConcurrencyPolicy {
+    private final AdaptiveConcurrencySettings settings;
+    private final long cooldownNanos;
+    private int checksAbove;
+    private int checksBelow;
+    private long lastChangeNanos;
+    private boolean changed;
+
+    ConcurrencyPolicy(AdaptiveConcurrencySettings settings) {
+        this.settings = settings;
+        this.cooldownNanos = settings.cooldown().toNanos();
+    }
+
+    /**
+     * Returns the concurrency to run with, {@code current} if nothing should change.
+     */
+    int decide(int current, long totalLag, int partitions, long nowNanos) {
+        int ceiling = Math.max(settings.minConcurrency(), Math.min(settings.maxConcurrency(), partitions));
+        int floor = settings.minConcurrency();
+        if (current > ceiling || current < floor) {
+            return changeTo(Math.clamp(current, floor, ceiling), nowNanos);
+        }
+        if (changed && nowNanos - lastChangeNanos < cooldownNanos) {
+            // The lag of a rebalancing group says little about its throughput
+            return current;
+        }
+
+        long lagPerConsumer = totalLag / current;
+        checksAbove = lagPerConsumer > settings.scaleUpLag() ? checksAbove + 1 : 0;
+        checksBelow = lagPerConsumer < settings.scaleDownLag() ? checksBelow + 1 : 0;
+
+        if (checksAbove >= settings.scaleUpChecks() && current < ceiling) {
+            long needed = (totalLag + settings.scaleUpLag() - 1) / settings.scaleUpLag();
+            return changeTo((int) Math.clamp(needed, current + 1L, ceiling), nowNanos);
+        }
+        if (checksBelow >= settings.scaleDownChecks() && current > floor) {
+            return changeTo(current - 1, nowNanos);
+        }
+        return current;
+    }
+
+    private int changeTo(int concurrency, long nowNanos) {
+        checksAbove = 0;
+        checksBelow = 0;
+        lastChangeNanos = nowNanos;
+        changed = true;
+        return concurrency;
+    }
+}
@@ -0,0 +1,51 @@
+package com.taxi.common.outbox;
+
+import com.taxi.common.serde.EventSerde;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+/**
+ * Outbox wiring of a service publishing events: store, relay and writer. Imported by the services'
+ * Kafka configuration, which provides the {@code KafkaTemplate<String, byte[]>} the relay sends with.
+ */
+@Configuration(proxyBeanMethods = false)
+public class OutboxConfiguration {
+
+    @Value("${taxi.kafka.serde:json}")
+    private String serde;
+
+    @Value("${taxi.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${taxi.outbox.poll-interval-ms:200}")
+    private long pollIntervalMs;
+
+    @Value("${taxi.outbox.send-timeout-ms:30000}")
+    private long sendTimeoutMs;
+
+    @Bean
+    public OutboxStore outboxStore(JdbcTemplate jdbcTemplate) {
+        return new OutboxStore(jdbcTemplate);
+    }
+
+    @Bean
+    public OutboxRelay outboxRelay(OutboxStore outboxStore,
+                                   KafkaTemplate<String, byte[]> kafkaTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   MeterRegistry meterRegistry) {
+        return new OutboxRelay(outboxStore, kafkaTemplate, transactionTemplate, meterRegistry,
+                batchSize, Duration.ofMillis(pollIntervalMs), Duration.ofMillis(sendTimeoutMs));
+    }
+
+    @Bean
+    public OutboxWriter outboxWriter(OutboxStore outboxStore, OutboxRelay outboxRelay) {
+        return new OutboxWriter(outboxStore, EventSerde.from(serde).serializer(), outboxRelay);
+    }
+}
@@ -0,0 +1,12 @@
+package com.taxi.common.outbox;
+
+/**
+ * An event to be published once the surrounding transaction commits. {@code traceId} continues the
+ * trace of the event that caused this one; {@code null} lets {@link OutboxWriter} pick it.
+ */
+public record OutboxMessage(String topic, String key, Object event, String traceId) {
+
+    public OutboxMessage(String topic, String key, Object event) {
+        this(topic, key, event, null);
+    }
+}
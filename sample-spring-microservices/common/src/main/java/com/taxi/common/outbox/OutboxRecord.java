@@ -0,0 +1,10 @@
+package com.taxi.common.outbox;
+
+import java.time.Instant;
+
+/**
+ * A row of the outbox table, holding the already serialized event value. {@code createdAt} is
+ * published as the event's produce time.
+ */
+public record OutboxRecord(long id, String topic, String key, byte[] payload, Instant createdAt, String traceId) {
+}
@@ -0,0 +1,195 @@
+package com.taxi.common.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import com.taxi.common.tracing.EventTrace;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drains the outbox into Kafka. Each round locks a batch of the oldest rows, sends all of them
+ * before waiting for the acknowledgements, so the producer packs them into few requests, and
+ * deletes the rows in the same transaction. A failed send rolls the round back and the batch is
+ * retried, so delivery is at least once. Every record carries its row's {@link EventTrace}.
+ *
+ * <p>Events are sent in the order they were written only while a single relay drains the table.
+ * Relays of several instances lock disjoint batches with {@code SKIP LOCKED}, so an event can be
+ * sent before an older event with the same key locked by another relay, which then lands later on
+ * the same partition. Services publishing several events per key that consumers must see in order
+ * have to run the relay on one instance only.
+ *
+ * <p>Metrics: {@code outbox.relay.events} (throughput), {@code outbox.relay.batch.size},
+ * {@code outbox.relay.lag} (time from commit of the event to its acknowledgement) and
+ * {@code outbox.relay.failures}.
+ */
+@Slf4j
+public class OutboxRelay implements SmartLifecycle {
+    private final OutboxStore store;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration sendTimeout;
+    private final Semaphore wakeUps = new Semaphore(0);
+
+    private final Counter relayedEvents;
+    private final Counter failures;
+    private final DistributionSummary batchSizes;
+    private final Timer lag;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public OutboxRelay(OutboxStore store,
+                       KafkaTemplate<String, byte[]> kafkaTemplate,
+                       TransactionTemplate transactionTemplate,
+                       MeterRegistry meterRegistry,
+                       int batchSize,
+                       Duration pollInterval,
+                       Duration sendTimeout) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.store = store;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.sendTimeout = sendTimeout;
+        this.relayedEvents = Counter.builder("outbox.relay.events")
+                .description("Events published from the outbox")
+                .register(meterRegistry);
+        this.failures = Counter.builder("outbox.relay.failures")
+                .description("Relay rounds rolled back after a failed publish")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("outbox.relay.batch.size")
+                .description("Events published per relay round")
+                .register(meterRegistry);
+        this.lag = Timer.builder("outbox.relay.lag")
+                .description("Time from writing an event to the outbox to its acknowledgement by Kafka")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publishes one batch and returns the number of events relayed.
+     */
+    public int relayBatch() {
+        List<OutboxRecord> relayed = transactionTemplate.execute(status -> {
+            List<OutboxRecord> batch = store.lockBatch(batchSize);
+            if (batch.isEmpty()) {
+                return batch;
+            }
+            List<CompletableFuture<SendResult<String, byte[]>>> sends = new ArrayList<>(batch.size());
+            for (OutboxRecord record : batch) {
+                ProducerRecord<String, byte[]> producerRecord =
+                        new ProducerRecord<>(record.topic(), record.key(), record.payload());
+                // Produced when it was written to the outbox, so consumers see the delay of the relay too
+                new EventTrace(record.traceId(), record.createdAt()).writeTo(producerRecord.headers());
+                sends.add(kafkaTemplate.send(producerRecord));
+            }
+            kafkaTemplate.flush();
+            awaitAll(sends);
+            store.delete(batch);
+            return batch;
+        });
+        if (relayed == null || relayed.isEmpty()) {
+            return 0;
+        }
+        Instant now = Instant.now();
+        for (OutboxRecord record : relayed) {
+            lag.record(Duration.between(record.createdAt(), now));
+        }
+        relayedEvents.increment(relayed.size());
+        batchSizes.record(relayed.size());
+        return relayed.size();
+    }
+
+    /**
+     * Makes the relay poll right away instead of at the end of the current interval.
+     */
+    public void wakeUp() {
+        if (wakeUps.availablePermits() == 0) {
+            wakeUps.release();
+        }
+    }
+
+    private void awaitAll(List<CompletableFuture<SendResult<String, byte[]>>> sends) {
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing outbox events", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Failed to publish outbox events", e);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            int relayed;
+            try {
+                relayed = relayBatch();
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.warn("Outbox relay round failed, retrying in {}", pollInterval, e);
+                relayed = 0;
+            }
+            // A full batch means more rows are probably waiting
+            if (relayed < batchSize) {
+                try {
+                    wakeUps.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                    wakeUps.drainPermits();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = Thread.ofPlatform().name("outbox-relay").daemon().start(this::run);
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(sendTimeout.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            worker = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
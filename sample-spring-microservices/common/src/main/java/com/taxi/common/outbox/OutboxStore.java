@@ -0,0 +1,90 @@
+package com.taxi.common.outbox;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * JDBC access to the {@code outbox_event} table. Writes join the caller's transaction, since
+ * {@link JdbcTemplate} uses the connection bound by the service's transaction manager.
+ */
+public class OutboxStore implements InitializingBean {
+    private static final String CREATE_TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS outbox_event (
+                id BIGSERIAL PRIMARY KEY,
+                topic VARCHAR(255) NOT NULL,
+                event_key VARCHAR(255),
+                payload BYTEA NOT NULL,
+                created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+                trace_id VARCHAR(64)
+            )""";
+    private static final String INSERT_SQL = """
+            INSERT INTO outbox_event (topic, event_key, payload, created_at, trace_id)
+            VALUES (?, ?, ?, ?, ?)""";
+    private static final String LOCK_BATCH_SQL = """
+            SELECT id, topic, event_key, payload, created_at, trace_id FROM outbox_event
+            ORDER BY id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED""";
+    private static final String DELETE_SQL = "DELETE FROM outbox_event WHERE id = ANY (?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OutboxStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        // Not an entity, so it is not covered by ddl-auto
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+    }
+
+    public void insert(List<OutboxRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                OutboxRecord record = records.get(i);
+                ps.setString(1, record.topic());
+                ps.setString(2, record.key());
+                ps.setBytes(3, record.payload());
+                ps.setTimestamp(4, Timestamp.from(record.createdAt()));
+                ps.setString(5, record.traceId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return records.size();
+            }
+        });
+    }
+
+    /**
+     * Locks up to {@code limit} of the oldest rows until the current transaction ends. Rows locked
+     * by another relay are skipped, so several instances can drain the table side by side, at the
+     * cost of ordering between their batches (see {@link OutboxRelay}).
+     */
+    public List<OutboxRecord> lockBatch(int limit) {
+        return jdbcTemplate.query(LOCK_BATCH_SQL, (rs, rowNum) -> new OutboxRecord(
+                rs.getLong("id"),
+                rs.getString("topic"),
+                rs.getString("event_key"),
+                rs.getBytes("payload"),
+                rs.getTimestamp("created_at").toInstant(),
+                rs.getString("trace_id")
+        ), limit);
+    }
+
+    public void delete(List<OutboxRecord> records) {
+        Long[] ids = records.stream().map(OutboxRecord::id).toArray(Long[]::new);
+        jdbcTemplate.update(DELETE_SQL, ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)));
+    }
+}
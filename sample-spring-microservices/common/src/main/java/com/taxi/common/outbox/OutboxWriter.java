@@ -0,0 +1,61 @@
+package com.taxi.common.outbox;
+
+import com.taxi.common.tracing.EventTrace;
+import com.taxi.common.tracing.EventTraceContext;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces {@code kafkaTemplate.send} inside transactions: events are serialized and stored in the
+ * outbox in the same transaction as the business change, and published by the {@link OutboxRelay}
+ * after the commit. A rollback discards them together with the change.
+ *
+ * <p>Each event gets the trace id of its message, else that of the event handled by the current
+ * record listener, else a new one, which makes it the start of a trace.
+ */
+public class OutboxWriter {
+    private final OutboxStore store;
+    private final Serializer<Object> serializer;
+    private final OutboxRelay relay;
+
+    public OutboxWriter(OutboxStore store, Serializer<Object> serializer, OutboxRelay relay) {
+        this.store = store;
+        this.serializer = serializer;
+        this.relay = relay;
+    }
+
+    public void publish(String topic, String key, Object event) {
+        publishAll(List.of(new OutboxMessage(topic, key, event)));
+    }
+
+    public void publishAll(List<OutboxMessage> messages) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Outbox messages must be written inside a transaction");
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        String currentTraceId = EventTraceContext.currentTraceId();
+        List<OutboxRecord> records = new ArrayList<>(messages.size());
+        for (OutboxMessage message : messages) {
+            byte[] payload = serializer.serialize(message.topic(), message.event());
+            String traceId = message.traceId() != null ? message.traceId()
+                    : currentTraceId != null ? currentTraceId : EventTrace.newTraceId();
+            records.add(new OutboxRecord(0, message.topic(), message.key(), payload, now, traceId));
+        }
+        store.insert(records);
+        // Saves the relay a poll interval when the table was idle
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                relay.wakeUp();
+            }
+        });
+    }
+}
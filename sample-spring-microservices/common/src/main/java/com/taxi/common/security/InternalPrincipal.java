@@ -0,0 +1,12 @@
+package com.taxi.common.security;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Identity of an end user as established by the gateway, forwarded to the backends in place of
+ * the bearer token. {@code claims} holds the token claims the backends read besides the subject.
+ */
+public record InternalPrincipal(String subject, List<String> authorities, Map<String, Object> claims, Instant expiresAt) {
+}
@@ -0,0 +1,65 @@
+package com.taxi.common.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Authenticates requests forwarded by the gateway with a {@value InternalPrincipalCodec#HEADER}
+ * header, so the bearer token does not have to be verified again. The authentication is a
+ * {@link JwtAuthenticationToken} over the forwarded claims, so controllers and method security
+ * expressions see the same principal as with a bearer token. Requests without the header fall
+ * through to the bearer token filter; an invalid header is rejected with 401.
+ */
+public class InternalPrincipalAuthenticationFilter extends OncePerRequestFilter {
+    private final InternalPrincipalCodec codec;
+
+    public InternalPrincipalAuthenticationFilter(InternalPrincipalCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(InternalPrincipalCodec.HEADER);
+        if (header == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        InternalPrincipal principal;
+        try {
+            principal = codec.decode(header, Instant.now());
+        } catch (RuntimeException e) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+
+        Jwt jwt = Jwt.withTokenValue(header)
+                .header("alg", "HS256")
+                .subject(principal.subject())
+                .claims(claims -> claims.putAll(principal.claims()))
+                .expiresAt(principal.expiresAt())
+                .build();
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(new JwtAuthenticationToken(jwt,
+                principal.authorities().stream().map(SimpleGrantedAuthority::new).toList(),
+                principal.subject()));
+        SecurityContextHolder.setContext(context);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
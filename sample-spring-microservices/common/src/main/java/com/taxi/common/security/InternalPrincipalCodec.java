@@ -0,0 +1,128 @@
+package com.taxi.common.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes an {@link InternalPrincipal} as {@code base64url(payload).base64url(HMAC-SHA256(payload))}
+ * for the {@value #HEADER} header. The gateway and the backends share the secret; checking a header
+ * is one HMAC over ~100 bytes and a constant-time comparison, no public key crypto.
+ */
+public class InternalPrincipalCodec {
+    public static final String HEADER = "X-Internal-Principal";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+    private static final byte VERSION = 1;
+    private static final byte STRING_CLAIM = 's';
+    private static final byte LONG_CLAIM = 'n';
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    // Mac instances are not thread-safe
+    private final ThreadLocal<Mac> macs;
+
+    public InternalPrincipalCodec(String secret) {
+        byte[] secretBytes = secret == null ? new byte[0] : secret.getBytes(StandardCharsets.UTF_8);
+        if (secretBytes.length < MIN_SECRET_BYTES) {
+            throw new IllegalArgumentException("Internal auth secret must have at least " + MIN_SECRET_BYTES + " bytes");
+        }
+        this.key = new SecretKeySpec(secretBytes, ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    public String encode(InternalPrincipal principal) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeLong(principal.expiresAt().getEpochSecond());
+            out.writeUTF(principal.subject());
+            out.writeShort(principal.authorities().size());
+            for (String authority : principal.authorities()) {
+                out.writeUTF(authority);
+            }
+            out.writeShort(principal.claims().size());
+            for (Map.Entry<String, Object> claim : principal.claims().entrySet()) {
+                out.writeUTF(claim.getKey());
+                if (claim.getValue() instanceof Long || claim.getValue() instanceof Integer) {
+                    out.writeByte(LONG_CLAIM);
+                    out.writeLong(((Number) claim.getValue()).longValue());
+                } else {
+                    out.writeByte(STRING_CLAIM);
+                    out.writeUTF(String.valueOf(claim.getValue()));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] payload = bytes.toByteArray();
+        return ENCODER.encodeToString(payload) + '.' + ENCODER.encodeToString(macs.get().doFinal(payload));
+    }
+
+    /**
+     * Returns the principal of a header minted with the same secret, rejecting tampered, malformed
+     * and expired ones with {@link IllegalArgumentException}.
+     */
+    public InternalPrincipal decode(String header, Instant now) {
+        int separator = header.indexOf('.');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Malformed internal principal");
+        }
+        byte[] payload = DECODER.decode(header.substring(0, separator));
+        byte[] signature = DECODER.decode(header.substring(separator + 1));
+        if (!MessageDigest.isEqual(macs.get().doFinal(payload), signature)) {
+            throw new IllegalArgumentException("Invalid internal principal signature");
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            if (in.readByte() != VERSION) {
+                throw new IllegalArgumentException("Unsupported internal principal version");
+            }
+            Instant expiresAt = Instant.ofEpochSecond(in.readLong());
+            if (!now.isBefore(expiresAt)) {
+                throw new IllegalArgumentException("Internal principal expired");
+            }
+            String subject = in.readUTF();
+            int authorityCount = in.readUnsignedShort();
+            List<String> authorities = new ArrayList<>(authorityCount);
+            for (int i = 0; i < authorityCount; i++) {
+                authorities.add(in.readUTF());
+            }
+            int claimCount = in.readUnsignedShort();
+            Map<String, Object> claims = new LinkedHashMap<>();
+            for (int i = 0; i < claimCount; i++) {
+                String name = in.readUTF();
+                claims.put(name, in.readByte() == LONG_CLAIM ? (Object) in.readLong() : in.readUTF());
+            }
+            return new InternalPrincipal(subject, authorities, claims, expiresAt);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed internal principal", e);
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.taxi.common.serde;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+
+/**
+ * Kafka deserializer for {@link BinaryEventSerializer} payloads. JSON payloads are still accepted
+ * and handed to a {@link JsonDeserializer} configured from the same properties, so consumers can
+ * be switched before their producers.
+ */
+public class BinaryEventDeserializer implements Deserializer<Object> {
+    private final JsonDeserializer<Object> jsonDeserializer = new JsonDeserializer<>();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonDeserializer.configure(configs, isKey);
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length > 0 && data[0] == '{') {
+            return headers != null
+                    ? jsonDeserializer.deserialize(topic, headers, data)
+                    : jsonDeserializer.deserialize(topic, data);
+        }
+        if (data.length < EventCodecs.HEADER_SIZE || data[0] != EventCodecs.MAGIC) {
+            throw new SerializationException("Payload on " + topic + " is neither a binary event nor JSON");
+        }
+        EventCodec<?> codec = EventCodecs.forTypeId(data[1]);
+        return codec.read(new BinaryReader(data, EventCodecs.HEADER_SIZE), data[2]);
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
@@ -0,0 +1,27 @@
+package com.taxi.common.serde;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka serializer writing any registered event as {@code [magic][type id][schema version][body]}.
+ */
+public class BinaryEventSerializer implements Serializer<Object> {
+
+    @Override
+    public byte[] serialize(String topic, Object event) {
+        if (event == null) {
+            return null;
+        }
+        return encode(EventCodecs.forClass(event.getClass()), event);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> byte[] encode(EventCodec<T> codec, Object event) {
+        BinaryWriter out = new BinaryWriter(64)
+                .writeByte(EventCodecs.MAGIC)
+                .writeByte(codec.typeId())
+                .writeByte(codec.version());
+        codec.write((T) event, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,120 @@
+package com.taxi.common.serde;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Reads values written by {@link BinaryWriter}.
+ */
+public final class BinaryReader {
+    private final byte[] data;
+    private int position;
+
+    public BinaryReader(byte[] data, int offset) {
+        this.data = data;
+        this.position = offset;
+    }
+
+    public byte readByte() {
+        require(1);
+        return data[position++];
+    }
+
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    public long readVarLong() {
+        long zigZag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = readByte();
+            zigZag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigZag >>> 1) ^ -(zigZag & 1);
+            }
+        }
+        throw new SerializationException("Malformed varint");
+    }
+
+    public long readFixedLong() {
+        require(Long.BYTES);
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (data[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    public double readDouble() {
+        return Double.longBitsToDouble(readFixedLong());
+    }
+
+    public Long readNullableVarLong() {
+        return readBoolean() ? readVarLong() : null;
+    }
+
+    public Double readNullableDouble() {
+        return readBoolean() ? readDouble() : null;
+    }
+
+    public String readString() {
+        int length = readLength();
+        if (length < 0) {
+            return null;
+        }
+        require(length);
+        String value = new String(data, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    public BigDecimal readDecimal() {
+        if (!readBoolean()) {
+            return null;
+        }
+        int scale = (int) readVarLong();
+        if (readBoolean()) {
+            return BigDecimal.valueOf(readVarLong(), scale);
+        }
+        int length = readLength();
+        if (length <= 0) {
+            throw new SerializationException("Malformed decimal");
+        }
+        byte[] unscaled = new byte[length];
+        System.arraycopy(data, position, unscaled, 0, length);
+        position += length;
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    public LocalDateTime readDateTime() {
+        if (!readBoolean()) {
+            return null;
+        }
+        long epochSecond = readVarLong();
+        int nanos = (int) readVarLong();
+        return LocalDateTime.ofEpochSecond(epochSecond, nanos, ZoneOffset.UTC);
+    }
+
+    public boolean hasRemaining() {
+        return position < data.length;
+    }
+
+    private int readLength() {
+        long length = readVarLong();
+        if (length < -1 || length > data.length - position) {
+            throw new SerializationException("Length " + length + " exceeds remaining bytes");
+        }
+        return (int) length;
+    }
+
+    private void require(int bytes) {
+        if (position + bytes > data.length) {
+            throw new SerializationException("Unexpected end of binary event");
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.taxi.common.serde;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Append-only byte sink used by {@link EventCodec}s. Integers are written as zig-zag varints unless
+ * a fixed-width method is used; nullable values are prefixed with a presence flag.
+ */
+public final class BinaryWriter {
+    private byte[] buffer;
+    private int position;
+
+    public BinaryWriter(int initialCapacity) {
+        this.buffer = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    public BinaryWriter writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+        return this;
+    }
+
+    public BinaryWriter writeBoolean(boolean value) {
+        return writeByte(value ? 1 : 0);
+    }
+
+    public BinaryWriter writeVarLong(long value) {
+        long zigZag = (value << 1) ^ (value >> 63);
+        ensureCapacity(10);
+        while ((zigZag & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((zigZag & 0x7F) | 0x80);
+            zigZag >>>= 7;
+        }
+        buffer[position++] = (byte) zigZag;
+        return this;
+    }
+
+    public BinaryWriter writeFixedLong(long value) {
+        ensureCapacity(Long.BYTES);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (value >>> shift);
+        }
+        return this;
+    }
+
+    public BinaryWriter writeDouble(double value) {
+        return writeFixedLong(Double.doubleToRawLongBits(value));
+    }
+
+    public BinaryWriter writeNullableVarLong(Long value) {
+        writeBoolean(value != null);
+        return value != null ? writeVarLong(value) : this;
+    }
+
+    public BinaryWriter writeNullableDouble(Double value) {
+        writeBoolean(value != null);
+        return value != null ? writeDouble(value) : this;
+    }
+
+    public BinaryWriter writeString(String value) {
+        if (value == null) {
+            return writeVarLong(-1);
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+        return this;
+    }
+
+    public BinaryWriter writeDecimal(BigDecimal value) {
+        writeBoolean(value != null);
+        if (value == null) {
+            return this;
+        }
+        writeVarLong(value.scale());
+        if (value.unscaledValue().bitLength() < 64) {
+            writeBoolean(true);
+            return writeVarLong(value.unscaledValue().longValueExact());
+        }
+        writeBoolean(false);
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        writeVarLong(unscaled.length);
+        ensureCapacity(unscaled.length);
+        System.arraycopy(unscaled, 0, buffer, position, unscaled.length);
+        position += unscaled.length;
+        return this;
+    }
+
+    /**
+     * Writes a {@link LocalDateTime} as UTC epoch seconds and nanos, which round-trips it exactly.
+     */
+    public BinaryWriter writeDateTime(LocalDateTime value) {
+        writeBoolean(value != null);
+        if (value == null) {
+            return this;
+        }
+        writeVarLong(value.toEpochSecond(ZoneOffset.UTC));
+        return writeVarLong(value.getNano());
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void ensureCapacity(int additional) {
+        if (position + additional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + additional));
+        }
+    }
+}
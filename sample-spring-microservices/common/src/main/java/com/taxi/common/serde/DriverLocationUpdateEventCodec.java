@@ -0,0 +1,55 @@
+package com.taxi.common.serde;
+
+import com.taxi.common.event.DriverLocationUpdateEvent;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Fixed-width layout (driverId, latitude, longitude, epoch millis): location events are the
+ * highest-volume stream and fixed offsets keep them at 32 bytes plus the header.
+ */
+public class DriverLocationUpdateEventCodec implements EventCodec<DriverLocationUpdateEvent> {
+
+    @Override
+    public byte typeId() {
+        return 3;
+    }
+
+    @Override
+    public byte version() {
+        return 1;
+    }
+
+    @Override
+    public Class<DriverLocationUpdateEvent> eventType() {
+        return DriverLocationUpdateEvent.class;
+    }
+
+    @Override
+    public void write(DriverLocationUpdateEvent event, BinaryWriter out) {
+        if (event.getDriverId() == null || event.getLatitude() == null
+                || event.getLongitude() == null || event.getTimestamp() == null) {
+            throw new SerializationException("Driver location update event has missing fields: " + event);
+        }
+        out.writeFixedLong(event.getDriverId())
+                .writeDouble(event.getLatitude())
+                .writeDouble(event.getLongitude())
+                .writeFixedLong(event.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli());
+    }
+
+    @Override
+    public DriverLocationUpdateEvent read(BinaryReader in, byte version) {
+        if (version != 1) {
+            throw new SerializationException("Unsupported DriverLocationUpdateEvent version: " + version);
+        }
+        return new DriverLocationUpdateEvent(
+                in.readFixedLong(),
+                in.readDouble(),
+                in.readDouble(),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(in.readFixedLong()), ZoneOffset.UTC)
+        );
+    }
+}
@@ -0,0 +1,18 @@
+package com.taxi.common.serde;
+
+/**
+ * Binary schema of one event class. {@link #version()} is the schema written today; {@link #read}
+ * must keep accepting every older version still present on the topics.
+ */
+public interface EventCodec<T> {
+
+    byte typeId();
+
+    byte version();
+
+    Class<T> eventType();
+
+    void write(T event, BinaryWriter out);
+
+    T read(BinaryReader in, byte version);
+}
@@ -0,0 +1,53 @@
+package com.taxi.common.serde;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.util.List;
+
+/**
+ * Registry of the binary schemas of all events exchanged over Kafka.
+ */
+public final class EventCodecs {
+    /**
+     * First byte of every binary event; JSON payloads start with '{' so both can share a topic.
+     */
+    public static final byte MAGIC = (byte) 0xB7;
+    public static final int HEADER_SIZE = 3;
+
+    private static final List<EventCodec<?>> CODECS = List.of(
+            new TripCompletedEventCodec(),
+            new PaymentProcessedEventCodec(),
+            new DriverLocationUpdateEventCodec()
+    );
+    private static final EventCodec<?>[] BY_TYPE_ID = new EventCodec<?>[Byte.MAX_VALUE + 1];
+
+    static {
+        for (EventCodec<?> codec : CODECS) {
+            if (BY_TYPE_ID[codec.typeId()] != null) {
+                throw new IllegalStateException("Duplicate event type id " + codec.typeId());
+            }
+            BY_TYPE_ID[codec.typeId()] = codec;
+        }
+    }
+
+    private EventCodecs() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> EventCodec<T> forClass(Class<T> eventType) {
+        for (EventCodec<?> codec : CODECS) {
+            if (codec.eventType() == eventType) {
+                return (EventCodec<T>) codec;
+            }
+        }
+        throw new SerializationException("No binary codec registered for " + eventType.getName());
+    }
+
+    public static EventCodec<?> forTypeId(byte typeId) {
+        EventCodec<?> codec = typeId >= 0 ? BY_TYPE_ID[typeId] : null;
+        if (codec == null) {
+            throw new SerializationException("Unknown binary event type id " + typeId);
+        }
+        return codec;
+    }
+}
@@ -0,0 +1,49 @@
+package com.taxi.common.serde;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+
+/**
+ * Wire format of event payloads, selected per service with the {@code taxi.kafka.serde} property.
+ * It only decides what a service produces: consumers read both formats whatever the setting, so
+ * producers can switch to {@code binary} once every consumer of their topics runs this version.
+ * Until then services stay on the {@code json} default.
+ */
+public enum EventSerde {
+    JSON,
+    BINARY;
+
+    private static final String EVENT_PACKAGE = "com.taxi.common.event";
+
+    public static EventSerde from(String name) {
+        return valueOf(name.trim().toUpperCase());
+    }
+
+    public void configureProducer(Map<String, Object> props) {
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
+                this == BINARY ? BinaryEventSerializer.class : JsonSerializer.class);
+    }
+
+    /**
+     * Value serializer for payloads encoded outside of a producer, e.g. into the outbox table.
+     */
+    public Serializer<Object> serializer() {
+        return this == BINARY ? new BinaryEventSerializer() : new JsonSerializer<>();
+    }
+
+    /**
+     * Configures a deserializer that accepts both formats, so the consumer keeps working while its
+     * producers switch.
+     */
+    public void configureConsumer(Map<String, Object> props, Class<?> eventType) {
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, BinaryEventDeserializer.class);
+        // Used by the binary deserializer's JSON fallback
+        props.put(JsonDeserializer.TRUSTED_PACKAGES, EVENT_PACKAGE);
+        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, eventType.getName());
+    }
+}
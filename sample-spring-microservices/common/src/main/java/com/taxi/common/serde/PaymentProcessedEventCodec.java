@@ -0,0 +1,45 @@
+package com.taxi.common.serde;
+
+import com.taxi.common.event.PaymentProcessedEvent;
+import org.apache.kafka.common.errors.SerializationException;
+
+public class PaymentProcessedEventCodec implements EventCodec<PaymentProcessedEvent> {
+
+    @Override
+    public byte typeId() {
+        return 2;
+    }
+
+    @Override
+    public byte version() {
+        return 1;
+    }
+
+    @Override
+    public Class<PaymentProcessedEvent> eventType() {
+        return PaymentProcessedEvent.class;
+    }
+
+    @Override
+    public void write(PaymentProcessedEvent event, BinaryWriter out) {
+        out.writeNullableVarLong(event.getTripId())
+                .writeNullableVarLong(event.getUserId())
+                .writeDecimal(event.getAmount())
+                .writeBoolean(event.isSuccess())
+                .writeString(event.getTransactionId());
+    }
+
+    @Override
+    public PaymentProcessedEvent read(BinaryReader in, byte version) {
+        if (version != 1) {
+            throw new SerializationException("Unsupported PaymentProcessedEvent version: " + version);
+        }
+        return new PaymentProcessedEvent(
+                in.readNullableVarLong(),
+                in.readNullableVarLong(),
+                in.readDecimal(),
+                in.readBoolean(),
+                in.readString()
+        );
+    }
+}
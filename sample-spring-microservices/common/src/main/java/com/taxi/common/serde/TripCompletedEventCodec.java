@@ -0,0 +1,55 @@
+package com.taxi.common.serde;
+
+import com.taxi.common.event.TripCompletedEvent;
+import org.apache.kafka.common.errors.SerializationException;
+
+public class TripCompletedEventCodec implements EventCodec<TripCompletedEvent> {
+
+    @Override
+    public byte typeId() {
+        return 1;
+    }
+
+    @Override
+    public byte version() {
+        return 1;
+    }
+
+    @Override
+    public Class<TripCompletedEvent> eventType() {
+        return TripCompletedEvent.class;
+    }
+
+    @Override
+    public void write(TripCompletedEvent event, BinaryWriter out) {
+        out.writeNullableVarLong(event.getTripId())
+                .writeNullableVarLong(event.getUserId())
+                .writeNullableVarLong(event.getDriverId())
+                .writeString(event.getUserEmail())
+                .writeString(event.getPickupLocation())
+                .writeString(event.getDropoffLocation())
+                .writeDecimal(event.getCost())
+                .writeNullableDouble(event.getDistance())
+                .writeDateTime(event.getStartTime())
+                .writeDateTime(event.getEndTime());
+    }
+
+    @Override
+    public TripCompletedEvent read(BinaryReader in, byte version) {
+        if (version != 1) {
+            throw new SerializationException("Unsupported TripCompletedEvent version: " + version);
+        }
+        return new TripCompletedEvent(
+                in.readNullableVarLong(),
+                in.readNullableVarLong(),
+                in.readNullableVarLong(),
+                in.readString(),
+                in.readString(),
+                in.readString(),
+                in.readDecimal(),
+                in.readNullableDouble(),
+                in.readDateTime(),
+                in.readDateTime()
+        );
+    }
+}
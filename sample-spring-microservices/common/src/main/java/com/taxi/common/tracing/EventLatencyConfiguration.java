@@ -0,0 +1,18 @@
+package com.taxi.common.tracing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers {@link EventLatencyEndpoint}. Imported by the Kafka configuration of the services whose
+ * listeners record hop latencies through {@link EventLatencyInterceptor}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class EventLatencyConfiguration {
+
+    @Bean
+    public EventLatencyEndpoint eventLatencyEndpoint(MeterRegistry meterRegistry) {
+        return new EventLatencyEndpoint(meterRegistry);
+    }
+}
@@ -0,0 +1,57 @@
+package com.taxi.common.tracing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code /actuator/eventlatency}: p50, p99 and p99.9 in milliseconds of every hop recorded by
+ * {@link EventLatencyInterceptor}, over the timers' sliding window, with the total event count.
+ */
+@Endpoint(id = "eventlatency")
+public class EventLatencyEndpoint {
+    private final MeterRegistry meterRegistry;
+
+    public EventLatencyEndpoint(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @ReadOperation
+    public List<HopLatency> hops() {
+        return meterRegistry.find(EventLatencyInterceptor.METER).timers().stream()
+                .map(EventLatencyEndpoint::toHopLatency)
+                .sorted(Comparator.comparing(HopLatency::topic).thenComparing(HopLatency::group)
+                        .thenComparing(HopLatency::hop, Comparator.reverseOrder()))
+                .toList();
+    }
+
+    private static HopLatency toHopLatency(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        double p50 = 0;
+        double p99 = 0;
+        double p999 = 0;
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            double millis = value.value(TimeUnit.MILLISECONDS);
+            if (value.percentile() == 0.5) {
+                p50 = millis;
+            } else if (value.percentile() == 0.99) {
+                p99 = millis;
+            } else if (value.percentile() == 0.999) {
+                p999 = millis;
+            }
+        }
+        return new HopLatency(timer.getId().getTag("topic"), timer.getId().getTag("group"),
+                timer.getId().getTag("hop"), snapshot.count(), p50, p99, p999, snapshot.max(TimeUnit.MILLISECONDS));
+    }
+
+    public record HopLatency(String topic, String group, String hop, long count, double p50Ms, double p99Ms,
+                             double p999Ms, double maxMs) {
+    }
+}
@@ -0,0 +1,130 @@
+package com.taxi.common.tracing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.springframework.kafka.listener.BatchInterceptor;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records, per topic and consumer group, how long events took from being produced to being handed
+ * to the listener ({@code hop=produce-to-consume}) and how long the listener took to handle them
+ * ({@code hop=consume-to-done}), in the {@code kafka.event.latency} timer. The timers publish
+ * p50, p99 and p99.9 from Micrometer's HdrHistogram-based sliding window; see
+ * {@link EventLatencyEndpoint}. A batch's handling time is recorded once per event in it.
+ *
+ * <p>Also binds the consumed events' traces to the {@link EventTraceContext} while the listener
+ * runs. Produce-to-consume compares wall clocks of two hosts, so clock skew shows up in it;
+ * negative values are recorded as zero.
+ */
+public class EventLatencyInterceptor<K, V> implements RecordInterceptor<K, V>, BatchInterceptor<K, V> {
+    public static final String METER = "kafka.event.latency";
+    public static final String PRODUCE_TO_CONSUME = "produce-to-consume";
+    public static final String CONSUME_TO_DONE = "consume-to-done";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Hop, Timer> timers = new ConcurrentHashMap<>();
+    private final ThreadLocal<long[]> startNanos = ThreadLocal.withInitial(() -> new long[1]);
+
+    public EventLatencyInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ConsumerRecord<K, V> intercept(ConsumerRecord<K, V> record, Consumer<K, V> consumer) {
+        EventTrace trace = EventTrace.from(record.headers(), record.timestamp());
+        recordProduceToConsume(record.topic(), groupId(consumer), trace, Instant.now());
+        EventTraceContext.bind(record.value(), trace);
+        startNanos.get()[0] = System.nanoTime();
+        return record;
+    }
+
+    @Override
+    public void success(ConsumerRecord<K, V> record, Consumer<K, V> consumer) {
+        recordDone(record, consumer);
+    }
+
+    @Override
+    public void failure(ConsumerRecord<K, V> record, Exception exception, Consumer<K, V> consumer) {
+        recordDone(record, consumer);
+    }
+
+    @Override
+    public void afterRecord(ConsumerRecord<K, V> record, Consumer<K, V> consumer) {
+        EventTraceContext.clear();
+    }
+
+    @Override
+    public ConsumerRecords<K, V> intercept(ConsumerRecords<K, V> records, Consumer<K, V> consumer) {
+        String groupId = groupId(consumer);
+        Instant now = Instant.now();
+        Map<Object, EventTrace> traces = new IdentityHashMap<>(records.count());
+        for (ConsumerRecord<K, V> record : records) {
+            EventTrace trace = EventTrace.from(record.headers(), record.timestamp());
+            recordProduceToConsume(record.topic(), groupId, trace, now);
+            traces.put(record.value(), trace);
+        }
+        EventTraceContext.bind(traces);
+        startNanos.get()[0] = System.nanoTime();
+        return records;
+    }
+
+    @Override
+    public void success(ConsumerRecords<K, V> records, Consumer<K, V> consumer) {
+        recordDone(records, consumer);
+    }
+
+    @Override
+    public void failure(ConsumerRecords<K, V> records, Exception exception, Consumer<K, V> consumer) {
+        recordDone(records, consumer);
+    }
+
+    @Override
+    public void clearThreadState(Consumer<?, ?> consumer) {
+        EventTraceContext.clear();
+    }
+
+    private void recordDone(ConsumerRecord<K, V> record, Consumer<K, V> consumer) {
+        long elapsed = System.nanoTime() - startNanos.get()[0];
+        timer(record.topic(), groupId(consumer), CONSUME_TO_DONE).record(elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    private void recordDone(ConsumerRecords<K, V> records, Consumer<K, V> consumer) {
+        long elapsed = System.nanoTime() - startNanos.get()[0];
+        String groupId = groupId(consumer);
+        for (ConsumerRecord<K, V> record : records) {
+            timer(record.topic(), groupId, CONSUME_TO_DONE).record(elapsed, TimeUnit.NANOSECONDS);
+        }
+        EventTraceContext.clear();
+    }
+
+    private void recordProduceToConsume(String topic, String groupId, EventTrace trace, Instant now) {
+        Duration latency = Duration.between(trace.producedAt(), now);
+        timer(topic, groupId, PRODUCE_TO_CONSUME).record(latency.isNegative() ? Duration.ZERO : latency);
+    }
+
+    private Timer timer(String topic, String groupId, String hop) {
+        return timers.computeIfAbsent(new Hop(topic, groupId, hop), key -> Timer.builder(METER)
+                .description("Latency of Kafka events, from produce to consume and from consume to handled")
+                .tags("topic", key.topic(), "group", key.groupId(), "hop", key.hop())
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .percentilePrecision(2)
+                .register(meterRegistry));
+    }
+
+    private static String groupId(Consumer<?, ?> consumer) {
+        return consumer.groupMetadata().groupId();
+    }
+
+    private record Hop(String topic, String groupId, String hop) {
+    }
+}
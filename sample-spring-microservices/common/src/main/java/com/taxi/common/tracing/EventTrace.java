@@ -0,0 +1,56 @@
+package com.taxi.common.tracing;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Trace id and produce time of an event, carried in Kafka record headers so that every serde and
+ * event schema version carries them unchanged. The trace id is minted where a flow starts, e.g. when
+ * a trip is completed, and copied onto the events produced while handling it, so the trip
+ * completed event and the payment processed event of one trip share it. The produce time is the
+ * moment the event was created, not when it was sent, so a consumer's produce-to-consume latency
+ * includes time spent in the outbox.
+ */
+public record EventTrace(String traceId, Instant producedAt) {
+    public static final String TRACE_ID_HEADER = "taxi-trace-id";
+    /** Epoch microseconds, 8 bytes big-endian. */
+    public static final String PRODUCED_AT_HEADER = "taxi-produced-at";
+
+    /**
+     * A new random 128-bit trace id as 32 hex digits, the format of W3C trace context.
+     */
+    public static String newTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return HexFormat.of().toHexDigits(random.nextLong()) + HexFormat.of().toHexDigits(random.nextLong());
+    }
+
+    /**
+     * Reads the trace of a consumed record. Records from producers that do not stamp events have
+     * no trace id, and their Kafka timestamp stands in for the produce time.
+     */
+    public static EventTrace from(Headers headers, long recordTimestampMs) {
+        Header traceId = headers.lastHeader(TRACE_ID_HEADER);
+        Header producedAt = headers.lastHeader(PRODUCED_AT_HEADER);
+        return new EventTrace(
+                traceId == null ? null : new String(traceId.value(), StandardCharsets.US_ASCII),
+                producedAt == null || producedAt.value().length != Long.BYTES
+                        ? Instant.ofEpochMilli(recordTimestampMs)
+                        : Instant.EPOCH.plus(ByteBuffer.wrap(producedAt.value()).getLong(), ChronoUnit.MICROS));
+    }
+
+    public void writeTo(Headers headers) {
+        headers.remove(TRACE_ID_HEADER).remove(PRODUCED_AT_HEADER);
+        if (traceId != null) {
+            headers.add(TRACE_ID_HEADER, traceId.getBytes(StandardCharsets.US_ASCII));
+        }
+        long micros = ChronoUnit.MICROS.between(Instant.EPOCH, producedAt);
+        headers.add(PRODUCED_AT_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(micros).array());
+    }
+}
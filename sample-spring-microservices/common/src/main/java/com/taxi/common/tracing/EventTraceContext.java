@@ -0,0 +1,51 @@
+package com.taxi.common.tracing;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * The traces of the records a listener thread is handling, bound by {@link EventLatencyInterceptor}
+ * for the duration of the listener call. Lets code producing events in response look up the trace
+ * id to continue without the listener having to take Kafka records or headers.
+ */
+public final class EventTraceContext {
+    private static final ThreadLocal<Map<Object, EventTrace>> CURRENT = new ThreadLocal<>();
+
+    private EventTraceContext() {
+    }
+
+    /**
+     * Trace id of the consumed event, or {@code null} when the event was not received by the
+     * current listener call or carried no trace id.
+     */
+    public static String traceIdOf(Object event) {
+        Map<Object, EventTrace> traces = CURRENT.get();
+        EventTrace trace = traces == null ? null : traces.get(event);
+        return trace == null ? null : trace.traceId();
+    }
+
+    /**
+     * Trace id of the only event of a record listener call, or {@code null} outside of one.
+     */
+    public static String currentTraceId() {
+        Map<Object, EventTrace> traces = CURRENT.get();
+        if (traces == null || traces.size() != 1) {
+            return null;
+        }
+        return traces.values().iterator().next().traceId();
+    }
+
+    static void bind(Map<Object, EventTrace> traces) {
+        CURRENT.set(traces);
+    }
+
+    static void bind(Object event, EventTrace trace) {
+        Map<Object, EventTrace> traces = new IdentityHashMap<>(2);
+        traces.put(event, trace);
+        CURRENT.set(traces);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,37 @@
+package com.taxi.common.tracing;
+
+import org.apache.kafka.clients.producer.ProducerInterceptor;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Stamps records sent directly through a producer with a new {@link EventTrace}: a fresh trace id
+ * and the send time as produce time. Records already carrying a produce time, such as those relayed
+ * from the outbox, are left as they are. Enabled with
+ * {@code interceptor.classes=com.taxi.common.tracing.EventTraceProducerInterceptor}.
+ */
+public class EventTraceProducerInterceptor implements ProducerInterceptor<Object, Object> {
+
+    @Override
+    public ProducerRecord<Object, Object> onSend(ProducerRecord<Object, Object> record) {
+        if (record.headers().lastHeader(EventTrace.PRODUCED_AT_HEADER) == null) {
+            new EventTrace(EventTrace.newTraceId(), Instant.now()).writeTo(record.headers());
+        }
+        return record;
+    }
+
+    @Override
+    public void onAcknowledgement(RecordMetadata metadata, Exception exception) {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+    }
+}
@@ -0,0 +1,61 @@
+package com.taxi.common.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyPolicyTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final int PARTITIONS = 6;
+
+    // Up above 1000 per consumer for 2 checks, down below 100 for 3 checks, 30 s cooldown, 1..4 consumers
+    private final ConcurrencyPolicy policy = new ConcurrencyPolicy(new AdaptiveConcurrencySettings(
+            1, 4, Duration.ofSeconds(10), 1_000, 100, 2, 3, Duration.ofSeconds(30)));
+
+    @Test
+    void shouldScaleUpToWhatTheLagNeedsAfterConsecutiveChecks() {
+        assertThat(policy.decide(1, 2_500, PARTITIONS, 0)).isEqualTo(1);
+        assertThat(policy.decide(1, 2_500, PARTITIONS, 10 * SECOND)).isEqualTo(3);
+    }
+
+    @Test
+    void shouldNotExceedMaximumOrPartitionCount() {
+        policy.decide(1, 50_000, PARTITIONS, 0);
+        assertThat(policy.decide(1, 50_000, PARTITIONS, 10 * SECOND)).isEqualTo(4);
+
+        ConcurrencyPolicy wide = new ConcurrencyPolicy(new AdaptiveConcurrencySettings(
+                1, 16, Duration.ofSeconds(10), 1_000, 100, 1, 3, Duration.ZERO));
+        assertThat(wide.decide(1, 50_000, PARTITIONS, 0)).isEqualTo(PARTITIONS);
+        assertThat(wide.decide(8, 50_000, PARTITIONS, SECOND)).isEqualTo(PARTITIONS);
+    }
+
+    @Test
+    void shouldHoldInsideHysteresisBandAndDuringCooldown() {
+        policy.decide(1, 5_000, PARTITIONS, 0);
+        assertThat(policy.decide(1, 5_000, PARTITIONS, 10 * SECOND)).isEqualTo(4);
+
+        // Drained right away, but the group just rebalanced
+        assertThat(policy.decide(4, 0, PARTITIONS, 20 * SECOND)).isEqualTo(4);
+        // Between the thresholds: nothing to do however long it lasts
+        for (int i = 0; i < 10; i++) {
+            assertThat(policy.decide(4, 4 * 500, PARTITIONS, (50 + 10 * i) * SECOND)).isEqualTo(4);
+        }
+    }
+
+    @Test
+    void shouldScaleDownOneConsumerAtATime() {
+        assertThat(policy.decide(4, 0, PARTITIONS, 0)).isEqualTo(4);
+        assertThat(policy.decide(4, 0, PARTITIONS, 10 * SECOND)).isEqualTo(4);
+        assertThat(policy.decide(4, 0, PARTITIONS, 20 * SECOND)).isEqualTo(3);
+
+        // A busy check in between restarts the count
+        policy.decide(3, 0, PARTITIONS, 60 * SECOND);
+        policy.decide(3, 3 * 500, PARTITIONS, 70 * SECOND);
+        policy.decide(3, 0, PARTITIONS, 80 * SECOND);
+        assertThat(policy.decide(3, 0, PARTITIONS, 90 * SECOND)).isEqualTo(3);
+        assertThat(policy.decide(3, 0, PARTITIONS, 100 * SECOND)).isEqualTo(2);
+    }
+}
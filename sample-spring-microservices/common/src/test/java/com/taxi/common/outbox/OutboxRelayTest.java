@@ -0,0 +1,88 @@
+package com.taxi.common.outbox;
+
+import com.taxi.common.tracing.EventTrace;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTest {
+
+    private final OutboxStore store = mock(OutboxStore.class);
+    private final KafkaTemplate<String, byte[]> kafkaTemplate = mock();
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OutboxRelay relay = new OutboxRelay(store, kafkaTemplate, new TransactionTemplate(transactionManager),
+            meterRegistry, 100, Duration.ofMillis(100), Duration.ofSeconds(1));
+
+    @Test
+    void shouldPublishWholeBatchBeforeDeletingIt() {
+        List<OutboxRecord> batch = List.of(record(1, "1"), record(2, "2"), record(3, "1"));
+        when(store.lockBatch(100)).thenReturn(batch);
+        when(kafkaTemplate.send(ArgumentMatchers.<ProducerRecord<String, byte[]>>any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        assertThat(relay.relayBatch()).isEqualTo(3);
+
+        ArgumentCaptor<ProducerRecord<String, byte[]>> sent = ArgumentCaptor.captor();
+        verify(kafkaTemplate, times(3)).send(sent.capture());
+        EventTrace trace = EventTrace.from(sent.getAllValues().get(0).headers(), 0);
+        assertThat(trace.traceId()).isEqualTo("trace-1");
+        assertThat(trace.producedAt()).isEqualTo(batch.get(0).createdAt());
+
+        verify(kafkaTemplate).flush();
+        verify(store).delete(batch);
+        verify(transactionManager).commit(any());
+        assertThat(meterRegistry.get("outbox.relay.events").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("outbox.relay.lag").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldKeepRowsWhenPublishFails() {
+        when(store.lockBatch(anyInt())).thenReturn(List.of(record(1, "1"), record(2, "2")));
+        when(kafkaTemplate.send(ArgumentMatchers.<ProducerRecord<String, byte[]>>any()))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        assertThatThrownBy(relay::relayBatch).isInstanceOf(IllegalStateException.class);
+
+        verify(store, never()).delete(any());
+        verify(transactionManager).rollback(any());
+        assertThat(meterRegistry.get("outbox.relay.events").counter().count()).isZero();
+    }
+
+    @Test
+    void shouldDoNothingWhenOutboxIsEmpty() {
+        when(store.lockBatch(anyInt())).thenReturn(List.of());
+
+        assertThat(relay.relayBatch()).isZero();
+
+        verify(kafkaTemplate, never()).flush();
+        verify(store, never()).delete(any());
+    }
+
+    private static OutboxRecord record(long id, String key) {
+        return new OutboxRecord(id, "trip-completed", key, new byte[]{1, 2, 3},
+                Instant.now().minusMillis(50).truncatedTo(ChronoUnit.MICROS), "trace-" + id);
+    }
+}
@@ -0,0 +1,61 @@
+package com.taxi.common.security;
+
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InternalPrincipalAuthenticationFilterTest {
+
+    private final InternalPrincipalCodec codec = new InternalPrincipalCodec("0123456789abcdef0123456789abcdef");
+    private final InternalPrincipalAuthenticationFilter filter = new InternalPrincipalAuthenticationFilter(codec);
+
+    @Test
+    void shouldAuthenticateWithForwardedClaims() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/42");
+        request.addHeader(InternalPrincipalCodec.HEADER, codec.encode(new InternalPrincipal("rider@example.com",
+                List.of("ROLE_USER"), Map.of("user_id", 42L), Instant.now().plusSeconds(60))));
+        AtomicReference<Authentication> seen = new AtomicReference<>();
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest req, ServletResponse res) {
+                seen.set(SecurityContextHolder.getContext().getAuthentication());
+            }
+        });
+
+        JwtAuthenticationToken authentication = (JwtAuthenticationToken) seen.get();
+        assertThat(authentication.getName()).isEqualTo("rider@example.com");
+        assertThat(authentication.getToken().getClaims()).containsEntry("user_id", 42L);
+        assertThat(authentication.getAuthorities()).extracting("authority").containsExactly("ROLE_USER");
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    void shouldRejectInvalidHeaderAndIgnoreMissingOne() throws Exception {
+        MockHttpServletRequest forged = new MockHttpServletRequest("GET", "/api/users/42");
+        forged.addHeader(InternalPrincipalCodec.HEADER, "e30.c2lnbmF0dXJl");
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        MockFilterChain rejectedChain = new MockFilterChain();
+        filter.doFilter(forged, rejected, rejectedChain);
+
+        MockFilterChain anonymousChain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/users/42"), new MockHttpServletResponse(), anonymousChain);
+
+        assertThat(rejected.getStatus()).isEqualTo(401);
+        assertThat(rejectedChain.getRequest()).isNull();
+        assertThat(anonymousChain.getRequest()).isNotNull();
+    }
+}
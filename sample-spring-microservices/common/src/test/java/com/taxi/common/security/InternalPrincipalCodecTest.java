@@ -0,0 +1,44 @@
+package com.taxi.common.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InternalPrincipalCodecTest {
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+    private static final Instant NOW = Instant.parse("2024-05-01T10:00:00Z");
+
+    private final InternalPrincipalCodec codec = new InternalPrincipalCodec(SECRET);
+    private final InternalPrincipal principal = new InternalPrincipal("rider@example.com",
+            List.of("ROLE_USER"), Map.of("user_id", 42L), NOW.plusSeconds(300));
+
+    @Test
+    void shouldRoundTripPrincipal() {
+        InternalPrincipal decoded = codec.decode(codec.encode(principal), NOW);
+
+        assertThat(decoded).isEqualTo(principal);
+    }
+
+    @Test
+    void shouldRejectTamperedForeignAndExpiredHeaders() {
+        String header = codec.encode(principal);
+        String forged = new InternalPrincipalCodec(SECRET.replace('0', 'x')).encode(principal);
+        // Changes the payload, e.g. the expiry, and keeps the signature
+        String tampered = header.substring(0, 2) + (header.charAt(2) == 'A' ? 'B' : 'A') + header.substring(3);
+
+        assertThatThrownBy(() -> codec.decode(forged, NOW)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> codec.decode(tampered, NOW)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> codec.decode("garbage", NOW)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> codec.decode(header, NOW.plusSeconds(300))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRequireLongSecret() {
+        assertThatThrownBy(() -> new InternalPrincipalCodec("short")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
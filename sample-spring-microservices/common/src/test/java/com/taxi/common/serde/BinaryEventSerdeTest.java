@@ -0,0 +1,108 @@
+package com.taxi.common.serde;
+
+import com.taxi.common.event.DriverLocationUpdateEvent;
+import com.taxi.common.event.PaymentProcessedEvent;
+import com.taxi.common.event.TripCompletedEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryEventSerdeTest {
+
+    private final BinaryEventSerializer serializer = new BinaryEventSerializer();
+    private final BinaryEventDeserializer deserializer = deserializer(TripCompletedEvent.class);
+
+    @Test
+    void shouldRoundTripAllEvents() {
+        TripCompletedEvent trip = new TripCompletedEvent(42L, 7L, 9L, "user@example.com",
+                "Main St 1", "Żurawia 5", new BigDecimal("27.35"), 12.4,
+                LocalDateTime.of(2024, 5, 1, 10, 15, 30, 123_456_789), LocalDateTime.of(2024, 5, 1, 10, 45));
+        TripCompletedEvent partialTrip = new TripCompletedEvent(43L, 7L, null, null,
+                "A", "B", null, null, LocalDateTime.of(2024, 5, 1, 11, 0), null);
+        PaymentProcessedEvent payment = new PaymentProcessedEvent(42L, 7L,
+                new BigDecimal("123456789012345678901234.5678"), true, "TXN-1");
+        DriverLocationUpdateEvent location = new DriverLocationUpdateEvent(5L, 40.7128, -74.0060,
+                LocalDateTime.of(2024, 5, 1, 10, 15, 30, 250_000_000));
+
+        assertThat(roundTrip(trip)).isEqualTo(trip);
+        assertThat(roundTrip(partialTrip)).isEqualTo(partialTrip);
+        assertThat(roundTrip(payment)).isEqualTo(payment);
+        assertThat(roundTrip(location)).isEqualTo(location);
+    }
+
+    @Test
+    void shouldKeepDriverLocationWireFormatCompact() {
+        byte[] data = serializer.serialize("topic", new DriverLocationUpdateEvent(5L, 40.7128, -74.0060,
+                LocalDateTime.of(2024, 5, 1, 10, 15, 30)));
+
+        assertThat(data).hasSize(EventCodecs.HEADER_SIZE + 32);
+        assertThat(data[0]).isEqualTo(EventCodecs.MAGIC);
+        assertThat(data[1]).isEqualTo((byte) 3);
+        assertThat(data[2]).isEqualTo((byte) 1);
+    }
+
+    @Test
+    void shouldFallBackToJsonPayloads() {
+        TripCompletedEvent trip = new TripCompletedEvent(42L, 7L, 9L, "user@example.com",
+                "A", "B", new BigDecimal("10.00"), 3.0, null, null);
+        byte[] json;
+        try (JsonSerializer<TripCompletedEvent> jsonSerializer = new JsonSerializer<>()) {
+            json = jsonSerializer.serialize("topic", trip);
+        }
+
+        assertThat(deserializer.deserialize("topic", json)).isEqualTo(trip);
+    }
+
+    @Test
+    void shouldReadBothFormatsWithEitherSerde() {
+        PaymentProcessedEvent payment = new PaymentProcessedEvent(42L, 7L, new BigDecimal("10.00"), true, "TXN-1");
+        BinaryEventDeserializer jsonConsumer = deserializer(EventSerde.JSON, PaymentProcessedEvent.class);
+
+        for (EventSerde producer : EventSerde.values()) {
+            try (Serializer<Object> producerSerializer = producer.serializer()) {
+                assertThat(jsonConsumer.deserialize("topic", producerSerializer.serialize("topic", payment)))
+                        .isEqualTo(payment);
+            }
+        }
+    }
+
+    @Test
+    void shouldRejectUnknownTypesAndTruncatedPayloads() {
+        byte[] data = serializer.serialize("topic", new PaymentProcessedEvent(1L, 2L, BigDecimal.ONE, false, "TXN"));
+        byte[] truncated = new byte[data.length - 2];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+
+        assertThatThrownBy(() -> deserializer.deserialize("topic", truncated))
+                .isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> deserializer.deserialize("topic", new byte[]{EventCodecs.MAGIC, 99, 1}))
+                .isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> serializer.serialize("topic", "not an event"))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    private Object roundTrip(Object event) {
+        return deserializer.deserialize("topic", serializer.serialize("topic", event));
+    }
+
+    private static BinaryEventDeserializer deserializer(Class<?> defaultType) {
+        return deserializer(EventSerde.BINARY, defaultType);
+    }
+
+    private static BinaryEventDeserializer deserializer(EventSerde serde, Class<?> defaultType) {
+        Map<String, Object> props = new HashMap<>();
+        serde.configureConsumer(props, defaultType);
+        BinaryEventDeserializer deserializer = new BinaryEventDeserializer();
+        deserializer.configure(props, false);
+        return deserializer;
+    }
+}
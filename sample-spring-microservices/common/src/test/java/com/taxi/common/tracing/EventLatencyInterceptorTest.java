@@ -0,0 +1,99 @@
+package com.taxi.common.tracing;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EventLatencyInterceptorTest {
+    private static final String TOPIC = "trip-completed";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final EventLatencyInterceptor<String, Object> interceptor = new EventLatencyInterceptor<>(meterRegistry);
+    @SuppressWarnings("unchecked")
+    private final Consumer<String, Object> consumer = mock(Consumer.class);
+
+    EventLatencyInterceptorTest() {
+        when(consumer.groupMetadata()).thenReturn(new ConsumerGroupMetadata("payment-service"));
+    }
+
+    @Test
+    void shouldRecordHopsAndBindTraceOfRecord() {
+        Object event = new Object();
+        ConsumerRecord<String, Object> record = record(event, "trace-1", Instant.now().minusMillis(200));
+
+        interceptor.intercept(record, consumer);
+        assertThat(EventTraceContext.traceIdOf(event)).isEqualTo("trace-1");
+        assertThat(EventTraceContext.currentTraceId()).isEqualTo("trace-1");
+        interceptor.success(record, consumer);
+        interceptor.afterRecord(record, consumer);
+
+        assertThat(EventTraceContext.currentTraceId()).isNull();
+        assertThat(timer(EventLatencyInterceptor.PRODUCE_TO_CONSUME).max(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(200);
+        assertThat(timer(EventLatencyInterceptor.CONSUME_TO_DONE).count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldBindTraceOfEveryEventOfBatch() {
+        Object first = new Object();
+        Object second = new Object();
+        Object untraced = new Object();
+        ConsumerRecord<String, Object> plain = new ConsumerRecord<>(TOPIC, 0, 2, "3", untraced);
+        ConsumerRecords<String, Object> records = new ConsumerRecords<>(Map.of(new TopicPartition(TOPIC, 0), List.of(
+                record(first, "trace-1", Instant.now()), record(second, "trace-2", Instant.now()), plain)));
+
+        interceptor.intercept(records, consumer);
+        assertThat(EventTraceContext.traceIdOf(first)).isEqualTo("trace-1");
+        assertThat(EventTraceContext.traceIdOf(second)).isEqualTo("trace-2");
+        assertThat(EventTraceContext.traceIdOf(untraced)).isNull();
+        assertThat(EventTraceContext.currentTraceId()).isNull();
+        interceptor.failure(records, new IllegalStateException("failed"), consumer);
+
+        assertThat(EventTraceContext.traceIdOf(first)).isNull();
+        assertThat(timer(EventLatencyInterceptor.PRODUCE_TO_CONSUME).count()).isEqualTo(3);
+        assertThat(timer(EventLatencyInterceptor.CONSUME_TO_DONE).count()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldPublishPercentiles() {
+        for (int i = 0; i < 10; i++) {
+            ConsumerRecord<String, Object> record = record(new Object(), "trace-" + i, Instant.now());
+            interceptor.intercept(record, consumer);
+            interceptor.success(record, consumer);
+            interceptor.afterRecord(record, consumer);
+        }
+
+        List<EventLatencyEndpoint.HopLatency> hops = new EventLatencyEndpoint(meterRegistry).hops();
+
+        assertThat(hops).extracting(EventLatencyEndpoint.HopLatency::hop)
+                .containsExactly(EventLatencyInterceptor.PRODUCE_TO_CONSUME, EventLatencyInterceptor.CONSUME_TO_DONE);
+        assertThat(hops).allSatisfy(hop -> {
+            assertThat(hop.topic()).isEqualTo(TOPIC);
+            assertThat(hop.group()).isEqualTo("payment-service");
+            assertThat(hop.count()).isEqualTo(10);
+        });
+    }
+
+    private Timer timer(String hop) {
+        return meterRegistry.get(EventLatencyInterceptor.METER).tags("topic", TOPIC, "hop", hop).timer();
+    }
+
+    private static ConsumerRecord<String, Object> record(Object event, String traceId, Instant producedAt) {
+        ConsumerRecord<String, Object> record = new ConsumerRecord<>(TOPIC, 0, 1, "1", event);
+        new EventTrace(traceId, producedAt).writeTo(record.headers());
+        return record;
+    }
+}
@@ -1,6 +1,8 @@
 package com.taxi.driver.config;
 
 import com.taxi.common.event.DriverLocationUpdateEvent;
+import com.taxi.common.serde.EventSerde;
+import com.taxi.common.tracing.EventTraceProducerInterceptor;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,7 +11,6 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -20,12 +21,30 @@ public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${taxi.kafka.serde:json}")
+    private String serde;
+
+    @Value("${driver.kafka.producer.linger-ms:20}")
+    private int lingerMs;
+
+    @Value("${driver.kafka.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${driver.kafka.producer.compression-type:lz4}")
+    private String compressionType;
+
     @Bean
     public ProducerFactory<String, DriverLocationUpdateEvent> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        EventSerde.from(serde).configureProducer(configProps);
+        // High-throughput profile: wait briefly to fill large batches and compress them as a whole
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        // Produce time and trace id headers for the consumers' latency metrics
+        configProps.put(ProducerConfig.INTERCEPTOR_CLASSES_CONFIG, EventTraceProducerInterceptor.class.getName());
         return new DefaultKafkaProducerFactory<>(configProps);
     }
 
@@ -3,19 +3,27 @@ package com.taxi.driver.controller;
 import com.taxi.driver.dto.DriverRegistrationRequest;
 import com.taxi.driver.dto.DriverResponse;
 import com.taxi.driver.dto.LocationUpdateRequest;
+import com.taxi.driver.dto.NearbyDriverResponse;
 import com.taxi.driver.service.DriverService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/drivers")
 @RequiredArgsConstructor
 public class DriverController {
+    private static final double MAX_NEARBY_RADIUS_KM = 50;
+    private static final int MAX_NEARBY_LIMIT = 100;
+    // Shared caches only (the gateway); short because the profile includes the current location
+    private static final CacheControl PROFILE_CACHE_CONTROL = CacheControl.empty().sMaxAge(Duration.ofSeconds(5));
+
     private final DriverService driverService;
 
     @PostMapping("/register")
@@ -46,9 +54,23 @@ public class DriverController {
         return ResponseEntity.ok(drivers);
     }
 
+    @GetMapping("/nearby")
+    public ResponseEntity<List<NearbyDriverResponse>> getNearbyDrivers(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(defaultValue = "5") double radiusKm,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180 || radiusKm <= 0 || radiusKm > MAX_NEARBY_RADIUS_KM
+                || limit <= 0 || limit > MAX_NEARBY_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<NearbyDriverResponse> drivers = driverService.getNearbyDrivers(lat, lon, radiusKm, limit);
+        return ResponseEntity.ok(drivers);
+    }
+
     @GetMapping("/{driverId}")
     public ResponseEntity<DriverResponse> getDriverById(@PathVariable Long driverId) {
         DriverResponse response = driverService.getDriverById(driverId);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().cacheControl(PROFILE_CACHE_CONTROL).body(response);
     }
 }
@@ -0,0 +1,15 @@
+package com.taxi.driver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyDriverResponse {
+    private Long driverId;
+    private Double latitude;
+    private Double longitude;
+    private Double distanceKm;
+}
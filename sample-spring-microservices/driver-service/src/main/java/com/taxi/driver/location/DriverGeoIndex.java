@@ -0,0 +1,149 @@
+package com.taxi.driver.location;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory grid index of active driver positions.
+ * The globe is cut into cells of roughly {@code cellSizeKm} along a meridian; a query only
+ * visits the cells overlapping the bounding box of the search circle.
+ */
+@Component
+public class DriverGeoIndex {
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180.0;
+
+    private final double cellSizeDegrees;
+    private final Map<Long, Position> positions = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+
+    public DriverGeoIndex(@Value("${driver.geo-index.cell-size-km:1.0}") double cellSizeKm) {
+        if (cellSizeKm <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.cellSizeDegrees = cellSizeKm / KM_PER_DEGREE;
+    }
+
+    public void update(long driverId, double latitude, double longitude) {
+        long cell = cellOf(latitude, longitude);
+        // compute() serializes updates of the same driver so it can never sit in two cells
+        positions.compute(driverId, (id, previous) -> {
+            if (previous != null && previous.cell() != cell) {
+                leaveCell(previous.cell(), id);
+            }
+            if (previous == null || previous.cell() != cell) {
+                cells.computeIfAbsent(cell, key -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+            return new Position(id, latitude, longitude, cell);
+        });
+    }
+
+    public void remove(long driverId) {
+        positions.computeIfPresent(driverId, (id, previous) -> {
+            leaveCell(previous.cell(), id);
+            return null;
+        });
+    }
+
+    public boolean contains(long driverId) {
+        return positions.containsKey(driverId);
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    /**
+     * Returns up to {@code limit} indexed drivers within {@code radiusKm} of the given point,
+     * closest first.
+     */
+    public List<Match> findNearby(double latitude, double longitude, double radiusKm, int limit) {
+        if (limit <= 0 || radiusKm <= 0) {
+            return List.of();
+        }
+        double latSpan = radiusKm / KM_PER_DEGREE;
+        double cosLat = Math.max(Math.cos(Math.toRadians(Math.min(Math.abs(latitude) + latSpan, 90.0))), 1e-6);
+        double lonSpan = Math.min(radiusKm / (KM_PER_DEGREE * cosLat), 180.0);
+
+        int minLatCell = cellIndex(Math.max(latitude - latSpan, -90.0));
+        int maxLatCell = cellIndex(Math.min(latitude + latSpan, 90.0));
+        int minLonCell = cellIndex(longitude - lonSpan);
+        int maxLonCell = cellIndex(longitude + lonSpan);
+        int lonCellsAround = cellIndex(180.0) - cellIndex(-180.0);
+        if (maxLonCell - minLonCell + 1 > lonCellsAround) {
+            maxLonCell = minLonCell + lonCellsAround - 1;
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (int latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+            for (int lonCell = minLonCell; lonCell <= maxLonCell; lonCell++) {
+                long cell = cellKey(latCell, wrapLonCell(lonCell));
+                Set<Long> driverIds = cells.get(cell);
+                if (driverIds == null) {
+                    continue;
+                }
+                for (Long driverId : driverIds) {
+                    Position position = positions.get(driverId);
+                    // Skip drivers that moved to another cell since the set was read
+                    if (position == null || position.cell() != cell) {
+                        continue;
+                    }
+                    double distance = distanceKm(latitude, longitude, position.latitude(), position.longitude());
+                    if (distance <= radiusKm) {
+                        matches.add(new Match(driverId, position.latitude(), position.longitude(), distance));
+                    }
+                }
+            }
+        }
+
+        matches.sort(Comparator.comparingDouble(Match::distanceKm));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    private void leaveCell(long cell, long driverId) {
+        cells.computeIfPresent(cell, (key, driverIds) -> {
+            driverIds.remove(driverId);
+            return driverIds.isEmpty() ? null : driverIds;
+        });
+    }
+
+    private long cellOf(double latitude, double longitude) {
+        return cellKey(cellIndex(latitude), wrapLonCell(cellIndex(longitude)));
+    }
+
+    private int cellIndex(double degrees) {
+        return (int) Math.floor(degrees / cellSizeDegrees);
+    }
+
+    private int wrapLonCell(int lonCell) {
+        int min = cellIndex(-180.0);
+        int count = cellIndex(180.0) - min;
+        return Math.floorMod(lonCell - min, count) + min;
+    }
+
+    private static long cellKey(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xFFFFFFFFL);
+    }
+
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        return 2 * EARTH_RADIUS_KM * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    private record Position(long driverId, double latitude, double longitude, long cell) {
+    }
+
+    public record Match(long driverId, double latitude, double longitude, double distanceKm) {
+    }
+}
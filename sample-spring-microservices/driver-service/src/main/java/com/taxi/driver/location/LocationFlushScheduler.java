@@ -0,0 +1,70 @@
+package com.taxi.driver.location;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Periodically upserts buffered driver positions into {@code driver_locations} using JDBC batches.
+ */
+@Component
+@ConditionalOnProperty(name = "driver.location.write-behind.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class LocationFlushScheduler {
+    private static final String UPSERT_SQL = """
+            INSERT INTO driver_locations (driver_id, latitude, longitude, timestamp)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (driver_id) DO UPDATE
+            SET latitude = EXCLUDED.latitude, longitude = EXCLUDED.longitude, timestamp = EXCLUDED.timestamp
+            """;
+
+    private final LocationWriteBuffer buffer;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public LocationFlushScheduler(LocationWriteBuffer buffer,
+                                  JdbcTemplate jdbcTemplate,
+                                  @Value("${driver.location.write-behind.batch-size:500}") int batchSize) {
+        this.buffer = buffer;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${driver.location.write-behind.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        // Only write what was pending when the flush started; later pings wait for the next tick
+        int remaining = buffer.size();
+        while (remaining > 0) {
+            List<LocationWriteBuffer.PendingLocation> batch = buffer.drain(Math.min(batchSize, remaining));
+            if (batch.isEmpty()) {
+                return;
+            }
+            remaining -= batch.size();
+            try {
+                jdbcTemplate.batchUpdate(UPSERT_SQL, batch, batch.size(), (ps, location) -> {
+                    ps.setLong(1, location.driverId());
+                    ps.setDouble(2, location.latitude());
+                    ps.setDouble(3, location.longitude());
+                    ps.setTimestamp(4, Timestamp.valueOf(location.timestamp()));
+                });
+                log.debug("Flushed {} driver locations", batch.size());
+            } catch (RuntimeException e) {
+                buffer.requeue(batch);
+                log.error("Failed to flush {} driver locations, will retry", batch.size(), e);
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,55 @@
+package com.taxi.driver.location;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Last-known position per driver that has not been written to {@code driver_locations} yet.
+ * A newer ping for the same driver replaces the pending one, so the flush cost depends on the
+ * number of moving drivers rather than on how often they ping.
+ */
+@Component
+public class LocationWriteBuffer {
+    private final Map<Long, PendingLocation> pending = new ConcurrentHashMap<>();
+
+    public void offer(long driverId, double latitude, double longitude, LocalDateTime timestamp) {
+        pending.put(driverId, new PendingLocation(driverId, latitude, longitude, timestamp));
+    }
+
+    public Optional<PendingLocation> peek(long driverId) {
+        return Optional.ofNullable(pending.get(driverId));
+    }
+
+    public List<PendingLocation> drain(int maxEntries) {
+        List<PendingLocation> drained = new ArrayList<>(Math.min(maxEntries, pending.size()));
+        Iterator<Long> driverIds = pending.keySet().iterator();
+        while (drained.size() < maxEntries && driverIds.hasNext()) {
+            PendingLocation location = pending.remove(driverIds.next());
+            if (location != null) {
+                drained.add(location);
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Puts back locations that failed to flush, unless a newer ping arrived in the meantime.
+     */
+    public void requeue(List<PendingLocation> locations) {
+        locations.forEach(location -> pending.putIfAbsent(location.driverId(), location));
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    public record PendingLocation(long driverId, double latitude, double longitude, LocalDateTime timestamp) {
+    }
+}
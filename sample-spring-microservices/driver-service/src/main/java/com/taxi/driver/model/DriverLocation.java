@@ -18,7 +18,7 @@ public class DriverLocation {
     private Long id;
 
     @OneToOne
-    @JoinColumn(name = "driver_id", nullable = false)
+    @JoinColumn(name = "driver_id", nullable = false, unique = true)
     private Driver driver;
 
     @Column(nullable = false)
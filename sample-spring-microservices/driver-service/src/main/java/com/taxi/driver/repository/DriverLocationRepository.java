@@ -2,11 +2,23 @@ package com.taxi.driver.repository;
 
 import com.taxi.driver.model.DriverLocation;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface DriverLocationRepository extends JpaRepository<DriverLocation, Long> {
     Optional<DriverLocation> findByDriverId(Long driverId);
+
+    @Query("SELECT l.driver.id AS driverId, l.latitude AS latitude, l.longitude AS longitude " +
+            "FROM DriverLocation l WHERE l.driver.active = true")
+    List<DriverPosition> findActiveDriverPositions();
+
+    interface DriverPosition {
+        Long getDriverId();
+        Double getLatitude();
+        Double getLongitude();
+    }
 }
@@ -2,6 +2,7 @@ package com.taxi.driver.repository;
 
 import com.taxi.driver.model.Driver;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +12,7 @@ import java.util.Optional;
 public interface DriverRepository extends JpaRepository<Driver, Long> {
     Optional<Driver> findByEmail(String email);
     List<Driver> findByActiveTrue();
+
+    @Query("SELECT d.active FROM Driver d WHERE d.id = :id")
+    Optional<Boolean> findActiveById(Long id);
 }
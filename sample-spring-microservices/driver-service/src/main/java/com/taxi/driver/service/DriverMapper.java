@@ -0,0 +1,50 @@
+package com.taxi.driver.service;
+
+import com.taxi.driver.dto.DriverResponse;
+import com.taxi.driver.location.LocationWriteBuffer;
+import com.taxi.driver.model.Driver;
+
+/**
+ * Maps drivers to their API representation.
+ */
+public final class DriverMapper {
+
+    private DriverMapper() {
+    }
+
+    /**
+     * @param pending the driver's position still waiting in the write-behind buffer, or {@code null}
+     */
+    public static DriverResponse toResponse(Driver driver, LocationWriteBuffer.PendingLocation pending) {
+        DriverResponse response = new DriverResponse();
+        response.setId(driver.getId());
+        response.setFirstName(driver.getFirstName());
+        response.setLastName(driver.getLastName());
+        response.setEmail(driver.getEmail());
+        response.setPhoneNumber(driver.getPhoneNumber());
+        response.setLicenseNumber(driver.getLicenseNumber());
+        response.setActive(driver.isActive());
+
+        if (driver.getCar() != null) {
+            DriverResponse.CarInfo carInfo = new DriverResponse.CarInfo();
+            carInfo.setMake(driver.getCar().getMake());
+            carInfo.setModel(driver.getCar().getModel());
+            carInfo.setYear(driver.getCar().getYear());
+            carInfo.setLicensePlate(driver.getCar().getLicensePlate());
+            carInfo.setColor(driver.getCar().getColor());
+            response.setCar(carInfo);
+        }
+
+        // A buffered position is newer than the persisted one until the next flush
+        if (pending != null) {
+            response.setCurrentLocation(new DriverResponse.LocationInfo(pending.latitude(), pending.longitude()));
+        } else if (driver.getCurrentLocation() != null) {
+            DriverResponse.LocationInfo locationInfo = new DriverResponse.LocationInfo();
+            locationInfo.setLatitude(driver.getCurrentLocation().getLatitude());
+            locationInfo.setLongitude(driver.getCurrentLocation().getLongitude());
+            response.setCurrentLocation(locationInfo);
+        }
+
+        return response;
+    }
+}
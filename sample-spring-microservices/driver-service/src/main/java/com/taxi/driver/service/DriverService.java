@@ -5,26 +5,55 @@ import com.taxi.common.event.DriverLocationUpdateEvent;
 import com.taxi.driver.dto.DriverRegistrationRequest;
 import com.taxi.driver.dto.DriverResponse;
 import com.taxi.driver.dto.LocationUpdateRequest;
+import com.taxi.driver.dto.NearbyDriverResponse;
+import com.taxi.driver.location.DriverGeoIndex;
+import com.taxi.driver.location.LocationWriteBuffer;
 import com.taxi.driver.model.Car;
 import com.taxi.driver.model.Driver;
 import com.taxi.driver.model.DriverLocation;
 import com.taxi.driver.repository.DriverLocationRepository;
 import com.taxi.driver.repository.DriverRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class DriverService {
     private final DriverRepository driverRepository;
     private final DriverLocationRepository driverLocationRepository;
     private final KafkaTemplate<String, DriverLocationUpdateEvent> kafkaTemplate;
+    private final DriverGeoIndex driverGeoIndex;
+    private final LocationWriteBuffer locationWriteBuffer;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, Boolean> activeStatusCache = new ConcurrentHashMap<>();
+
+    @Value("${driver.location.write-behind.enabled:true}")
+    private boolean writeBehindEnabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadGeoIndex() {
+        driverLocationRepository.findActiveDriverPositions().forEach(position ->
+                driverGeoIndex.update(position.getDriverId(), position.getLatitude(), position.getLongitude()));
+        log.info("Loaded {} active driver positions into the geo index", driverGeoIndex.size());
+    }
 
     @Transactional
     public DriverResponse registerDriver(DriverRegistrationRequest request) {
@@ -49,8 +78,33 @@ public class DriverService {
         return mapToResponse(driver);
     }
 
-    @Transactional
     public void updateLocation(Long driverId, LocationUpdateRequest request) {
+        LocalDateTime now = LocalDateTime.now();
+
+        if (writeBehindEnabled) {
+            // Coalesced in memory and upserted in batches by LocationFlushScheduler
+            boolean active = isActive(driverId);
+            locationWriteBuffer.offer(driverId, request.getLatitude(), request.getLongitude(), now);
+            if (active) {
+                indexWhileActive(driverId, request.getLatitude(), request.getLongitude());
+            }
+        } else {
+            transactionTemplate.executeWithoutResult(status -> saveLocation(driverId, request, now));
+        }
+
+        // Publish location update event to Kafka
+        // Stamped in UTC, which is how the event codecs and trip-service read the timestamp
+        DriverLocationUpdateEvent event = new DriverLocationUpdateEvent(
+                driverId,
+                request.getLatitude(),
+                request.getLongitude(),
+                LocalDateTime.now(ZoneOffset.UTC)
+        );
+        // Keyed by driver so all updates of one driver stay ordered on a single partition
+        kafkaTemplate.send(KafkaTopics.DRIVER_LOCATION_UPDATE, String.valueOf(driverId), event);
+    }
+
+    private void saveLocation(Long driverId, LocationUpdateRequest request, LocalDateTime timestamp) {
         Driver driver = driverRepository.findById(driverId)
                 .orElseThrow(() -> new RuntimeException("Driver not found"));
 
@@ -60,18 +114,41 @@ public class DriverService {
         location.setDriver(driver);
         location.setLatitude(request.getLatitude());
         location.setLongitude(request.getLongitude());
-        location.setTimestamp(LocalDateTime.now());
+        location.setTimestamp(timestamp);
 
         driverLocationRepository.save(location);
 
-        // Publish location update event to Kafka
-        DriverLocationUpdateEvent event = new DriverLocationUpdateEvent(
-                driverId,
-                request.getLatitude(),
-                request.getLongitude(),
-                LocalDateTime.now()
-        );
-        kafkaTemplate.send(KafkaTopics.DRIVER_LOCATION_UPDATE, event);
+        if (driver.isActive()) {
+            // Like setActiveStatus, a rolled back write must not reach the geo index
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    indexWhileActive(driverId, request.getLatitude(), request.getLongitude());
+                }
+            });
+        }
+    }
+
+    /**
+     * Updates the geo index for a driver read as active. setActiveStatus(false) may have removed the
+     * driver in between, so the status is checked again after the update and the driver removed if
+     * it went inactive; setActiveStatus records the status before it touches the index.
+     */
+    private void indexWhileActive(Long driverId, double latitude, double longitude) {
+        driverGeoIndex.update(driverId, latitude, longitude);
+        if (Boolean.FALSE.equals(activeStatusCache.get(driverId))) {
+            driverGeoIndex.remove(driverId);
+        }
+    }
+
+    private boolean isActive(Long driverId) {
+        Boolean active = activeStatusCache.get(driverId);
+        if (active == null) {
+            active = driverRepository.findActiveById(driverId)
+                    .orElseThrow(() -> new RuntimeException("Driver not found"));
+            activeStatusCache.putIfAbsent(driverId, active);
+        }
+        return active;
     }
 
     @Transactional
@@ -80,6 +157,26 @@ public class DriverService {
                 .orElseThrow(() -> new RuntimeException("Driver not found"));
         driver.setActive(active);
         driverRepository.save(driver);
+        Optional<DriverLocation> stored = active ? driverLocationRepository.findByDriverId(driverId) : Optional.empty();
+
+        // A rolled back change must not leak into the cache and the geo index
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                activeStatusCache.put(driverId, active);
+                if (active) {
+                    Optional<LocationWriteBuffer.PendingLocation> pending = locationWriteBuffer.peek(driverId);
+                    if (pending.isPresent()) {
+                        driverGeoIndex.update(driverId, pending.get().latitude(), pending.get().longitude());
+                    } else {
+                        stored.ifPresent(location ->
+                                driverGeoIndex.update(driverId, location.getLatitude(), location.getLongitude()));
+                    }
+                } else {
+                    driverGeoIndex.remove(driverId);
+                }
+            }
+        });
     }
 
     public List<DriverResponse> getActiveDrivers() {
@@ -89,6 +186,14 @@ public class DriverService {
                 .collect(Collectors.toList());
     }
 
+    public List<NearbyDriverResponse> getNearbyDrivers(double latitude, double longitude, double radiusKm, int limit) {
+        return driverGeoIndex.findNearby(latitude, longitude, radiusKm, limit)
+                .stream()
+                .map(match -> new NearbyDriverResponse(
+                        match.driverId(), match.latitude(), match.longitude(), match.distanceKm()))
+                .collect(Collectors.toList());
+    }
+
     public DriverResponse getDriverById(Long driverId) {
         Driver driver = driverRepository.findById(driverId)
                 .orElseThrow(() -> new RuntimeException("Driver not found"));
@@ -96,32 +201,6 @@ public class DriverService {
     }
 
     private DriverResponse mapToResponse(Driver driver) {
-        DriverResponse response = new DriverResponse();
-        response.setId(driver.getId());
-        response.setFirstName(driver.getFirstName());
-        response.setLastName(driver.getLastName());
-        response.setEmail(driver.getEmail());
-        response.setPhoneNumber(driver.getPhoneNumber());
-        response.setLicenseNumber(driver.getLicenseNumber());
-        response.setActive(driver.isActive());
-
-        if (driver.getCar() != null) {
-            DriverResponse.CarInfo carInfo = new DriverResponse.CarInfo();
-            carInfo.setMake(driver.getCar().getMake());
-            carInfo.setModel(driver.getCar().getModel());
-            carInfo.setYear(driver.getCar().getYear());
-            carInfo.setLicensePlate(driver.getCar().getLicensePlate());
-            carInfo.setColor(driver.getCar().getColor());
-            response.setCar(carInfo);
-        }
-
-        if (driver.getCurrentLocation() != null) {
-            DriverResponse.LocationInfo locationInfo = new DriverResponse.LocationInfo();
-            locationInfo.setLatitude(driver.getCurrentLocation().getLatitude());
-            locationInfo.setLongitude(driver.getCurrentLocation().getLongitude());
-            response.setCurrentLocation(locationInfo);
-        }
-
-        return response;
+        return DriverMapper.toResponse(driver, locationWriteBuffer.peek(driver.getId()).orElse(null));
     }
 }
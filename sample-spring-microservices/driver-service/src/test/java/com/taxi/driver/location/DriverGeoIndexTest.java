@@ -0,0 +1,48 @@
+package com.taxi.driver.location;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DriverGeoIndexTest {
+
+    private final DriverGeoIndex index = new DriverGeoIndex(1.0);
+
+    @Test
+    void shouldReturnClosestDriversFirstWithinRadius() {
+        index.update(1L, 40.7128, -74.0060);
+        index.update(2L, 40.7300, -74.0000);
+        index.update(3L, 40.7580, -73.9855);
+        index.update(4L, 41.5000, -73.0000);
+
+        List<DriverGeoIndex.Match> matches = index.findNearby(40.7130, -74.0050, 10, 10);
+
+        assertThat(matches).extracting(DriverGeoIndex.Match::driverId).containsExactly(1L, 2L, 3L);
+        assertThat(index.findNearby(40.7130, -74.0050, 10, 2)).hasSize(2);
+    }
+
+    @Test
+    void shouldFollowDriversAcrossCellsAndForgetRemovedOnes() {
+        index.update(1L, 40.7128, -74.0060);
+        index.update(1L, 40.9000, -74.0060);
+
+        assertThat(index.findNearby(40.7128, -74.0060, 5, 10)).isEmpty();
+        assertThat(index.findNearby(40.9000, -74.0060, 5, 10)).hasSize(1);
+
+        index.remove(1L);
+
+        assertThat(index.findNearby(40.9000, -74.0060, 5, 10)).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void shouldFindDriversAcrossTheAntimeridian() {
+        index.update(1L, 0.0, 179.99);
+
+        assertThat(index.findNearby(0.0, -179.99, 5, 10))
+                .extracting(DriverGeoIndex.Match::driverId)
+                .containsExactly(1L);
+    }
+}
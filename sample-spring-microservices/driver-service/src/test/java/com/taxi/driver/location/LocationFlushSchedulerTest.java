@@ -0,0 +1,85 @@
+package com.taxi.driver.location;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LocationFlushSchedulerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 1, 10, 15);
+
+    private final LocationWriteBuffer buffer = new LocationWriteBuffer();
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final LocationFlushScheduler scheduler = new LocationFlushScheduler(buffer, jdbcTemplate, 2);
+
+    @Test
+    void shouldUpsertPendingLocationsInBatches() throws Exception {
+        buffer.offer(1L, 40.71, -74.00, NOW);
+        buffer.offer(2L, 40.72, -74.01, NOW);
+        buffer.offer(3L, 40.73, -74.02, NOW);
+
+        scheduler.flush();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Collection<LocationWriteBuffer.PendingLocation>> batches = ArgumentCaptor.captor();
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<LocationWriteBuffer.PendingLocation>> setter =
+                ArgumentCaptor.captor();
+        verify(jdbcTemplate, times(2)).batchUpdate(sql.capture(), batches.capture(), anyInt(), setter.capture());
+        assertThat(sql.getValue()).contains("ON CONFLICT (driver_id) DO UPDATE");
+        assertThat(batches.getAllValues()).extracting(Collection::size).containsExactly(2, 1);
+        assertThat(buffer.size()).isZero();
+
+        PreparedStatement ps = mock(PreparedStatement.class);
+        setter.getValue().setValues(ps, new LocationWriteBuffer.PendingLocation(7L, 40.5, -73.5, NOW));
+        verify(ps).setLong(1, 7L);
+        verify(ps).setDouble(2, 40.5);
+        verify(ps).setDouble(3, -73.5);
+        verify(ps).setTimestamp(4, Timestamp.valueOf(NOW));
+    }
+
+    @Test
+    void shouldRequeueAFailedBatchAndStop() {
+        buffer.offer(1L, 40.71, -74.00, NOW);
+        buffer.offer(2L, 40.72, -74.01, NOW);
+        buffer.offer(3L, 40.73, -74.02, NOW);
+        when(jdbcTemplate.batchUpdate(anyString(), anyBatch(), anyInt(), anySetter()))
+                .thenThrow(new IllegalStateException("db down"));
+
+        scheduler.flush();
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyBatch(), eq(2), anySetter());
+        assertThat(buffer.size()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldSkipTheDatabaseWhenNothingIsPending() {
+        scheduler.flush();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyBatch(), anyInt(), anySetter());
+    }
+
+    private static Collection<LocationWriteBuffer.PendingLocation> anyBatch() {
+        return ArgumentMatchers.any();
+    }
+
+    private static ParameterizedPreparedStatementSetter<LocationWriteBuffer.PendingLocation> anySetter() {
+        return ArgumentMatchers.any();
+    }
+}
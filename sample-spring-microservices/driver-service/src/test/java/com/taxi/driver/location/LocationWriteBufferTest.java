@@ -0,0 +1,55 @@
+package com.taxi.driver.location;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocationWriteBufferTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 1, 10, 15);
+
+    private final LocationWriteBuffer buffer = new LocationWriteBuffer();
+
+    @Test
+    void shouldKeepOnlyTheLatestPingPerDriver() {
+        buffer.offer(1L, 40.71, -74.00, NOW);
+        buffer.offer(1L, 40.72, -74.01, NOW.plusSeconds(1));
+        buffer.offer(2L, 40.80, -73.90, NOW);
+
+        assertThat(buffer.size()).isEqualTo(2);
+        assertThat(buffer.peek(1L)).contains(
+                new LocationWriteBuffer.PendingLocation(1L, 40.72, -74.01, NOW.plusSeconds(1)));
+    }
+
+    @Test
+    void shouldDrainAtMostTheRequestedEntries() {
+        for (long driverId = 1; driverId <= 5; driverId++) {
+            buffer.offer(driverId, 40.0, -74.0, NOW);
+        }
+
+        List<LocationWriteBuffer.PendingLocation> first = buffer.drain(3);
+        List<LocationWriteBuffer.PendingLocation> rest = buffer.drain(3);
+
+        assertThat(first).hasSize(3);
+        assertThat(rest).hasSize(2);
+        assertThat(buffer.size()).isZero();
+        assertThat(buffer.peek(1L)).isEmpty();
+    }
+
+    @Test
+    void shouldNotRequeueOverANewerPing() {
+        buffer.offer(1L, 40.71, -74.00, NOW);
+        buffer.offer(2L, 40.80, -73.90, NOW);
+        List<LocationWriteBuffer.PendingLocation> failed = buffer.drain(2);
+        buffer.offer(1L, 40.75, -74.05, NOW.plusSeconds(5));
+
+        buffer.requeue(failed);
+
+        assertThat(buffer.size()).isEqualTo(2);
+        assertThat(buffer.peek(1L)).map(LocationWriteBuffer.PendingLocation::timestamp).contains(NOW.plusSeconds(5));
+        assertThat(buffer.peek(2L)).map(LocationWriteBuffer.PendingLocation::timestamp).contains(NOW);
+    }
+}
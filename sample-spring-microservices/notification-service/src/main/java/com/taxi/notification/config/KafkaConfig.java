@@ -1,42 +1,74 @@
 package com.taxi.notification.config;
 
+import com.taxi.common.concurrency.AdaptiveConcurrencyController;
+import com.taxi.common.concurrency.AdaptiveConcurrencyProperties;
 import com.taxi.common.event.TripCompletedEvent;
+import com.taxi.common.serde.EventSerde;
+import com.taxi.common.tracing.EventLatencyConfiguration;
+import com.taxi.common.tracing.EventLatencyInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.core.KafkaAdmin;
 
 import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
+@EnableConfigurationProperties(AdaptiveConcurrencyProperties.class)
+@Import(EventLatencyConfiguration.class)
 public class KafkaConfig {
 
+    private final AdaptiveConcurrencyProperties adaptiveConcurrency;
+
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${taxi.kafka.serde:json}")
+    private String serde;
+
+    public KafkaConfig(AdaptiveConcurrencyProperties adaptiveConcurrency) {
+        this.adaptiveConcurrency = adaptiveConcurrency;
+    }
+
     @Bean
     public ConsumerFactory<String, TripCompletedEvent> consumerFactory() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, "notification-service");
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-        props.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
-        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, TripCompletedEvent.class.getName());
+        // A new group works through the backlog, which the lag of AdaptiveConcurrencyController counts
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        EventSerde.from(serde).configureConsumer(props, TripCompletedEvent.class);
         return new DefaultKafkaConsumerFactory<>(props);
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, TripCompletedEvent> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, TripCompletedEvent> kafkaListenerContainerFactory(
+            MeterRegistry meterRegistry) {
         ConcurrentKafkaListenerContainerFactory<String, TripCompletedEvent> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(adaptiveConcurrency.getMinConcurrency());
+        factory.setRecordInterceptor(new EventLatencyInterceptor<>(meterRegistry));
         return factory;
     }
+
+    @Bean
+    @ConditionalOnProperty(name = "taxi.kafka.adaptive-concurrency.enabled", havingValue = "true", matchIfMissing = true)
+    public AdaptiveConcurrencyController adaptiveConcurrencyController(KafkaListenerEndpointRegistry registry,
+                                                                       KafkaAdmin kafkaAdmin,
+                                                                       MeterRegistry meterRegistry) {
+        return adaptiveConcurrency.controller("notification-trip-completed", registry, kafkaAdmin, meterRegistry);
+    }
 }
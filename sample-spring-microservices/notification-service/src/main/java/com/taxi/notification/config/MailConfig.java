@@ -0,0 +1,49 @@
+package com.taxi.notification.config;
+
+import com.taxi.notification.mail.MailDeliverySettings;
+import com.taxi.notification.mail.MailDispatcher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+
+@Configuration
+public class MailConfig {
+
+    @Value("${notification.mail.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${notification.mail.enqueue-timeout-ms:30000}")
+    private long enqueueTimeoutMs;
+
+    @Value("${notification.mail.senders:2}")
+    private int senders;
+
+    @Value("${notification.mail.batch-size:50}")
+    private int batchSize;
+
+    @Value("${notification.mail.max-idle-ms:30000}")
+    private long maxIdleMs;
+
+    @Value("${notification.mail.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${notification.mail.retry-backoff-ms:500}")
+    private long retryBackoffMs;
+
+    @Value("${notification.mail.max-retry-backoff-ms:30000}")
+    private long maxRetryBackoffMs;
+
+    @Value("${notification.mail.drain-timeout-ms:10000}")
+    private long drainTimeoutMs;
+
+    @Bean
+    public MailDispatcher mailDispatcher(JavaMailSenderImpl mailSender) {
+        return new MailDispatcher(mailSender, new MailDeliverySettings(queueCapacity,
+                Duration.ofMillis(enqueueTimeoutMs), senders, batchSize, Duration.ofMillis(maxIdleMs), maxAttempts,
+                Duration.ofMillis(retryBackoffMs), Duration.ofMillis(maxRetryBackoffMs),
+                Duration.ofMillis(drainTimeoutMs)));
+    }
+}
@@ -0,0 +1,14 @@
+package com.taxi.notification.mail;
+
+/**
+ * An email for {@link MailDispatcher}: a plain text body and, optionally, an HTML alternative
+ * that mail clients show instead when they can.
+ */
+public record Email(String from, String to, String subject, String text, String html) {
+
+    public Email {
+        if (to == null || subject == null || text == null) {
+            throw new IllegalArgumentException("Recipient, subject and text are required");
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.taxi.notification.mail;
+
+import java.time.Duration;
+
+/**
+ * Tuning of {@link MailDispatcher}: how many emails may wait and for how long a caller blocks when
+ * the queue is full, how many SMTP connections send in parallel and how many emails each sends per
+ * batch, how long an idle connection is kept open, how often a failed send is retried, and how long
+ * shutdown waits for the queue to drain.
+ */
+public record MailDeliverySettings(int queueCapacity, Duration enqueueTimeout, int senders, int batchSize,
+                                   Duration maxIdle, int maxAttempts, Duration retryBackoff,
+                                   Duration maxRetryBackoff, Duration drainTimeout) {
+
+    public MailDeliverySettings {
+        if (queueCapacity <= 0 || senders <= 0 || batchSize <= 0 || maxAttempts <= 0) {
+            throw new IllegalArgumentException("Queue capacity, senders, batch size and attempts must be positive");
+        }
+        if (enqueueTimeout.isNegative() || maxIdle.isNegative() || retryBackoff.isNegative()
+                || maxRetryBackoff.compareTo(retryBackoff) < 0 || drainTimeout.isNegative()) {
+            throw new IllegalArgumentException("Invalid mail delivery timeouts");
+        }
+    }
+}
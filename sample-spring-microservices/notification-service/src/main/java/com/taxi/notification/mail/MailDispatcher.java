@@ -0,0 +1,223 @@
+package com.taxi.notification.mail;
+
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends emails off the caller's thread. {@link #submit} only puts the message on a bounded queue;
+ * sender threads take up to {@code batchSize} queued messages at a time and send them over one
+ * pooled SMTP connection, so a slow server delays the queue instead of the Kafka listener, and a
+ * burst of emails shares a handful of connections instead of opening one each.
+ *
+ * <p>A message that fails to send is retried on a new connection with exponential backoff, up to
+ * {@code maxAttempts} times; one rejected by the server for its recipients is not retried. When
+ * the queue is full, {@link #submit} waits up to {@code enqueueTimeout} for room, which slows the
+ * listener down to the pace of the senders.
+ */
+@Slf4j
+public class MailDispatcher implements SmartLifecycle {
+    private static final long POLL_TIMEOUT_MS = 200;
+
+    private final JavaMailSenderImpl mailSender;
+    private final MailDeliverySettings settings;
+    private final BlockingQueue<Email> queue;
+    private final SmtpTransportPool pool;
+
+    private volatile boolean running;
+    private List<Thread> workers = List.of();
+
+    public MailDispatcher(JavaMailSenderImpl mailSender, MailDeliverySettings settings) {
+        this.mailSender = mailSender;
+        this.settings = settings;
+        this.queue = new ArrayBlockingQueue<>(settings.queueCapacity());
+        this.pool = new SmtpTransportPool(mailSender, settings.maxIdle().toNanos());
+    }
+
+    /**
+     * Queues the email for delivery. Returns {@code false} if the queue stayed full for the
+     * whole enqueue timeout.
+     */
+    public boolean submit(Email email) {
+        try {
+            return queue.offer(email, settings.enqueueTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    int queued() {
+        return queue.size();
+    }
+
+    long connectionsOpened() {
+        return pool.opened();
+    }
+
+    private void run() {
+        List<Email> batch = new ArrayList<>(settings.batchSize());
+        // Drain what is queued before stopping
+        while (running || !queue.isEmpty()) {
+            try {
+                Email first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    pool.evictIdle();
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, settings.batchSize() - 1);
+                deliver(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Mail sender interrupted, {} emails left undelivered", queue.size() + batch.size());
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void deliver(List<Email> batch) throws InterruptedException {
+        List<MimeMessage> messages = new ArrayList<>(batch.size());
+        for (Email email : batch) {
+            try {
+                messages.add(toMimeMessage(email));
+            } catch (MessagingException e) {
+                log.error("Failed to build email to: {}", email.to(), e);
+            }
+        }
+
+        int next = 0;
+        int attempt = 1;
+        while (next < messages.size()) {
+            Transport transport = null;
+            try {
+                transport = pool.borrow();
+                for (; next < messages.size(); next++, attempt = 1) {
+                    send(transport, messages.get(next));
+                }
+                pool.release(transport);
+                log.debug("Sent {} emails", messages.size());
+            } catch (MessagingException e) {
+                pool.invalidate(transport);
+                String to = recipients(messages.get(next));
+                if (isPermanent(e) || attempt >= settings.maxAttempts()) {
+                    log.error("Failed to send email to: {} after {} attempts", to, attempt, e);
+                    next++;
+                    attempt = 1;
+                } else {
+                    long backoffMs = backoffMillis(attempt);
+                    log.warn("Failed to send email to: {}, retrying in {} ms", to, backoffMs, e);
+                    Thread.sleep(backoffMs);
+                    attempt++;
+                }
+            }
+        }
+    }
+
+    private MimeMessage toMimeMessage(Email email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, email.html() != null, "UTF-8");
+        if (email.from() != null) {
+            helper.setFrom(email.from());
+        }
+        helper.setTo(email.to());
+        helper.setSubject(email.subject());
+        if (email.html() != null) {
+            helper.setText(email.text(), email.html());
+        } else {
+            helper.setText(email.text());
+        }
+        return message;
+    }
+
+    private static String recipients(MimeMessage message) {
+        try {
+            Address[] recipients = message.getAllRecipients();
+            return recipients == null ? "" : InternetAddress.toString(recipients);
+        } catch (MessagingException e) {
+            return "";
+        }
+    }
+
+    private static void send(Transport transport, MimeMessage message) throws MessagingException {
+        // Same preparation as JavaMailSenderImpl, which would open a connection per send call
+        if (message.getSentDate() == null) {
+            message.setSentDate(new Date());
+        }
+        String messageId = message.getMessageID();
+        message.saveChanges();
+        if (messageId != null) {
+            message.setHeader("Message-ID", messageId);
+        }
+        Address[] recipients = message.getAllRecipients();
+        transport.sendMessage(message, recipients != null ? recipients : new Address[0]);
+    }
+
+    private static boolean isPermanent(MessagingException e) {
+        // Every recipient was rejected: sending the same message again cannot succeed
+        return e instanceof SendFailedException failed
+                && failed.getInvalidAddresses() != null && failed.getInvalidAddresses().length > 0
+                && (failed.getValidUnsentAddresses() == null || failed.getValidUnsentAddresses().length == 0);
+    }
+
+    private long backoffMillis(int attempt) {
+        long backoff = settings.retryBackoff().toMillis() << Math.min(attempt - 1, 20);
+        return Math.min(backoff, settings.maxRetryBackoff().toMillis());
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        List<Thread> started = new ArrayList<>(settings.senders());
+        for (int i = 0; i < settings.senders(); i++) {
+            started.add(Thread.ofPlatform().name("mail-sender-" + i).daemon().start(this::run));
+        }
+        workers = started;
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        long deadline = System.nanoTime() + settings.drainTimeout().toNanos();
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+                worker.interrupt();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        workers = List.of();
+        pool.close();
+    }
+
+    @Override
+    public int getPhase() {
+        // Below the Kafka listener containers: started before and stopped after them
+        return Integer.MAX_VALUE - 200;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
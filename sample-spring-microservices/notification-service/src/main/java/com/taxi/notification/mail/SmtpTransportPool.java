@@ -0,0 +1,120 @@
+package com.taxi.notification.mail;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Connected SMTP transports of a {@link JavaMailSenderImpl}, kept open between sends so that a
+ * message does not pay for the TCP and TLS handshakes, EHLO and AUTH again. Connections idle for
+ * longer than {@code maxIdleNanos} are closed before the server drops them; a connection that
+ * failed is discarded by the caller through {@link #invalidate}.
+ */
+@Slf4j
+class SmtpTransportPool implements AutoCloseable {
+    private final JavaMailSenderImpl mailSender;
+    private final long maxIdleNanos;
+    private final Deque<Idle> idle = new ArrayDeque<>();
+    private final AtomicLong opened = new AtomicLong();
+
+    SmtpTransportPool(JavaMailSenderImpl mailSender, long maxIdleNanos) {
+        this.mailSender = mailSender;
+        this.maxIdleNanos = maxIdleNanos;
+    }
+
+    /**
+     * Returns the most recently used open connection, or connects a new one.
+     */
+    Transport borrow() throws MessagingException {
+        long now = System.nanoTime();
+        synchronized (idle) {
+            Idle candidate;
+            while ((candidate = idle.pollFirst()) != null) {
+                if (now - candidate.since() < maxIdleNanos) {
+                    return candidate.transport();
+                }
+                close(candidate.transport());
+            }
+        }
+        return connect();
+    }
+
+    void release(Transport transport) {
+        synchronized (idle) {
+            idle.addFirst(new Idle(transport, System.nanoTime()));
+        }
+    }
+
+    void invalidate(Transport transport) {
+        if (transport != null) {
+            close(transport);
+        }
+    }
+
+    /**
+     * Closes the connections idle for longer than the maximum idle time.
+     */
+    void evictIdle() {
+        long now = System.nanoTime();
+        synchronized (idle) {
+            // Least recently used last
+            while (!idle.isEmpty() && now - idle.peekLast().since() >= maxIdleNanos) {
+                close(idle.pollLast().transport());
+            }
+        }
+    }
+
+    /**
+     * Number of connections opened so far.
+     */
+    long opened() {
+        return opened.get();
+    }
+
+    @Override
+    public void close() {
+        synchronized (idle) {
+            Idle candidate;
+            while ((candidate = idle.pollFirst()) != null) {
+                close(candidate.transport());
+            }
+        }
+    }
+
+    private Transport connect() throws MessagingException {
+        Session session = mailSender.getSession();
+        String protocol = mailSender.getProtocol();
+        if (protocol == null) {
+            protocol = session.getProperty("mail.transport.protocol");
+        }
+        Transport transport = session.getTransport(protocol != null ? protocol : JavaMailSenderImpl.DEFAULT_PROTOCOL);
+        String username = mailSender.getUsername();
+        String password = mailSender.getPassword();
+        if ("".equals(username)) {
+            username = null;
+            if ("".equals(password)) {
+                password = null;
+            }
+        }
+        transport.connect(mailSender.getHost(), mailSender.getPort(), username, password);
+        opened.incrementAndGet();
+        return transport;
+    }
+
+    private static void close(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.debug("Failed to close SMTP connection", e);
+        }
+    }
+
+    private record Idle(Transport transport, long since) {
+    }
+}
@@ -2,76 +2,57 @@ package com.taxi.notification.service;
 
 import com.taxi.common.config.KafkaTopics;
 import com.taxi.common.event.TripCompletedEvent;
-import lombok.RequiredArgsConstructor;
+import com.taxi.notification.mail.Email;
+import com.taxi.notification.mail.MailDispatcher;
+import com.taxi.notification.template.TripSummaryTemplates;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
-import java.time.format.DateTimeFormatter;
-
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class EmailService {
-    private final JavaMailSender mailSender;
+    private final MailDispatcher mailDispatcher;
+    private final TripSummaryTemplates templates;
+    private final boolean deliveryEnabled;
+    private final String from;
+
+    public EmailService(MailDispatcher mailDispatcher,
+                        TripSummaryTemplates templates,
+                        @Value("${notification.mail.enabled:false}") boolean deliveryEnabled,
+                        @Value("${notification.mail.from:${spring.mail.username:}}") String from) {
+        this.mailDispatcher = mailDispatcher;
+        this.templates = templates;
+        this.deliveryEnabled = deliveryEnabled;
+        this.from = from;
+    }
 
-    @KafkaListener(topics = KafkaTopics.TRIP_COMPLETED, groupId = "notification-service")
+    @KafkaListener(id = "notification-trip-completed", topics = KafkaTopics.TRIP_COMPLETED,
+            groupId = "notification-service")
     public void handleTripCompletedEvent(TripCompletedEvent event) {
         log.info("Received trip completed event for trip: {}", event.getTripId());
 
         try {
             sendTripSummaryEmail(event);
-            log.info("Trip summary email sent successfully to: {}", event.getUserEmail());
         } catch (Exception e) {
             log.error("Failed to send email to: {}", event.getUserEmail(), e);
         }
     }
 
     private void sendTripSummaryEmail(TripCompletedEvent event) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(event.getUserEmail());
-        message.setSubject("Trip Summary - Trip #" + event.getTripId());
-        message.setText(buildEmailContent(event));
-
-        // In production with real SMTP configuration, this would send the email
-        // For demo, we just log it
-        log.info("Email content:\n{}", message.getText());
-
-        // Uncomment to actually send email when SMTP is configured
-        // mailSender.send(message);
-    }
-
-    private String buildEmailContent(TripCompletedEvent event) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-
-        return String.format("""
-                Dear Customer,
-
-                Thank you for using our taxi service! Here is your trip summary:
-
-                Trip ID: %d
-                Pickup Location: %s
-                Dropoff Location: %s
-                Distance: %.2f km
-                Cost: $%.2f
-
-                Trip Start: %s
-                Trip End: %s
-
-                We hope you enjoyed your ride!
-
-                Best regards,
-                Taxi Reservation System
-                """,
-                event.getTripId(),
-                event.getPickupLocation(),
-                event.getDropoffLocation(),
-                event.getDistance(),
-                event.getCost(),
-                event.getStartTime().format(formatter),
-                event.getEndTime().format(formatter)
-        );
+        if (!deliveryEnabled) {
+            // Without SMTP configuration (notification.mail.enabled=false) the email is only logged
+            log.info("Email content:\n{}", templates.text(event));
+            return;
+        }
+        Email email = new Email(from.isEmpty() ? null : from, event.getUserEmail(),
+                "Trip Summary - Trip #" + event.getTripId(), templates.text(event), templates.html(event));
+        // Sent by the dispatcher's threads, so a slow SMTP server does not hold up the listener
+        if (mailDispatcher.submit(email)) {
+            log.info("Trip summary email queued for: {}", event.getUserEmail());
+        } else {
+            log.error("Mail queue full, dropped trip summary email to: {}", event.getUserEmail());
+        }
     }
 }
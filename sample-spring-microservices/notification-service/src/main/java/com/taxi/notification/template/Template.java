@@ -0,0 +1,99 @@
+package com.taxi.notification.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A template parsed once into literal text and {@code {{field}}} segments. Rendering walks the
+ * segments and appends into a per-thread builder that is reused across calls, so a render allocates
+ * the resulting string plus whatever its fields allocate to format their values.
+ */
+public final class Template<T> {
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+    // A builder grown by an unusually large render is dropped rather than kept per thread
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+    private final TemplateFormat format;
+    private final Segment<T>[] segments;
+
+    private Template(TemplateFormat format, Segment<T>[] segments) {
+        this.format = format;
+        this.segments = segments;
+    }
+
+    /**
+     * Parses {@code source}, resolving every {@code {{name}}} to the field of that name. Fails on
+     * an unknown field or an unclosed placeholder, so a broken template stops the application at
+     * startup instead of the first email.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Template<T> compile(String source, TemplateFormat format, Map<String, TemplateField<T>> fields) {
+        List<Segment<T>> segments = new ArrayList<>();
+        int position = 0;
+        while (position < source.length()) {
+            int open = source.indexOf(OPEN, position);
+            if (open < 0) {
+                segments.add(new Literal<>(source.substring(position)));
+                break;
+            }
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed template field at index " + open);
+            }
+            if (open > position) {
+                segments.add(new Literal<>(source.substring(position, open)));
+            }
+            String name = source.substring(open + OPEN.length(), close).trim();
+            TemplateField<T> field = fields.get(name);
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown template field: " + name);
+            }
+            segments.add(new Field<>(field));
+            position = close + CLOSE.length();
+        }
+        return new Template<>(format, segments.toArray(Segment[]::new));
+    }
+
+    public String render(T model) {
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        renderTo(model, out);
+        String rendered = out.toString();
+        if (out.capacity() > MAX_RETAINED_CAPACITY) {
+            BUFFER.remove();
+        }
+        return rendered;
+    }
+
+    public void renderTo(T model, StringBuilder out) {
+        for (Segment<T> segment : segments) {
+            segment.appendTo(model, out, format);
+        }
+    }
+
+    private sealed interface Segment<T> permits Literal, Field {
+
+        void appendTo(T model, StringBuilder out, TemplateFormat format);
+    }
+
+    private record Literal<T>(String text) implements Segment<T> {
+
+        @Override
+        public void appendTo(T model, StringBuilder out, TemplateFormat format) {
+            out.append(text);
+        }
+    }
+
+    private record Field<T>(TemplateField<T> field) implements Segment<T> {
+
+        @Override
+        public void appendTo(T model, StringBuilder out, TemplateFormat format) {
+            int start = out.length();
+            field.appendTo(model, out);
+            format.escape(out, start);
+        }
+    }
+}
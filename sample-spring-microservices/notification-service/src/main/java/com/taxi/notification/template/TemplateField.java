@@ -0,0 +1,12 @@
+package com.taxi.notification.template;
+
+/**
+ * Writes one value of the model into the rendered output. Implementations append to the builder
+ * directly instead of returning a string, so numbers and dates are not formatted into temporary
+ * strings first.
+ */
+@FunctionalInterface
+public interface TemplateField<T> {
+
+    void appendTo(T model, StringBuilder out);
+}
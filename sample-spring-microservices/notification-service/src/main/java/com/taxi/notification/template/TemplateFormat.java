@@ -0,0 +1,37 @@
+package com.taxi.notification.template;
+
+/**
+ * Output format of a {@link Template}, deciding how field values are escaped. Literal template
+ * text is written as is.
+ */
+public enum TemplateFormat {
+    TEXT {
+        @Override
+        void escape(StringBuilder out, int from) {
+        }
+    },
+    HTML {
+        @Override
+        void escape(StringBuilder out, int from) {
+            for (int i = from; i < out.length(); i++) {
+                String entity = switch (out.charAt(i)) {
+                    case '&' -> "&amp;";
+                    case '<' -> "&lt;";
+                    case '>' -> "&gt;";
+                    case '"' -> "&quot;";
+                    case '\'' -> "&#39;";
+                    default -> null;
+                };
+                if (entity != null) {
+                    out.replace(i, i + 1, entity);
+                    i += entity.length() - 1;
+                }
+            }
+        }
+    };
+
+    /**
+     * Escapes what was appended to {@code out} from index {@code from} on, in place.
+     */
+    abstract void escape(StringBuilder out, int from);
+}
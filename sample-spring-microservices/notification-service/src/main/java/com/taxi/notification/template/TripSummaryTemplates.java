@@ -0,0 +1,85 @@
+package com.taxi.notification.template;
+
+import com.taxi.common.event.TripCompletedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * The plain text and HTML trip summary emails, compiled once from {@code templates/trip-summary.txt}
+ * and {@code templates/trip-summary.html}. Distance and cost are written with two decimals and
+ * times as {@code yyyy-MM-dd HH:mm:ss}; a missing value is left empty. The two-decimal fields
+ * allocate a rounded {@link BigDecimal} and its string per render, the distance also a
+ * {@link BigDecimal} of the double.
+ */
+@Component
+public class TripSummaryTemplates {
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final Map<String, TemplateField<TripCompletedEvent>> FIELDS = Map.of(
+            "tripId", (event, out) -> {
+                if (event.getTripId() != null) {
+                    out.append(event.getTripId().longValue());
+                }
+            },
+            "pickupLocation", (event, out) -> appendNullable(event.getPickupLocation(), out),
+            "dropoffLocation", (event, out) -> appendNullable(event.getDropoffLocation(), out),
+            "distance", (event, out) -> appendFixed2(event.getDistance() == null
+                    ? null : BigDecimal.valueOf(event.getDistance()), out),
+            "cost", (event, out) -> appendFixed2(event.getCost(), out),
+            "startTime", (event, out) -> appendDateTime(event.getStartTime(), out),
+            "endTime", (event, out) -> appendDateTime(event.getEndTime(), out));
+
+    private final Template<TripCompletedEvent> text;
+    private final Template<TripCompletedEvent> html;
+
+    public TripSummaryTemplates(@Value("classpath:templates/trip-summary.txt") Resource text,
+                                @Value("classpath:templates/trip-summary.html") Resource html) {
+        this.text = Template.compile(read(text), TemplateFormat.TEXT, FIELDS);
+        this.html = Template.compile(read(html), TemplateFormat.HTML, FIELDS);
+    }
+
+    public String text(TripCompletedEvent event) {
+        return text.render(event);
+    }
+
+    public String html(TripCompletedEvent event) {
+        return html.render(event);
+    }
+
+    private static void appendNullable(String value, StringBuilder out) {
+        if (value != null) {
+            out.append(value);
+        }
+    }
+
+    private static void appendFixed2(BigDecimal value, StringBuilder out) {
+        // Same rounding as %.2f
+        if (value != null) {
+            out.append(value.setScale(2, RoundingMode.HALF_UP).toPlainString());
+        }
+    }
+
+    private static void appendDateTime(LocalDateTime value, StringBuilder out) {
+        if (value != null) {
+            DATE_TIME.formatTo(value, out);
+        }
+    }
+
+    private static String read(Resource resource) {
+        try {
+            return resource.getContentAsString(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read template " + resource.getDescription(), e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.taxi.notification.mail;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MailDispatcherTest {
+    private GreenMail greenMail = new GreenMail(ServerSetupTest.SMTP.dynamicPort());
+    private MailDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+        greenMail.stop();
+    }
+
+    @Test
+    void shouldSendQueuedEmailsOverOnePooledConnection() {
+        greenMail.start();
+        dispatcher = dispatcher(greenMail.getSmtp().getPort(), 100);
+        dispatcher.start();
+
+        for (int i = 0; i < 40; i++) {
+            assertThat(dispatcher.submit(message("rider-" + i + "@example.com"))).isTrue();
+        }
+
+        assertThat(greenMail.waitForIncomingEmail(5_000, 40)).isTrue();
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(40);
+        assertThat(dispatcher.connectionsOpened()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRetryUntilServerIsBack() throws InterruptedException {
+        greenMail.start();
+        int port = greenMail.getSmtp().getPort();
+        greenMail.stop();
+        dispatcher = dispatcher(port, 100);
+        dispatcher.start();
+
+        assertThat(dispatcher.submit(message("rider@example.com"))).isTrue();
+        Thread.sleep(300);
+        greenMail = new GreenMail(new ServerSetup(port, null, ServerSetup.PROTOCOL_SMTP));
+        greenMail.start();
+
+        assertThat(greenMail.waitForIncomingEmail(5_000, 1)).isTrue();
+        assertThat(dispatcher.connectionsOpened()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRejectWhenQueueStaysFull() {
+        // Not started, so nothing drains the queue
+        dispatcher = dispatcher(1, 1);
+
+        assertThat(dispatcher.submit(message("rider-1@example.com"))).isTrue();
+        assertThat(dispatcher.submit(message("rider-2@example.com"))).isFalse();
+        assertThat(dispatcher.queued()).isEqualTo(1);
+    }
+
+    private static MailDispatcher dispatcher(int port, int queueCapacity) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(port);
+        return new MailDispatcher(mailSender, new MailDeliverySettings(queueCapacity, Duration.ofMillis(10), 1, 50,
+                Duration.ofSeconds(30), 10, Duration.ofMillis(50), Duration.ofMillis(200), Duration.ofSeconds(5)));
+    }
+
+    private static Email message(String to) {
+        return new Email("noreply@taxi.example.com", to, "Trip Summary - Trip #42",
+                "Thank you for using our taxi service!", "<p>Thank you for using our taxi service!</p>");
+    }
+}
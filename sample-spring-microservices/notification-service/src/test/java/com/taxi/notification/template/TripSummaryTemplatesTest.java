@@ -0,0 +1,74 @@
+package com.taxi.notification.template;
+
+import com.taxi.common.event.TripCompletedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TripSummaryTemplatesTest {
+    private final TripSummaryTemplates templates = new TripSummaryTemplates(
+            new ClassPathResource("templates/trip-summary.txt"), new ClassPathResource("templates/trip-summary.html"));
+
+    @Test
+    void shouldRenderPlainTextSummary() {
+        assertThat(templates.text(event("Main St 1", 7.456, "25.5"))).isEqualTo("""
+                Dear Customer,
+
+                Thank you for using our taxi service! Here is your trip summary:
+
+                Trip ID: 42
+                Pickup Location: Main St 1
+                Dropoff Location: Airport
+                Distance: 7.46 km
+                Cost: $25.50
+
+                Trip Start: 2024-05-01 08:15:00
+                Trip End: 2024-05-01 08:42:30
+
+                We hope you enjoyed your ride!
+
+                Best regards,
+                Taxi Reservation System
+                """);
+    }
+
+    @Test
+    void shouldEscapeValuesInHtml() {
+        String html = templates.html(event("<b>Joe's & Co</b>", 7.5, "25.5"));
+
+        assertThat(html).contains("<td>&lt;b&gt;Joe&#39;s &amp; Co&lt;/b&gt;</td>");
+        assertThat(html).contains("<td>7.50 km</td>").contains("<td>$25.50</td>");
+    }
+
+    @Test
+    void shouldRoundDistanceLikeStringFormat() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 10_000; i++) {
+            double distance = Math.round(random.nextDouble(0, 500) * 1_000) / 1_000.0;
+            String expected = String.format(Locale.ROOT, "Distance: %.2f km", distance);
+            assertThat(templates.text(event("A", distance, "1"))).contains(expected);
+        }
+    }
+
+    @Test
+    void shouldRejectUnknownField() {
+        assertThatThrownBy(() -> Template.compile("Hi {{name}}", TemplateFormat.TEXT, Map.of()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("name");
+        assertThatThrownBy(() -> Template.compile("Hi {{name", TemplateFormat.TEXT, Map.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static TripCompletedEvent event(String pickup, double distance, String cost) {
+        return new TripCompletedEvent(42L, 7L, 3L, "rider@example.com", pickup, "Airport", new BigDecimal(cost),
+                distance, LocalDateTime.of(2024, 5, 1, 8, 15), LocalDateTime.of(2024, 5, 1, 8, 42, 30));
+    }
+}
@@ -1,59 +1,112 @@
 package com.taxi.payment.config;
 
-import com.taxi.common.event.PaymentProcessedEvent;
+import com.taxi.common.concurrency.AdaptiveConcurrencyController;
+import com.taxi.common.concurrency.AdaptiveConcurrencyProperties;
 import com.taxi.common.event.TripCompletedEvent;
+import com.taxi.common.outbox.OutboxConfiguration;
+import com.taxi.common.serde.EventSerde;
+import com.taxi.common.tracing.EventLatencyConfiguration;
+import com.taxi.common.tracing.EventLatencyInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
 import org.springframework.kafka.core.*;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
+@EnableConfigurationProperties(AdaptiveConcurrencyProperties.class)
+@Import({OutboxConfiguration.class, EventLatencyConfiguration.class})
 public class KafkaConfig {
 
+    private final AdaptiveConcurrencyProperties adaptiveConcurrency;
+
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${taxi.kafka.serde:json}")
+    private String serde;
+
+    @Value("${taxi.outbox.producer.linger-ms:20}")
+    private int lingerMs;
+
+    @Value("${taxi.outbox.producer.batch-size:262144}")
+    private int batchSize;
+
+    @Value("${taxi.outbox.producer.compression-type:lz4}")
+    private String compressionType;
+
+    @Value("${payment.kafka.max-poll-records:500}")
+    private int maxPollRecords;
+
+    public KafkaConfig(AdaptiveConcurrencyProperties adaptiveConcurrency) {
+        this.adaptiveConcurrency = adaptiveConcurrency;
+    }
+
     @Bean
     public ConsumerFactory<String, TripCompletedEvent> consumerFactory() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, "payment-service");
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-        props.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
-        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, TripCompletedEvent.class.getName());
+        // A new group works through the backlog, which the lag of AdaptiveConcurrencyController counts
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        EventSerde.from(serde).configureConsumer(props, TripCompletedEvent.class);
         return new DefaultKafkaConsumerFactory<>(props);
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, TripCompletedEvent> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, TripCompletedEvent> kafkaListenerContainerFactory(
+            MeterRegistry meterRegistry) {
         ConcurrentKafkaListenerContainerFactory<String, TripCompletedEvent> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(adaptiveConcurrency.getMinConcurrency());
+        // Whole polls are handed to the listener and processed concurrently
+        factory.setBatchListener(true);
+        factory.setBatchInterceptor(new EventLatencyInterceptor<>(meterRegistry));
         return factory;
     }
 
     @Bean
-    public ProducerFactory<String, PaymentProcessedEvent> producerFactory() {
+    @ConditionalOnProperty(name = "taxi.kafka.adaptive-concurrency.enabled", havingValue = "true", matchIfMissing = true)
+    public AdaptiveConcurrencyController adaptiveConcurrencyController(KafkaListenerEndpointRegistry registry,
+                                                                       KafkaAdmin kafkaAdmin,
+                                                                       MeterRegistry meterRegistry) {
+        return adaptiveConcurrency.controller("payment-trip-completed", registry, kafkaAdmin, meterRegistry);
+    }
+
+    @Bean
+    public ProducerFactory<String, byte[]> producerFactory(MeterRegistry meterRegistry) {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        // Values are serialized with the configured serde when they are written to the outbox
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        DefaultKafkaProducerFactory<String, byte[]> factory = new DefaultKafkaProducerFactory<>(configProps);
+        // Exposes the client metrics, e.g. kafka.producer.records.per.request.avg
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
-    public KafkaTemplate<String, PaymentProcessedEvent> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, byte[]> kafkaTemplate(ProducerFactory<String, byte[]> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
     }
 }
@@ -0,0 +1,28 @@
+package com.taxi.payment.gateway;
+
+import com.taxi.payment.model.Payment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Simulated external payment gateway. In production this would call the payment provider;
+ * here it only blocks for the configured latency.
+ */
+@Component
+public class PaymentGateway {
+    private final long latencyMs;
+
+    public PaymentGateway(@Value("${payment.gateway.latency-ms:1000}") long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    public boolean charge(Payment payment) {
+        try {
+            Thread.sleep(latencyMs); // Simulate processing time
+            return true; // Always successful for demo purposes
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
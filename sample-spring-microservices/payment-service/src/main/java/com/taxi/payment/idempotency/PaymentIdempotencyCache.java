@@ -0,0 +1,141 @@
+package com.taxi.payment.idempotency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local idempotency layer in front of the {@code payments} table. An LRU set of recently seen trip
+ * ids answers redeliveries without a DB read, and a Bloom filter of all paid trips (loaded from the
+ * table at startup) proves most new trips absent so they skip the existence query.
+ *
+ * <p>The cache is per instance and may miss payments written by other instances; that is safe
+ * because every new payment is still claimed with {@code ON CONFLICT (trip_id)}. Only settled trips
+ * are recorded, so a payment left {@code PENDING} by a failed batch is claimed again on redelivery.
+ */
+@Component
+@Slf4j
+public class PaymentIdempotencyCache {
+    public enum Lookup {
+        /**
+         * Recently seen, a payment exists.
+         */
+        DUPLICATE,
+        /**
+         * Not in the Bloom filter, no payment existed at startup or was recorded since.
+         */
+        NEW,
+        /**
+         * Possibly paid, has to be checked in the database.
+         */
+        UNKNOWN
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long configuredInsertions;
+    private final double falsePositiveProbability;
+    private final Map<Long, Boolean> recent;
+    private volatile BloomFilter bloomFilter;
+    private volatile boolean loaded;
+
+    private final Counter lruHits;
+    private final Counter bloomNegatives;
+    private final Counter bloomPositives;
+    private final Counter bloomFalsePositives;
+
+    public PaymentIdempotencyCache(JdbcTemplate jdbcTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${payment.idempotency.lru-size:100000}") int lruSize,
+                                   @Value("${payment.idempotency.bloom.expected-insertions:1000000}") long expectedInsertions,
+                                   @Value("${payment.idempotency.bloom.false-positive-probability:0.01}") double falsePositiveProbability) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.configuredInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                return size() > lruSize;
+            }
+        });
+        this.bloomFilter = new BloomFilter(expectedInsertions, falsePositiveProbability);
+
+        this.lruHits = lookupCounter(meterRegistry, "lru_hit");
+        this.bloomNegatives = lookupCounter(meterRegistry, "bloom_negative");
+        this.bloomPositives = lookupCounter(meterRegistry, "bloom_positive");
+        this.bloomFalsePositives = Counter.builder("payment.idempotency.bloom.false.positives")
+                .description("Bloom filter positives the database showed to be new trips")
+                .register(meterRegistry);
+        Gauge.builder("payment.idempotency.lru.size", recent, Map::size)
+                .description("Trip ids held in the recent LRU set")
+                .register(meterRegistry);
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("payment.idempotency.lookups")
+                .description("Idempotency lookups by how they were answered")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the trip ids of all existing payments into a fresh Bloom filter sized for the table.
+     * Until it finished every trip not in the LRU set is reported as {@link Lookup#UNKNOWN}.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM payments", Long.class);
+        long expected = Math.max(configuredInsertions, 2 * (rows == null ? 0 : rows));
+        BloomFilter filter = new BloomFilter(expected, falsePositiveProbability);
+        // Trips recorded while loading go to the new filter as well
+        bloomFilter = filter;
+        AtomicLong count = new AtomicLong();
+        jdbcTemplate.query("SELECT trip_id FROM payments", rs -> {
+            filter.put(rs.getLong(1));
+            count.incrementAndGet();
+        });
+        loaded = true;
+        log.info("Loaded {} paid trips into the idempotency Bloom filter (capacity {})", count.get(), expected);
+    }
+
+    public Lookup lookup(long tripId) {
+        if (recent.get(tripId) != null) {
+            lruHits.increment();
+            return Lookup.DUPLICATE;
+        }
+        if (loaded && !bloomFilter.mightContain(tripId)) {
+            bloomNegatives.increment();
+            return Lookup.NEW;
+        }
+        // Also counts lookups made before the filter was loaded
+        bloomPositives.increment();
+        return Lookup.UNKNOWN;
+    }
+
+    /**
+     * Marks the trip as settled, i.e. its row in {@code payments} is completed or failed.
+     */
+    public void record(long tripId) {
+        bloomFilter.put(tripId);
+        recent.put(tripId, Boolean.TRUE);
+    }
+
+    /**
+     * Reports {@link Lookup#UNKNOWN} trips the database did not know.
+     */
+    public void recordFalsePositives(int count) {
+        if (loaded && count > 0) {
+            bloomFalsePositives.increment(count);
+        }
+    }
+}
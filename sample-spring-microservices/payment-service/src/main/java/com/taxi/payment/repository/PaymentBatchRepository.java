@@ -0,0 +1,115 @@
+package com.taxi.payment.repository;
+
+import com.taxi.payment.model.Payment;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC batch writes of payments, used by the batch listener instead of one {@code save} per event.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PaymentBatchRepository {
+    private static final String CLAIM_SQL = """
+            INSERT INTO payments (trip_id, user_id, amount, status, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (trip_id) DO UPDATE SET updated_at = EXCLUDED.updated_at
+            WHERE payments.status = 'PENDING' AND payments.updated_at < ?""";
+    private static final String CLAIM_STALE_SQL = """
+            UPDATE payments SET updated_at = ?
+            WHERE id IN (SELECT id FROM payments
+                         WHERE status = 'PENDING' AND updated_at < ?
+                         ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED)
+            RETURNING trip_id, user_id, amount""";
+    private static final String UPDATE_RESULT_SQL = """
+            UPDATE payments SET status = ?, transaction_id = ?, updated_at = ?
+            WHERE trip_id = ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the payments as {@code PENDING} in one batch and returns the ones claimed. Rows whose
+     * trip already has a payment are skipped by the unique {@code trip_id}, so a trip is only ever
+     * claimed by one consumer at a time, unless the row is still {@code PENDING} since before
+     * {@code staleBefore}: its claimant died before settling it, and the row is claimed again.
+     */
+    public List<Payment> claimPending(List<Payment> payments, LocalDateTime staleBefore) {
+        if (payments.isEmpty()) {
+            return List.of();
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Timestamp stale = Timestamp.valueOf(staleBefore);
+        int[] counts = jdbcTemplate.batchUpdate(CLAIM_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Payment payment = payments.get(i);
+                ps.setLong(1, payment.getTripId());
+                ps.setLong(2, payment.getUserId());
+                ps.setBigDecimal(3, payment.getAmount());
+                ps.setString(4, Payment.PaymentStatus.PENDING.name());
+                ps.setTimestamp(5, now);
+                ps.setTimestamp(6, now);
+                ps.setTimestamp(7, stale);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return payments.size();
+            }
+        });
+
+        List<Payment> claimed = new ArrayList<>(payments.size());
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 1) {
+                claimed.add(payments.get(i));
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Claims up to {@code limit} payments left {@code PENDING} since before {@code staleBefore},
+     * skipping rows another instance is claiming at the same time.
+     */
+    public List<Payment> claimStale(LocalDateTime staleBefore, int limit) {
+        return jdbcTemplate.query(CLAIM_STALE_SQL, (rs, rowNum) -> {
+            Payment payment = new Payment();
+            payment.setTripId(rs.getLong("trip_id"));
+            payment.setUserId(rs.getLong("user_id"));
+            payment.setAmount(rs.getBigDecimal("amount"));
+            payment.setStatus(Payment.PaymentStatus.PENDING);
+            return payment;
+        }, Timestamp.valueOf(LocalDateTime.now()), Timestamp.valueOf(staleBefore), limit);
+    }
+
+    public void updateResults(List<Payment> payments) {
+        if (payments.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPDATE_RESULT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Payment payment = payments.get(i);
+                ps.setString(1, payment.getStatus().name());
+                ps.setString(2, payment.getTransactionId());
+                ps.setTimestamp(3, now);
+                ps.setLong(4, payment.getTripId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return payments.size();
+            }
+        });
+    }
+}
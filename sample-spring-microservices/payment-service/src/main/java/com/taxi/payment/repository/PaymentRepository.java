@@ -2,12 +2,23 @@ package com.taxi.payment.repository;
 
 import com.taxi.payment.model.Payment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Optional<Payment> findByTripId(Long tripId);
     boolean existsByTripId(Long tripId);
+
+    /**
+     * Trips among {@code tripIds} whose payment was completed or failed, i.e. is no longer {@code PENDING}.
+     */
+    @Query("SELECT p.tripId FROM Payment p WHERE p.tripId IN :tripIds"
+            + " AND p.status <> com.taxi.payment.model.Payment.PaymentStatus.PENDING")
+    Set<Long> findSettledTripIds(@Param("tripIds") Collection<Long> tripIds);
 }
@@ -0,0 +1,86 @@
+package com.taxi.payment.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs blocking work on virtual threads with at most {@code maxInFlight} tasks running at once.
+ * Items sharing a key are handled one after another in their original order; different keys
+ * run concurrently.
+ */
+@Component
+public class KeyOrderedExecutor {
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+
+    public KeyOrderedExecutor(@Value("${payment.processing.max-in-flight:64}") int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Max in-flight must be positive");
+        }
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Handles all items and returns once every one of them has finished. A failing item stops
+     * the remaining items of its key; the first failure is rethrown after all other keys completed.
+     */
+    public <T, K> void executeAll(List<T> items, Function<T, K> key, Consumer<T> handler) {
+        Map<K, List<T>> groups = new LinkedHashMap<>();
+        for (T item : items) {
+            groups.computeIfAbsent(key.apply(item), k -> new ArrayList<>()).add(item);
+        }
+
+        List<Future<?>> futures = new ArrayList<>(groups.size());
+        for (List<T> group : groups.values()) {
+            futures.add(executor.submit(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    group.forEach(handler);
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+
+        RuntimeException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = addFailure(failure, new IllegalStateException("Interrupted while waiting for tasks", e));
+            } catch (ExecutionException e) {
+                failure = addFailure(failure, e.getCause());
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static RuntimeException addFailure(RuntimeException failure, Throwable cause) {
+        if (failure == null) {
+            return cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
+        }
+        failure.addSuppressed(cause);
+        return failure;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
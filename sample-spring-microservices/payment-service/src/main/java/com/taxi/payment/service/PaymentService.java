@@ -3,82 +3,167 @@ package com.taxi.payment.service;
 import com.taxi.common.config.KafkaTopics;
 import com.taxi.common.event.PaymentProcessedEvent;
 import com.taxi.common.event.TripCompletedEvent;
+import com.taxi.common.outbox.OutboxMessage;
+import com.taxi.common.outbox.OutboxWriter;
+import com.taxi.common.tracing.EventTraceContext;
+import com.taxi.payment.gateway.PaymentGateway;
+import com.taxi.payment.idempotency.PaymentIdempotencyCache;
 import com.taxi.payment.model.Payment;
+import com.taxi.payment.repository.PaymentBatchRepository;
 import com.taxi.payment.repository.PaymentRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.LongFunction;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class PaymentService {
     private final PaymentRepository paymentRepository;
-    private final KafkaTemplate<String, PaymentProcessedEvent> kafkaTemplate;
+    private final PaymentBatchRepository paymentBatchRepository;
+    private final OutboxWriter outboxWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final PaymentGateway paymentGateway;
+    private final KeyOrderedExecutor keyOrderedExecutor;
+    private final PaymentIdempotencyCache idempotencyCache;
 
-    @KafkaListener(topics = KafkaTopics.TRIP_COMPLETED, groupId = "payment-service")
-    @Transactional
-    public void processTripCompletedEvent(TripCompletedEvent event) {
-        log.info("Processing payment for trip: {}", event.getTripId());
+    @Value("${payment.processing.claim-lease-ms:300000}")
+    private long claimLeaseMs;
 
-        // Idempotency check: skip if payment already exists for this trip
-        if (paymentRepository.existsByTripId(event.getTripId())) {
-            log.info("Payment already exists for trip: {}, skipping duplicate processing", event.getTripId());
-            return;
+    @Value("${payment.processing.stale-claim-batch-size:500}")
+    private int staleClaimBatchSize;
+
+    /**
+     * Processes a polled batch with a constant number of DB round trips: one {@code IN} query for
+     * trips the idempotency cache cannot decide, one batch insert claiming the new ones and one
+     * transaction updating the results and storing the payment events in the outbox.
+     * Gateway calls run concurrently and the method only returns once the whole batch is done, so
+     * the container commits the offsets afterwards.
+     */
+    @KafkaListener(id = "payment-trip-completed", topics = KafkaTopics.TRIP_COMPLETED, groupId = "payment-service")
+    public void processTripCompletedEvents(List<TripCompletedEvent> events) {
+        Map<Long, TripCompletedEvent> eventsByTripId = new LinkedHashMap<>();
+        List<Long> unknown = new ArrayList<>();
+        int cached = 0;
+        for (TripCompletedEvent event : events) {
+            if (eventsByTripId.containsKey(event.getTripId())) {
+                continue;
+            }
+            // Recently settled trips are dropped without a DB read
+            PaymentIdempotencyCache.Lookup lookup = idempotencyCache.lookup(event.getTripId());
+            if (lookup == PaymentIdempotencyCache.Lookup.DUPLICATE) {
+                cached++;
+                continue;
+            }
+            if (lookup == PaymentIdempotencyCache.Lookup.UNKNOWN) {
+                unknown.add(event.getTripId());
+            }
+            eventsByTripId.put(event.getTripId(), event);
         }
 
-        Payment payment = new Payment();
-        payment.setTripId(event.getTripId());
-        payment.setUserId(event.getUserId());
-        payment.setAmount(event.getCost());
-        payment.setStatus(Payment.PaymentStatus.PENDING);
+        // Idempotency check: only trips the Bloom filter cannot rule out are looked up
+        Set<Long> settled = unknown.isEmpty() ? Set.of() : paymentRepository.findSettledTripIds(unknown);
+        idempotencyCache.recordFalsePositives(unknown.size() - settled.size());
+        settled.forEach(idempotencyCache::record);
+        List<Payment> pending = new ArrayList<>(eventsByTripId.size());
+        for (TripCompletedEvent event : eventsByTripId.values()) {
+            if (settled.contains(event.getTripId())) {
+                continue;
+            }
+            Payment payment = new Payment();
+            payment.setTripId(event.getTripId());
+            payment.setUserId(event.getUserId());
+            payment.setAmount(event.getCost());
+            payment.setStatus(Payment.PaymentStatus.PENDING);
+            pending.add(payment);
+        }
 
-        // Simulate payment processing
-        boolean paymentSuccess = processPayment(payment);
+        // Trips another consumer is settling right now are not claimed and not charged again
+        List<Payment> claimed = paymentBatchRepository.claimPending(pending, staleBefore());
+        log.info("Processing payments for {} of {} trip completed events ({} repeated in the batch, {} recently settled,"
+                        + " {} already settled, {} claimed elsewhere)",
+                claimed.size(), events.size(), events.size() - eventsByTripId.size() - cached, cached,
+                settled.size(), pending.size() - claimed.size());
+        settle(claimed, tripId -> EventTraceContext.traceIdOf(eventsByTripId.get(tripId)));
+    }
 
-        if (paymentSuccess) {
-            payment.setStatus(Payment.PaymentStatus.COMPLETED);
-            payment.setTransactionId(UUID.randomUUID().toString());
-            log.info("Payment completed for trip: {}", event.getTripId());
-        } else {
-            payment.setStatus(Payment.PaymentStatus.FAILED);
-            log.error("Payment failed for trip: {}", event.getTripId());
+    /**
+     * Settles payments whose claimant stopped before settling them: a crash between the claim and
+     * the result transaction leaves the row {@code PENDING}, and the redelivered event may arrive
+     * while the claim is still leased, or never if the offsets were committed.
+     */
+    @Scheduled(fixedDelayString = "${payment.processing.stale-claim-sweep-interval-ms:60000}")
+    public void settleStaleClaims() {
+        List<Payment> stale = paymentBatchRepository.claimStale(staleBefore(), staleClaimBatchSize);
+        if (!stale.isEmpty()) {
+            log.warn("Settling {} payments left pending for more than {} ms", stale.size(), claimLeaseMs);
+            // The trip completed event is gone, so the payment event starts a new trace
+            settle(stale, tripId -> null);
         }
+    }
 
-        try {
-            paymentRepository.save(payment);
-        } catch (DataIntegrityViolationException e) {
-            // Handle unique constraint violation as idempotency (concurrent delivery)
-            log.info("Payment already processed for trip: {} (concurrent delivery)", event.getTripId());
+    private LocalDateTime staleBefore() {
+        return LocalDateTime.now().minus(Duration.ofMillis(claimLeaseMs));
+    }
+
+    private void settle(List<Payment> claimed, LongFunction<String> traceIds) {
+        if (claimed.isEmpty()) {
             return;
         }
+        keyOrderedExecutor.executeAll(claimed, Payment::getTripId, this::charge);
 
-        // Publish payment processed event
-        PaymentProcessedEvent paymentEvent = new PaymentProcessedEvent(
-                event.getTripId(),
-                event.getUserId(),
-                payment.getAmount(),
-                paymentSuccess,
-                payment.getTransactionId()
-        );
-        kafkaTemplate.send(KafkaTopics.PAYMENT_PROCESSED, paymentEvent);
+        List<OutboxMessage> messages = new ArrayList<>(claimed.size());
+        for (Payment payment : claimed) {
+            PaymentProcessedEvent paymentEvent = new PaymentProcessedEvent(
+                    payment.getTripId(),
+                    payment.getUserId(),
+                    payment.getAmount(),
+                    payment.getStatus() == Payment.PaymentStatus.COMPLETED,
+                    payment.getTransactionId()
+            );
+            // Continues the trace of the trip completed event
+            messages.add(new OutboxMessage(KafkaTopics.PAYMENT_PROCESSED, String.valueOf(payment.getTripId()),
+                    paymentEvent, traceIds.apply(payment.getTripId())));
+        }
+        // Results and their events are committed together, the relay publishes them afterwards
+        transactionTemplate.executeWithoutResult(status -> {
+            paymentBatchRepository.updateResults(claimed);
+            outboxWriter.publishAll(messages);
+        });
+        // Only settled trips are cached: a trip whose claim failed must stay claimable
+        claimed.forEach(payment -> idempotencyCache.record(payment.getTripId()));
     }
 
-    private boolean processPayment(Payment payment) {
-        // Simulate payment processing logic
-        // In production, this would integrate with a payment gateway
+    private void charge(Payment payment) {
+        boolean success;
         try {
-            Thread.sleep(1000); // Simulate processing time
-            return true; // Always successful for demo purposes
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return false;
+            success = paymentGateway.charge(payment);
+        } catch (RuntimeException e) {
+            // The row is already claimed, so a redelivery would not retry it; record the failure
+            log.error("Payment gateway error for trip: {}", payment.getTripId(), e);
+            success = false;
+        }
+
+        if (success) {
+            payment.setStatus(Payment.PaymentStatus.COMPLETED);
+            payment.setTransactionId(UUID.randomUUID().toString());
+        } else {
+            payment.setStatus(Payment.PaymentStatus.FAILED);
+            log.error("Payment failed for trip: {}", payment.getTripId());
         }
     }
 }
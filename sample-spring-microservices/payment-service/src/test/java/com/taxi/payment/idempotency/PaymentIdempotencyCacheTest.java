@@ -0,0 +1,77 @@
+package com.taxi.payment.idempotency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PaymentIdempotencyCacheTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PaymentIdempotencyCache cache = new PaymentIdempotencyCache(jdbcTemplate, meterRegistry, 2, 1_000, 0.01);
+
+    @Test
+    void shouldTreatEverythingAsUnknownUntilLoaded() {
+        assertThat(cache.lookup(1L)).isEqualTo(PaymentIdempotencyCache.Lookup.UNKNOWN);
+    }
+
+    @Test
+    void shouldClassifyTripsAfterLoadingPaidOnes() throws Exception {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getLong(1)).thenReturn(10L, 11L);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(2L);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(resultSet);
+            handler.processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        cache.load();
+
+        assertThat(cache.lookup(10L)).isEqualTo(PaymentIdempotencyCache.Lookup.UNKNOWN);
+        assertThat(cache.lookup(11L)).isEqualTo(PaymentIdempotencyCache.Lookup.UNKNOWN);
+        assertThat(cache.lookup(12L)).isEqualTo(PaymentIdempotencyCache.Lookup.NEW);
+
+        cache.record(12L);
+        assertThat(cache.lookup(12L)).isEqualTo(PaymentIdempotencyCache.Lookup.DUPLICATE);
+
+        // Evicted from the LRU set, still known to the Bloom filter
+        cache.record(13L);
+        cache.record(14L);
+        assertThat(cache.lookup(12L)).isEqualTo(PaymentIdempotencyCache.Lookup.UNKNOWN);
+
+        assertThat(meterRegistry.get("payment.idempotency.lookups").tag("result", "lru_hit").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("payment.idempotency.lookups").tag("result", "bloom_negative").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldNeverReportAddedKeysAsAbsent() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (long id = 0; id < 10_000; id++) {
+            filter.put(id);
+        }
+
+        int falsePositives = 0;
+        for (long id = 0; id < 10_000; id++) {
+            assertThat(filter.mightContain(id)).isTrue();
+            if (filter.mightContain(1_000_000 + id)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(300);
+    }
+}
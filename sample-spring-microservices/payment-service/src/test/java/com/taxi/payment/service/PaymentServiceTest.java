@@ -0,0 +1,111 @@
+package com.taxi.payment.service;
+
+import com.taxi.common.event.TripCompletedEvent;
+import com.taxi.common.outbox.OutboxWriter;
+import com.taxi.payment.gateway.PaymentGateway;
+import com.taxi.payment.idempotency.PaymentIdempotencyCache;
+import com.taxi.payment.model.Payment;
+import com.taxi.payment.repository.PaymentBatchRepository;
+import com.taxi.payment.repository.PaymentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentServiceTest {
+
+    private final PaymentRepository paymentRepository = mock(PaymentRepository.class);
+    private final PaymentBatchRepository batchRepository = mock(PaymentBatchRepository.class);
+    private final OutboxWriter outboxWriter = mock(OutboxWriter.class);
+    private final KeyOrderedExecutor executor = new KeyOrderedExecutor(4);
+    private final PaymentIdempotencyCache idempotencyCache = new PaymentIdempotencyCache(
+            mock(JdbcTemplate.class), new SimpleMeterRegistry(), 100, 1_000, 0.01);
+    private final PaymentService paymentService = new PaymentService(paymentRepository, batchRepository,
+            outboxWriter, new TransactionTemplate(mock(PlatformTransactionManager.class)), new PaymentGateway(0),
+            executor, idempotencyCache);
+
+    PaymentServiceTest() {
+        ReflectionTestUtils.setField(paymentService, "claimLeaseMs", 60_000L);
+        ReflectionTestUtils.setField(paymentService, "staleClaimBatchSize", 100);
+        when(paymentRepository.findSettledTripIds(anyCollection())).thenReturn(Set.of());
+        when(batchRepository.claimPending(anyList(), any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void shouldClaimTripAgainWhenResultsFailedToCommit() {
+        doThrow(new IllegalStateException("Connection lost")).when(batchRepository).updateResults(anyList());
+
+        assertThatThrownBy(() -> paymentService.processTripCompletedEvents(List.of(event(1L))))
+                .isInstanceOf(IllegalStateException.class);
+
+        // Not cached as settled, so the redelivery tries to claim it again
+        assertThat(idempotencyCache.lookup(1L)).isNotEqualTo(PaymentIdempotencyCache.Lookup.DUPLICATE);
+        doNothing().when(batchRepository).updateResults(anyList());
+        paymentService.processTripCompletedEvents(List.of(event(1L)));
+
+        verify(batchRepository, times(2)).claimPending(anyList(), any(LocalDateTime.class));
+        verify(outboxWriter).publishAll(anyList());
+        assertThat(idempotencyCache.lookup(1L)).isEqualTo(PaymentIdempotencyCache.Lookup.DUPLICATE);
+    }
+
+    @Test
+    void shouldSkipSettledTrips() {
+        when(paymentRepository.findSettledTripIds(anyCollection())).thenReturn(Set.of(1L));
+
+        paymentService.processTripCompletedEvents(List.of(event(1L), event(1L)));
+
+        verify(batchRepository).claimPending(eq(List.of()), any(LocalDateTime.class));
+        verify(outboxWriter, never()).publishAll(anyList());
+        assertThat(idempotencyCache.lookup(1L)).isEqualTo(PaymentIdempotencyCache.Lookup.DUPLICATE);
+    }
+
+    @Test
+    void shouldSettleStaleClaims() {
+        Payment stale = new Payment();
+        stale.setTripId(7L);
+        stale.setUserId(3L);
+        stale.setAmount(new BigDecimal("12.50"));
+        stale.setStatus(Payment.PaymentStatus.PENDING);
+        when(batchRepository.claimStale(any(), anyInt())).thenReturn(List.of(stale));
+
+        paymentService.settleStaleClaims();
+
+        assertThat(stale.getStatus()).isEqualTo(Payment.PaymentStatus.COMPLETED);
+        verify(batchRepository).updateResults(List.of(stale));
+        verify(outboxWriter).publishAll(anyList());
+    }
+
+    private static TripCompletedEvent event(long tripId) {
+        LocalDateTime now = LocalDateTime.now();
+        return new TripCompletedEvent(tripId, 3L, 5L, "rider@example.com", "A", "B",
+                new BigDecimal("12.50"), 4.2, now, now);
+    }
+}
@@ -6,16 +6,21 @@ import com.taxi.review.dto.ReviewResponse;
 import com.taxi.review.service.ReviewService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/reviews")
 @RequiredArgsConstructor
 public class ReviewController {
+    // Shared caches only (the gateway), a summary changes with each new review
+    private static final CacheControl SUMMARY_CACHE_CONTROL = CacheControl.empty().sMaxAge(Duration.ofSeconds(30));
+
     private final ReviewService reviewService;
 
     @PostMapping
@@ -33,6 +38,6 @@ public class ReviewController {
     @GetMapping("/driver/{driverId}/summary")
     public ResponseEntity<DriverReviewSummary> getDriverReviewSummary(@PathVariable Long driverId) {
         DriverReviewSummary summary = reviewService.getDriverReviewSummary(driverId);
-        return ResponseEntity.ok(summary);
+        return ResponseEntity.ok().cacheControl(SUMMARY_CACHE_CONTROL).body(summary);
     }
 }
@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -11,4 +13,5 @@ public class DriverReviewSummary {
     private Long driverId;
     private Double averageRating;
     private Long totalReviews;
+    private Map<Integer, Long> ratingDistribution;
 }
@@ -0,0 +1,45 @@
+package com.taxi.review.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running rating aggregate of a driver, incremented with every new review.
+ */
+@Entity
+@Table(name = "driver_rating_summary")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriverRatingSummary {
+    @Id
+    private Long driverId;
+
+    @Column(nullable = false)
+    private long ratingSum;
+
+    @Column(nullable = false)
+    private long reviewCount;
+
+    @Column(nullable = false)
+    private long oneStar;
+
+    @Column(nullable = false)
+    private long twoStar;
+
+    @Column(nullable = false)
+    private long threeStar;
+
+    @Column(nullable = false)
+    private long fourStar;
+
+    @Column(nullable = false)
+    private long fiveStar;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
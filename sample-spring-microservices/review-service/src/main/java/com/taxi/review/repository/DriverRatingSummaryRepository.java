@@ -0,0 +1,68 @@
+package com.taxi.review.repository;
+
+import com.taxi.review.model.DriverRatingSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DriverRatingSummaryRepository extends JpaRepository<DriverRatingSummary, Long> {
+
+    /**
+     * Adds one rating to the driver's aggregate; the upsert locks the row, so concurrent reviews
+     * of the same driver are never lost.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO driver_rating_summary
+                (driver_id, rating_sum, review_count, one_star, two_star, three_star, four_star, five_star, updated_at)
+            VALUES (:driverId, :rating, 1,
+                CASE WHEN :rating = 1 THEN 1 ELSE 0 END,
+                CASE WHEN :rating = 2 THEN 1 ELSE 0 END,
+                CASE WHEN :rating = 3 THEN 1 ELSE 0 END,
+                CASE WHEN :rating = 4 THEN 1 ELSE 0 END,
+                CASE WHEN :rating = 5 THEN 1 ELSE 0 END,
+                now())
+            ON CONFLICT (driver_id) DO UPDATE SET
+                rating_sum = driver_rating_summary.rating_sum + EXCLUDED.rating_sum,
+                review_count = driver_rating_summary.review_count + 1,
+                one_star = driver_rating_summary.one_star + EXCLUDED.one_star,
+                two_star = driver_rating_summary.two_star + EXCLUDED.two_star,
+                three_star = driver_rating_summary.three_star + EXCLUDED.three_star,
+                four_star = driver_rating_summary.four_star + EXCLUDED.four_star,
+                five_star = driver_rating_summary.five_star + EXCLUDED.five_star,
+                updated_at = EXCLUDED.updated_at
+            """, nativeQuery = true)
+    void addRating(@Param("driverId") Long driverId, @Param("rating") int rating);
+
+    /**
+     * Rebuilds every driver's aggregate from the reviews table, the source of truth, replacing
+     * whatever the summary row held; returns how many drivers were rebuilt.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO driver_rating_summary
+                (driver_id, rating_sum, review_count, one_star, two_star, three_star, four_star, five_star, updated_at)
+            SELECT driver_id, SUM(rating), COUNT(*),
+                COUNT(*) FILTER (WHERE rating = 1),
+                COUNT(*) FILTER (WHERE rating = 2),
+                COUNT(*) FILTER (WHERE rating = 3),
+                COUNT(*) FILTER (WHERE rating = 4),
+                COUNT(*) FILTER (WHERE rating = 5),
+                now()
+            FROM reviews
+            GROUP BY driver_id
+            ON CONFLICT (driver_id) DO UPDATE SET
+                rating_sum = EXCLUDED.rating_sum,
+                review_count = EXCLUDED.review_count,
+                one_star = EXCLUDED.one_star,
+                two_star = EXCLUDED.two_star,
+                three_star = EXCLUDED.three_star,
+                four_star = EXCLUDED.four_star,
+                five_star = EXCLUDED.five_star,
+                updated_at = EXCLUDED.updated_at
+            """, nativeQuery = true)
+    int rebuildFromReviews();
+}
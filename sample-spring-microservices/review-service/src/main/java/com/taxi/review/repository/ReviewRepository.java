@@ -2,7 +2,6 @@ package com.taxi.review.repository;
 
 import com.taxi.review.model.Review;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,10 +11,4 @@ import java.util.Optional;
 public interface ReviewRepository extends JpaRepository<Review, Long> {
     Optional<Review> findByTripId(Long tripId);
     List<Review> findByDriverIdOrderByCreatedAtDesc(Long driverId);
-
-    @Query("SELECT AVG(r.rating) FROM Review r WHERE r.driverId = :driverId")
-    Double getAverageRatingForDriver(Long driverId);
-
-    @Query("SELECT COUNT(r) FROM Review r WHERE r.driverId = :driverId")
-    Long getReviewCountForDriver(Long driverId);
 }
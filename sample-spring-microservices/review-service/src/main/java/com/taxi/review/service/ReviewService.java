@@ -3,19 +3,44 @@ package com.taxi.review.service;
 import com.taxi.review.dto.DriverReviewSummary;
 import com.taxi.review.dto.ReviewRequest;
 import com.taxi.review.dto.ReviewResponse;
+import com.taxi.review.model.DriverRatingSummary;
 import com.taxi.review.model.Review;
+import com.taxi.review.repository.DriverRatingSummaryRepository;
 import com.taxi.review.repository.ReviewRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
-public class ReviewService {
+@Slf4j
+public class ReviewService implements SmartInitializingSingleton {
     private final ReviewRepository reviewRepository;
+    private final DriverRatingSummaryRepository driverRatingSummaryRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        // Runs before the web server starts, so no review of this instance races the rebuild
+        rebuildRatingSummaries();
+    }
+
+    /**
+     * Recomputes the rating summaries from the reviews, covering reviews written before the
+     * aggregates existed or while an earlier version was running.
+     */
+    public void rebuildRatingSummaries() {
+        Integer drivers = transactionTemplate.execute(status -> driverRatingSummaryRepository.rebuildFromReviews());
+        log.info("Rebuilt rating summaries of {} drivers from the reviews", drivers);
+    }
 
     @Transactional
     public ReviewResponse createReview(ReviewRequest request) {
@@ -32,6 +57,7 @@ public class ReviewService {
         review.setComment(request.getComment());
 
         review = reviewRepository.save(review);
+        driverRatingSummaryRepository.addRating(review.getDriverId(), review.getRating());
 
         return mapToResponse(review);
     }
@@ -44,13 +70,23 @@ public class ReviewService {
     }
 
     public DriverReviewSummary getDriverReviewSummary(Long driverId) {
-        Double averageRating = reviewRepository.getAverageRatingForDriver(driverId);
-        Long totalReviews = reviewRepository.getReviewCountForDriver(driverId);
+        DriverRatingSummary summary = driverRatingSummaryRepository.findById(driverId)
+                .orElseGet(() -> new DriverRatingSummary(driverId, 0, 0, 0, 0, 0, 0, 0, null));
+        double averageRating = summary.getReviewCount() > 0
+                ? (double) summary.getRatingSum() / summary.getReviewCount()
+                : 0.0;
 
         return new DriverReviewSummary(
                 driverId,
-                averageRating != null ? Math.round(averageRating * 10.0) / 10.0 : 0.0,
-                totalReviews
+                Math.round(averageRating * 10.0) / 10.0,
+                summary.getReviewCount(),
+                new TreeMap<>(Map.of(
+                        1, summary.getOneStar(),
+                        2, summary.getTwoStar(),
+                        3, summary.getThreeStar(),
+                        4, summary.getFourStar(),
+                        5, summary.getFiveStar()
+                ))
         );
     }
 
@@ -70,6 +70,7 @@ class ReviewControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.driverId").value(1))
                 .andExpect(jsonPath("$.totalReviews").exists())
-                .andExpect(jsonPath("$.averageRating").exists());
+                .andExpect(jsonPath("$.averageRating").exists())
+                .andExpect(jsonPath("$.ratingDistribution['4']").value(1));
     }
 }
@@ -0,0 +1,102 @@
+package com.taxi.review.service;
+
+import com.taxi.review.dto.DriverReviewSummary;
+import com.taxi.review.dto.ReviewRequest;
+import com.taxi.review.model.Review;
+import com.taxi.review.repository.ReviewRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class ReviewServiceTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("test_db")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.security.oauth2.resourceserver.jwt.issuer-uri", () -> "http://mock-issuer");
+        registry.add("spring.security.oauth2.resourceserver.jwt.jwk-set-uri", () -> "http://mock-issuer/jwks");
+    }
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Test
+    void shouldAddEveryReviewToTheDriverSummary() {
+        reviewService.createReview(new ReviewRequest(101L, 1L, 10L, 5, null));
+        reviewService.createReview(new ReviewRequest(102L, 2L, 10L, 3, null));
+        reviewService.createReview(new ReviewRequest(103L, 3L, 10L, 5, null));
+
+        DriverReviewSummary summary = reviewService.getDriverReviewSummary(10L);
+
+        assertThat(summary.getTotalReviews()).isEqualTo(3);
+        assertThat(summary.getAverageRating()).isEqualTo(4.3);
+        assertThat(summary.getRatingDistribution())
+                .containsEntry(5, 2L)
+                .containsEntry(3, 1L)
+                .containsEntry(1, 0L);
+    }
+
+    @Test
+    void shouldRebuildSummariesThatMissEarlierReviews() {
+        // Reviews written before the aggregates existed
+        reviewRepository.save(review(201L, 20L, 2));
+        reviewRepository.save(review(202L, 20L, 4));
+        reviewRepository.save(review(203L, 21L, 1));
+        // A new review creates the summary row, counting only itself
+        reviewService.createReview(new ReviewRequest(204L, 1L, 20L, 5, null));
+        assertThat(reviewService.getDriverReviewSummary(20L).getTotalReviews()).isEqualTo(1);
+
+        reviewService.rebuildRatingSummaries();
+
+        DriverReviewSummary rebuilt = reviewService.getDriverReviewSummary(20L);
+        assertThat(rebuilt.getTotalReviews()).isEqualTo(3);
+        assertThat(rebuilt.getAverageRating()).isEqualTo(3.7);
+        assertThat(rebuilt.getRatingDistribution())
+                .containsEntry(2, 1L)
+                .containsEntry(4, 1L)
+                .containsEntry(5, 1L);
+        assertThat(reviewService.getDriverReviewSummary(21L).getTotalReviews()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldLeaveRebuiltSummariesUnchangedWhenRunAgain() {
+        reviewService.createReview(new ReviewRequest(301L, 1L, 30L, 4, null));
+        reviewService.createReview(new ReviewRequest(302L, 2L, 30L, 2, null));
+
+        reviewService.rebuildRatingSummaries();
+        reviewService.rebuildRatingSummaries();
+
+        DriverReviewSummary summary = reviewService.getDriverReviewSummary(30L);
+        assertThat(summary.getTotalReviews()).isEqualTo(2);
+        assertThat(summary.getAverageRating()).isEqualTo(3.0);
+    }
+
+    private static Review review(Long tripId, Long driverId, int rating) {
+        Review review = new Review();
+        review.setTripId(tripId);
+        review.setUserId(1L);
+        review.setDriverId(driverId);
+        review.setRating(rating);
+        return review;
+    }
+}
@@ -1,36 +1,113 @@
 package com.taxi.trip.config;
 
-import com.taxi.common.event.TripCompletedEvent;
+import com.taxi.common.config.KafkaTopics;
+import com.taxi.common.event.DriverLocationUpdateEvent;
+import com.taxi.common.outbox.OutboxConfiguration;
+import com.taxi.common.serde.EventSerde;
+import com.taxi.common.tracing.EventLatencyConfiguration;
+import com.taxi.common.tracing.EventLatencyInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
+import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
+@Import({OutboxConfiguration.class, EventLatencyConfiguration.class})
 public class KafkaConfig {
 
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${taxi.kafka.serde:json}")
+    private String serde;
+
+    @Value("${taxi.outbox.producer.linger-ms:20}")
+    private int lingerMs;
+
+    @Value("${taxi.outbox.producer.batch-size:262144}")
+    private int batchSize;
+
+    @Value("${taxi.outbox.producer.compression-type:lz4}")
+    private String compressionType;
+
+    @Value("${taxi.kafka.topics.trip-completed.partitions:6}")
+    private int tripCompletedPartitions;
+
+    @Value("${taxi.kafka.topics.driver-location-update.partitions:6}")
+    private int driverLocationUpdatePartitions;
+
+    @Bean
+    public NewTopic tripCompletedTopic() {
+        // Room for the consumer groups to scale out to (see AdaptiveConcurrencyController)
+        return TopicBuilder.name(KafkaTopics.TRIP_COMPLETED).partitions(tripCompletedPartitions).build();
+    }
+
     @Bean
-    public ProducerFactory<String, TripCompletedEvent> producerFactory() {
+    public NewTopic driverLocationUpdateTopic() {
+        return TopicBuilder.name(KafkaTopics.DRIVER_LOCATION_UPDATE).partitions(driverLocationUpdatePartitions).build();
+    }
+
+    @Bean
+    public ProducerFactory<String, byte[]> producerFactory(MeterRegistry meterRegistry) {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        // Values are serialized with the configured serde when they are written to the outbox
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        DefaultKafkaProducerFactory<String, byte[]> factory = new DefaultKafkaProducerFactory<>(configProps);
+        // Exposes the client metrics, e.g. kafka.producer.records.per.request.avg
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
+    }
+
+    @Bean
+    public KafkaTemplate<String, byte[]> kafkaTemplate(ProducerFactory<String, byte[]> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
+    }
+
+    @Bean
+    public ConsumerFactory<String, DriverLocationUpdateEvent> consumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        // Only current positions matter; older ones would be evicted as stale right away
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        EventSerde.from(serde).configureConsumer(props, DriverLocationUpdateEvent.class);
+        return new DefaultKafkaConsumerFactory<>(props);
     }
 
     @Bean
-    public KafkaTemplate<String, TripCompletedEvent> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public ConcurrentKafkaListenerContainerFactory<String, DriverLocationUpdateEvent> kafkaListenerContainerFactory(
+            MeterRegistry meterRegistry) {
+        ConcurrentKafkaListenerContainerFactory<String, DriverLocationUpdateEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setRecordInterceptor(new EventLatencyInterceptor<>(meterRegistry));
+        // The listener never acknowledges, so its per-instance group commits no offsets
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
     }
 }
@@ -1,21 +1,36 @@
 package com.taxi.trip.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.taxi.trip.dto.TripPageResponse;
 import com.taxi.trip.dto.TripRequest;
 import com.taxi.trip.dto.TripResponse;
+import com.taxi.trip.service.TripCursor;
 import com.taxi.trip.service.TripService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/trips")
 @RequiredArgsConstructor
 public class TripController {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final TripService tripService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ResponseEntity<TripResponse> requestTrip(@Valid @RequestBody TripRequest request) {
@@ -37,6 +52,12 @@ public class TripController {
         return ResponseEntity.ok(response);
     }
 
+    @PutMapping("/{tripId}/cancel")
+    public ResponseEntity<TripResponse> cancelTrip(@PathVariable Long tripId) {
+        TripResponse response = tripService.cancelTrip(tripId);
+        return ResponseEntity.ok(response);
+    }
+
     @PutMapping("/{tripId}/complete")
     public ResponseEntity<TripResponse> completeTrip(
             @PathVariable Long tripId,
@@ -52,14 +73,66 @@ public class TripController {
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<TripResponse>> getUserTripHistory(@PathVariable Long userId) {
-        List<TripResponse> trips = tripService.getUserTripHistory(userId);
-        return ResponseEntity.ok(trips);
+    public ResponseEntity<TripPageResponse> getUserTripHistory(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (!isValidPage(cursor, limit)) {
+            return ResponseEntity.badRequest().build();
+        }
+        TripPageResponse page = tripService.getUserTripHistory(userId, toCursor(cursor), limit);
+        return ResponseEntity.ok(page);
     }
 
     @GetMapping("/driver/{driverId}")
-    public ResponseEntity<List<TripResponse>> getDriverTripHistory(@PathVariable Long driverId) {
-        List<TripResponse> trips = tripService.getDriverTripHistory(driverId);
-        return ResponseEntity.ok(trips);
+    public ResponseEntity<TripPageResponse> getDriverTripHistory(
+            @PathVariable Long driverId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (!isValidPage(cursor, limit)) {
+            return ResponseEntity.badRequest().build();
+        }
+        TripPageResponse page = tripService.getDriverTripHistory(driverId, toCursor(cursor), limit);
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping("/user/{userId}/export")
+    public ResponseEntity<StreamingResponseBody> exportUserTripHistory(@PathVariable Long userId) {
+        return ndjson(userId, tripService::exportUserTripHistory);
+    }
+
+    @GetMapping("/driver/{driverId}/export")
+    public ResponseEntity<StreamingResponseBody> exportDriverTripHistory(@PathVariable Long driverId) {
+        return ndjson(driverId, tripService::exportDriverTripHistory);
+    }
+
+    private static boolean isValidPage(String cursor, int limit) {
+        return limit > 0 && limit <= MAX_PAGE_SIZE
+                && (cursor == null || cursor.isEmpty() || TripCursor.decode(cursor).isPresent());
+    }
+
+    private static TripCursor toCursor(String cursor) {
+        return cursor == null || cursor.isEmpty() ? null : TripCursor.decode(cursor).orElseThrow();
+    }
+
+    private ResponseEntity<StreamingResponseBody> ndjson(Long ownerId, BiConsumer<Long, Consumer<TripResponse>> export) {
+        ObjectWriter writer = objectMapper.writerFor(TripResponse.class);
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream);
+            try {
+                export.accept(ownerId, trip -> {
+                    try {
+                        out.write(writer.writeValueAsBytes(trip));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
     }
 }
@@ -0,0 +1,15 @@
+package com.taxi.trip.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriverCandidate {
+    private Long driverId;
+    private Double latitude;
+    private Double longitude;
+    private Double distanceKm;
+}
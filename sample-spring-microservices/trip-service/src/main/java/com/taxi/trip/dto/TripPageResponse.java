@@ -0,0 +1,18 @@
+package com.taxi.trip.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripPageResponse {
+    private List<TripResponse> items;
+    /**
+     * Opaque token for the next page, {@code null} on the last page.
+     */
+    private String nextCursor;
+}
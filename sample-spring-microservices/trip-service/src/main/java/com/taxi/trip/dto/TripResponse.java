@@ -1,5 +1,6 @@
 package com.taxi.trip.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.taxi.trip.model.Trip;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -7,6 +8,7 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -24,4 +26,7 @@ public class TripResponse {
     private LocalDateTime requestedAt;
     private LocalDateTime startedAt;
     private LocalDateTime completedAt;
+    // Closest recently seen drivers, only set when the trip is requested
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<DriverCandidate> driverCandidates;
 }
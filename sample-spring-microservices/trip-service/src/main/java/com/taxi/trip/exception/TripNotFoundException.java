@@ -0,0 +1,14 @@
+package com.taxi.trip.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * No trip with the requested id.
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class TripNotFoundException extends RuntimeException {
+    public TripNotFoundException(Long tripId) {
+        super("Trip not found: " + tripId);
+    }
+}
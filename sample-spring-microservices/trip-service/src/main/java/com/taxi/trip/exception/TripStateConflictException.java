@@ -0,0 +1,14 @@
+package com.taxi.trip.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * A lifecycle transition lost against the trip's current status, e.g. another driver accepted first.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class TripStateConflictException extends RuntimeException {
+    public TripStateConflictException(String message) {
+        super(message);
+    }
+}
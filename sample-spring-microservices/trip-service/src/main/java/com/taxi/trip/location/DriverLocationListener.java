@@ -0,0 +1,43 @@
+package com.taxi.trip.location;
+
+import com.taxi.common.config.KafkaTopics;
+import com.taxi.common.event.DriverLocationUpdateEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneOffset;
+
+/**
+ * Replicates driver locations into the local {@link DriverPositionTable}. Every trip-service instance
+ * needs all drivers, so each one subscribes in its own consumer group and is assigned every partition,
+ * including ones added later. Nothing is committed; a restarted instance resumes from the latest positions.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DriverLocationListener {
+    private final DriverPositionTable driverPositionTable;
+
+    @Value("${trip.driver-positions.max-age-ms:60000}")
+    private long maxAgeMs;
+
+    @KafkaListener(topics = KafkaTopics.DRIVER_LOCATION_UPDATE,
+            groupId = "${trip.driver-positions.group-id:trip-positions-${random.uuid}}")
+    public void onDriverLocationUpdate(DriverLocationUpdateEvent event) {
+        // Driver-service stamps events in UTC, as the event codecs encode them
+        long timestamp = event.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli();
+        driverPositionTable.update(event.getDriverId(), event.getLatitude(), event.getLongitude(), timestamp);
+    }
+
+    @Scheduled(fixedDelayString = "${trip.driver-positions.eviction-interval-ms:10000}")
+    public void evictStalePositions() {
+        int evicted = driverPositionTable.evictOlderThan(System.currentTimeMillis() - maxAgeMs);
+        if (evicted > 0) {
+            log.debug("Evicted {} stale driver positions, {} remaining", evicted, driverPositionTable.size());
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.taxi.trip.location;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Latest known position of every driver, replicated from the driver location topic.
+ *
+ * <p>Entries are spread over lock-striped open-addressing tables keyed by the primitive driver id,
+ * with positions held in parallel primitive arrays, so an update takes one stripe's write lock and
+ * allocates nothing. Updates older than the stored position are ignored, which keeps the table
+ * correct when events of one driver arrive out of order.
+ */
+@Component
+public class DriverPositionTable {
+    private static final int STRIPES = 64;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public DriverPositionTable() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public void update(long driverId, double latitude, double longitude, long timestampMillis) {
+        long hash = mix(driverId);
+        stripeFor(hash).put(driverId, hash, latitude, longitude, timestampMillis);
+    }
+
+    public boolean remove(long driverId) {
+        long hash = mix(driverId);
+        return stripeFor(hash).remove(driverId, hash);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * Drops every position reported before {@code cutoffMillis} and returns how many were dropped.
+     */
+    public int evictOlderThan(long cutoffMillis) {
+        int evicted = 0;
+        for (Stripe stripe : stripes) {
+            evicted += stripe.evictOlderThan(cutoffMillis);
+        }
+        return evicted;
+    }
+
+    /**
+     * Returns up to {@code limit} drivers within {@code radiusKm} of the given point whose position is
+     * not older than {@code minTimestampMillis}, closest first.
+     */
+    public List<Candidate> nearest(double latitude, double longitude, int limit, double radiusKm, long minTimestampMillis) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        NearestDrivers nearest = new NearestDrivers(limit, latitude, longitude, radiusKm);
+        for (Stripe stripe : stripes) {
+            stripe.collect(nearest, minTimestampMillis);
+        }
+        return nearest.sorted();
+    }
+
+    private Stripe stripeFor(long hash) {
+        return stripes[(int) (hash >>> 58) & (STRIPES - 1)];
+    }
+
+    // SplitMix64 finalizer, spreads sequential ids over stripes and slots
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Equirectangular distance, accurate enough to rank drivers around a pickup point.
+     */
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double deltaLambda = Math.toRadians(lon2 - lon1);
+        if (deltaLambda > Math.PI) {
+            deltaLambda -= 2 * Math.PI;
+        } else if (deltaLambda < -Math.PI) {
+            deltaLambda += 2 * Math.PI;
+        }
+        double x = deltaLambda * Math.cos((phi1 + phi2) / 2);
+        double y = phi2 - phi1;
+        return EARTH_RADIUS_KM * Math.sqrt(x * x + y * y);
+    }
+
+    public record Candidate(long driverId, double latitude, double longitude, double distanceKm) {
+    }
+
+    /**
+     * Linear-probing hash table of one stripe, with backward-shift deletion so no tombstones pile up.
+     */
+    private static final class Stripe {
+        private static final long EMPTY = Long.MIN_VALUE;
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private long[] keys;
+        private double[] latitudes;
+        private double[] longitudes;
+        private long[] timestamps;
+        private int size;
+
+        Stripe() {
+            allocate(INITIAL_CAPACITY);
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            latitudes = new double[capacity];
+            longitudes = new double[capacity];
+            timestamps = new long[capacity];
+        }
+
+        void put(long key, long hash, double latitude, double longitude, long timestamp) {
+            lock.writeLock().lock();
+            try {
+                int slot = find(key, hash);
+                if (keys[slot] == key) {
+                    if (timestamp < timestamps[slot]) {
+                        return;
+                    }
+                } else {
+                    if ((size + 1) * 2 > keys.length) {
+                        resize();
+                        slot = find(key, hash);
+                    }
+                    keys[slot] = key;
+                    size++;
+                }
+                latitudes[slot] = latitude;
+                longitudes[slot] = longitude;
+                timestamps[slot] = timestamp;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        boolean remove(long key, long hash) {
+            lock.writeLock().lock();
+            try {
+                int slot = find(key, hash);
+                if (keys[slot] != key) {
+                    return false;
+                }
+                removeAt(slot);
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        int evictOlderThan(long cutoff) {
+            lock.writeLock().lock();
+            try {
+                long[] stale = new long[0];
+                int count = 0;
+                for (int slot = 0; slot < keys.length; slot++) {
+                    if (keys[slot] != EMPTY && timestamps[slot] < cutoff) {
+                        if (count == stale.length) {
+                            stale = Arrays.copyOf(stale, Math.max(8, count * 2));
+                        }
+                        stale[count++] = keys[slot];
+                    }
+                }
+                // Removing shifts entries, so remove by key once the scan is done
+                for (int i = 0; i < count; i++) {
+                    removeAt(find(stale[i], mix(stale[i])));
+                }
+                return count;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void collect(NearestDrivers nearest, long minTimestamp) {
+            lock.readLock().lock();
+            try {
+                for (int slot = 0; slot < keys.length; slot++) {
+                    if (keys[slot] != EMPTY && timestamps[slot] >= minTimestamp) {
+                        nearest.offer(keys[slot], latitudes[slot], longitudes[slot]);
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int size() {
+            lock.readLock().lock();
+            try {
+                return size;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private int find(long key, long hash) {
+            int mask = keys.length - 1;
+            int slot = (int) hash & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void removeAt(int slot) {
+            int mask = keys.length - 1;
+            int gap = slot;
+            int next = (gap + 1) & mask;
+            while (keys[next] != EMPTY) {
+                int home = (int) mix(keys[next]) & mask;
+                // Move the entry back into the gap unless that would put it before its home slot
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    keys[gap] = keys[next];
+                    latitudes[gap] = latitudes[next];
+                    longitudes[gap] = longitudes[next];
+                    timestamps[gap] = timestamps[next];
+                    gap = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[gap] = EMPTY;
+            size--;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            double[] oldLatitudes = latitudes;
+            double[] oldLongitudes = longitudes;
+            long[] oldTimestamps = timestamps;
+            allocate(oldKeys.length * 2);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = find(oldKeys[i], mix(oldKeys[i]));
+                    keys[slot] = oldKeys[i];
+                    latitudes[slot] = oldLatitudes[i];
+                    longitudes[slot] = oldLongitudes[i];
+                    timestamps[slot] = oldTimestamps[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Bounded max-heap on distance keeping the {@code limit} closest drivers seen so far.
+     */
+    private static final class NearestDrivers {
+        private final double latitude;
+        private final double longitude;
+        private final double radiusKm;
+        private final long[] ids;
+        private final double[] latitudes;
+        private final double[] longitudes;
+        private final double[] distances;
+        private int size;
+
+        NearestDrivers(int limit, double latitude, double longitude, double radiusKm) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.radiusKm = radiusKm;
+            this.ids = new long[limit];
+            this.latitudes = new double[limit];
+            this.longitudes = new double[limit];
+            this.distances = new double[limit];
+        }
+
+        void offer(long id, double lat, double lon) {
+            double distance = distanceKm(latitude, longitude, lat, lon);
+            if (distance > radiusKm) {
+                return;
+            }
+            if (size < ids.length) {
+                set(size, id, lat, lon, distance);
+                siftUp(size++);
+            } else if (distance < distances[0]) {
+                set(0, id, lat, lon, distance);
+                siftDown(0);
+            }
+        }
+
+        List<Candidate> sorted() {
+            List<Candidate> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                result.add(new Candidate(ids[i], latitudes[i], longitudes[i], distances[i]));
+            }
+            result.sort((a, b) -> Double.compare(a.distanceKm(), b.distanceKm()));
+            return result;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (distances[parent] >= distances[i]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int largest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && distances[left] > distances[largest]) {
+                    largest = left;
+                }
+                if (right < size && distances[right] > distances[largest]) {
+                    largest = right;
+                }
+                if (largest == i) {
+                    return;
+                }
+                swap(i, largest);
+                i = largest;
+            }
+        }
+
+        private void set(int i, long id, double lat, double lon, double distance) {
+            ids[i] = id;
+            latitudes[i] = lat;
+            longitudes[i] = lon;
+            distances[i] = distance;
+        }
+
+        private void swap(int a, int b) {
+            long id = ids[a];
+            double lat = latitudes[a];
+            double lon = longitudes[a];
+            double distance = distances[a];
+            set(a, ids[b], latitudes[b], longitudes[b], distances[b]);
+            set(b, id, lat, lon, distance);
+        }
+    }
+}
@@ -10,8 +10,8 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "trips", indexes = {
-    @Index(name = "idx_trip_user_id", columnList = "userId"),
-    @Index(name = "idx_trip_driver_id", columnList = "driverId")
+    @Index(name = "idx_trip_user_created", columnList = "userId, createdAt, id"),
+    @Index(name = "idx_trip_driver_created", columnList = "driverId, createdAt, id")
 })
 @Data
 @NoArgsConstructor
@@ -70,7 +70,7 @@ public class Trip {
     @Column(nullable = false)
     private LocalDateTime updatedAt;
 
-    `@PrePersist`
+    @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
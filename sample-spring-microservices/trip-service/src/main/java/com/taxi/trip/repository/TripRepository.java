@@ -2,12 +2,41 @@ package com.taxi.trip.repository;
 
 import com.taxi.trip.model.Trip;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface TripRepository extends JpaRepository<Trip, Long> {
-    List<Trip> findByUserIdOrderByCreatedAtDesc(Long userId);
-    List<Trip> findByDriverIdOrderByCreatedAtDesc(Long driverId);
+
+    // Keyset pages of a user's or driver's history, served by the (owner, created_at, id) indexes
+
+    @Query(value = """
+            SELECT * FROM trips WHERE user_id = :userId
+            ORDER BY created_at DESC, id DESC LIMIT :limit""", nativeQuery = true)
+    List<Trip> findUserTripsFirstPage(@Param("userId") Long userId, @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT * FROM trips WHERE user_id = :userId AND (created_at, id) < (:createdAt, :id)
+            ORDER BY created_at DESC, id DESC LIMIT :limit""", nativeQuery = true)
+    List<Trip> findUserTripsAfter(@Param("userId") Long userId,
+                                  @Param("createdAt") LocalDateTime createdAt,
+                                  @Param("id") long id,
+                                  @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT * FROM trips WHERE driver_id = :driverId
+            ORDER BY created_at DESC, id DESC LIMIT :limit""", nativeQuery = true)
+    List<Trip> findDriverTripsFirstPage(@Param("driverId") Long driverId, @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT * FROM trips WHERE driver_id = :driverId AND (created_at, id) < (:createdAt, :id)
+            ORDER BY created_at DESC, id DESC LIMIT :limit""", nativeQuery = true)
+    List<Trip> findDriverTripsAfter(@Param("driverId") Long driverId,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") long id,
+                                    @Param("limit") int limit);
 }
@@ -0,0 +1,80 @@
+package com.taxi.trip.repository;
+
+import com.taxi.trip.model.Trip;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Trip lifecycle transitions as single compare-and-set statements. Each one only matches while the
+ * trip is still in the expected status and returns the updated row, so concurrent callers need no
+ * prior read and exactly one of them wins. An empty result means the trip was missing or had already
+ * moved on.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TripTransitionRepository {
+    private static final RowMapper<Trip> TRIP_ROW_MAPPER = new BeanPropertyRowMapper<>(Trip.class);
+
+    private static final String ACCEPT_SQL = """
+            UPDATE trips SET status = 'ACCEPTED', driver_id = ?, updated_at = ?
+            WHERE id = ? AND status = 'REQUESTED'
+            RETURNING *""";
+    private static final String START_SQL = """
+            UPDATE trips SET status = 'IN_PROGRESS', started_at = ?, updated_at = ?
+            WHERE id = ? AND status = 'ACCEPTED'
+            RETURNING *""";
+    private static final String COMPLETE_SQL = """
+            UPDATE trips SET status = 'COMPLETED', completed_at = ?, updated_at = ?
+            WHERE id = ? AND status = 'IN_PROGRESS'
+            RETURNING *""";
+    private static final String ACTUAL_COST_SQL = """
+            UPDATE trips SET actual_cost = ?
+            WHERE id = ?
+            RETURNING *""";
+    private static final String CANCEL_SQL = """
+            UPDATE trips SET status = 'CANCELLED', updated_at = ?
+            WHERE id = ? AND status IN ('REQUESTED', 'ACCEPTED')
+            RETURNING *""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<Trip> accept(long tripId, long driverId) {
+        return update(ACCEPT_SQL, driverId, now(), tripId);
+    }
+
+    public Optional<Trip> start(long tripId, LocalDateTime startedAt) {
+        return update(START_SQL, Timestamp.valueOf(startedAt), now(), tripId);
+    }
+
+    public Optional<Trip> complete(long tripId, LocalDateTime completedAt) {
+        return update(COMPLETE_SQL, Timestamp.valueOf(completedAt), now(), tripId);
+    }
+
+    /**
+     * Prices a trip this transaction has just completed, whose row it still holds locked.
+     */
+    public Trip setActualCost(long tripId, BigDecimal actualCost) {
+        return update(ACTUAL_COST_SQL, actualCost, tripId)
+                .orElseThrow(() -> new IllegalStateException("Completed trip " + tripId + " disappeared"));
+    }
+
+    public Optional<Trip> cancel(long tripId) {
+        return update(CANCEL_SQL, now(), tripId);
+    }
+
+    private Optional<Trip> update(String sql, Object... args) {
+        return jdbcTemplate.query(sql, TRIP_ROW_MAPPER, args).stream().findFirst();
+    }
+
+    private static Timestamp now() {
+        return Timestamp.valueOf(LocalDateTime.now());
+    }
+}
@@ -3,52 +3,90 @@ package com.taxi.trip.service;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
 
+/**
+ * Fare engine working on fixed-point longs. Amounts are kept in nano units of the currency and
+ * multipliers in per mille, so a quote allocates nothing until the final {@link BigDecimal}.
+ */
 @Service
 public class FareCalculationService {
-    // Sample pricing configuration
-    private static final BigDecimal BASE_FARE = new BigDecimal("5.00");
-    private static final BigDecimal COST_PER_KM = new BigDecimal("2.50");
-    private static final BigDecimal PEAK_HOUR_MULTIPLIER = new BigDecimal("1.5");
-    private static final BigDecimal NIGHT_HOUR_MULTIPLIER = new BigDecimal("1.3");
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    // Equirectangular error stays far below a cent of fare up to this distance
+    private static final double EQUIRECTANGULAR_MAX_KM = 50.0;
 
-    public BigDecimal calculateFare(Double distance, LocalDateTime requestTime) {
-        BigDecimal fare = BASE_FARE;
-
-        // Add distance cost
-        BigDecimal distanceCost = COST_PER_KM.multiply(BigDecimal.valueOf(distance));
-        fare = fare.add(distanceCost);
+    // Sample pricing configuration, in 1/10^9 of the currency unit
+    private static final long SCALE = 1_000_000_000L;
+    private static final long BASE_FARE = 5 * SCALE;            // 5.00
+    private static final long COST_PER_KM = 5 * SCALE / 2;      // 2.50
+    private static final int PEAK_HOUR_MULTIPLIER = 1_500;   // 1.5
+    private static final int NIGHT_HOUR_MULTIPLIER = 1_300;  // 1.3
+    private static final int STANDARD_MULTIPLIER = 1_000;
+    private static final long CENT = SCALE * STANDARD_MULTIPLIER / 100;
 
-        // Apply time-based multipliers
-        int hour = requestTime.getHour();
+    private static final int[] MULTIPLIER_BY_HOUR = new int[24];
 
-        // Peak hours: 7-9 AM and 5-7 PM
-        if ((hour >= 7 && hour < 9) || (hour >= 17 && hour < 19)) {
-            fare = fare.multiply(PEAK_HOUR_MULTIPLIER);
-        }
-        // Night hours: 10 PM to 6 AM
-        else if (hour >= 22 || hour < 6) {
-            fare = fare.multiply(NIGHT_HOUR_MULTIPLIER);
+    static {
+        for (int hour = 0; hour < 24; hour++) {
+            // Peak hours: 7-9 AM and 5-7 PM
+            if ((hour >= 7 && hour < 9) || (hour >= 17 && hour < 19)) {
+                MULTIPLIER_BY_HOUR[hour] = PEAK_HOUR_MULTIPLIER;
+            }
+            // Night hours: 10 PM to 6 AM
+            else if (hour >= 22 || hour < 6) {
+                MULTIPLIER_BY_HOUR[hour] = NIGHT_HOUR_MULTIPLIER;
+            } else {
+                MULTIPLIER_BY_HOUR[hour] = STANDARD_MULTIPLIER;
+            }
         }
+    }
 
-        return fare.setScale(2, RoundingMode.HALF_UP);
+    public BigDecimal calculateFare(Double distance, LocalDateTime requestTime) {
+        return BigDecimal.valueOf(calculateFareCents(distance, requestTime.getHour()), 2);
     }
 
-    public Double calculateDistance(Double lat1, Double lon1, Double lat2, Double lon2) {
-        // Haversine formula to calculate distance in kilometers
-        final int EARTH_RADIUS = 6371; // Radius in kilometers
+    /**
+     * Fare in cents for a trip of {@code distanceKm} requested at the given hour of day,
+     * rounded half up like the former {@code BigDecimal} calculation.
+     */
+    public long calculateFareCents(double distanceKm, int hour) {
+        long amount = BASE_FARE + Math.round(distanceKm * COST_PER_KM);
+        long scaled = amount * MULTIPLIER_BY_HOUR[hour];
+        // amount * per mille is in 1/10^12 of the unit, cents are 1/10^2
+        return scaled >= 0 ? (scaled + CENT / 2) / CENT : -((-scaled + CENT / 2) / CENT);
+    }
 
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
+    public Double calculateDistance(Double lat1, Double lon1, Double lat2, Double lon2) {
+        return distanceKm(lat1, lon1, lat2, lon2);
+    }
 
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+    /**
+     * Distance in kilometers. Short trips use the equirectangular projection, which needs a single
+     * cosine; longer ones fall back to the haversine formula.
+     */
+    public double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double deltaLambda = Math.toRadians(lon2 - lon1);
+        if (deltaLambda > Math.PI) {
+            deltaLambda -= 2 * Math.PI;
+        } else if (deltaLambda < -Math.PI) {
+            deltaLambda += 2 * Math.PI;
+        }
 
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        double x = deltaLambda * Math.cos((phi1 + phi2) / 2);
+        double y = phi2 - phi1;
+        double distance = EARTH_RADIUS_KM * Math.sqrt(x * x + y * y);
+        if (distance <= EQUIRECTANGULAR_MAX_KM) {
+            return distance;
+        }
+        return haversineKm(phi1, phi2, deltaLambda);
+    }
 
-        return EARTH_RADIUS * c;
+    private static double haversineKm(double phi1, double phi2, double deltaLambda) {
+        double sinLat = Math.sin((phi2 - phi1) / 2);
+        double sinLon = Math.sin(deltaLambda / 2);
+        double a = sinLat * sinLat + Math.cos(phi1) * Math.cos(phi2) * sinLon * sinLon;
+        return 2 * EARTH_RADIUS_KM * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
     }
 }
@@ -0,0 +1,40 @@
+package com.taxi.trip.service;
+
+import com.taxi.trip.model.Trip;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Keyset position in a trip history ordered by {@code (createdAt, id)} descending. The next page
+ * starts right after the last trip returned, so pages stay stable while new trips are created.
+ */
+public record TripCursor(LocalDateTime createdAt, long id) {
+
+    public static TripCursor after(Trip trip) {
+        return new TripCursor(trip.getCreatedAt(), trip.getId());
+    }
+
+    public String encode() {
+        String value = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Optional<TripCursor> decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf('|');
+            if (separator < 0) {
+                return Optional.empty();
+            }
+            return Optional.of(new TripCursor(
+                    LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1))));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+}
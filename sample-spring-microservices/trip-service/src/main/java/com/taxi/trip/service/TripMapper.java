@@ -0,0 +1,30 @@
+package com.taxi.trip.service;
+
+import com.taxi.trip.dto.TripResponse;
+import com.taxi.trip.model.Trip;
+
+/**
+ * Maps trips to their API representation. Runs for every trip of a history page or export.
+ */
+public final class TripMapper {
+
+    private TripMapper() {
+    }
+
+    public static TripResponse toResponse(Trip trip) {
+        TripResponse response = new TripResponse();
+        response.setId(trip.getId());
+        response.setUserId(trip.getUserId());
+        response.setDriverId(trip.getDriverId());
+        response.setPickupLocation(trip.getPickupLocation());
+        response.setDropoffLocation(trip.getDropoffLocation());
+        response.setEstimatedCost(trip.getEstimatedCost());
+        response.setActualCost(trip.getActualCost());
+        response.setDistance(trip.getDistance());
+        response.setStatus(trip.getStatus());
+        response.setRequestedAt(trip.getRequestedAt());
+        response.setStartedAt(trip.getStartedAt());
+        response.setCompletedAt(trip.getCompletedAt());
+        return response;
+    }
+}
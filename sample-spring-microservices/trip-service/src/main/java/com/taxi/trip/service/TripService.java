@@ -2,26 +2,50 @@ package com.taxi.trip.service;
 
 import com.taxi.common.config.KafkaTopics;
 import com.taxi.common.event.TripCompletedEvent;
+import com.taxi.common.outbox.OutboxWriter;
+import com.taxi.trip.dto.DriverCandidate;
+import com.taxi.trip.dto.TripPageResponse;
 import com.taxi.trip.dto.TripRequest;
 import com.taxi.trip.dto.TripResponse;
+import com.taxi.trip.exception.TripNotFoundException;
+import com.taxi.trip.exception.TripStateConflictException;
+import com.taxi.trip.location.DriverPositionTable;
 import com.taxi.trip.model.Trip;
 import com.taxi.trip.repository.TripRepository;
+import com.taxi.trip.repository.TripTransitionRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class TripService {
+    private static final int EXPORT_PAGE_SIZE = 500;
+
     private final TripRepository tripRepository;
+    private final TripTransitionRepository tripTransitionRepository;
     private final FareCalculationService fareCalculationService;
-    private final KafkaTemplate<String, TripCompletedEvent> kafkaTemplate;
+    private final OutboxWriter outboxWriter;
+    private final EntityManager entityManager;
+    private final DriverPositionTable driverPositionTable;
+
+    @Value("${trip.driver-candidates.count:5}")
+    private int driverCandidateCount;
+
+    @Value("${trip.driver-candidates.radius-km:10}")
+    private double driverCandidateRadiusKm;
+
+    @Value("${trip.driver-positions.max-age-ms:60000}")
+    private long driverPositionMaxAgeMs;
 
     @Transactional
     public TripResponse requestTrip(TripRequest request) {
@@ -51,60 +75,50 @@ public class TripService {
 
         trip = tripRepository.save(trip);
 
-        return mapToResponse(trip);
+        TripResponse response = TripMapper.toResponse(trip);
+        // Served from the replicated position table, no call to driver-service
+        response.setDriverCandidates(driverPositionTable.nearest(
+                        request.getPickupLatitude(),
+                        request.getPickupLongitude(),
+                        driverCandidateCount,
+                        driverCandidateRadiusKm,
+                        System.currentTimeMillis() - driverPositionMaxAgeMs)
+                .stream()
+                .map(candidate -> new DriverCandidate(
+                        candidate.driverId(), candidate.latitude(), candidate.longitude(), candidate.distanceKm()))
+                .collect(Collectors.toList()));
+        return response;
     }
 
-    @Transactional
     public TripResponse acceptTrip(Long tripId, Long driverId) {
-        Trip trip = tripRepository.findById(tripId)
-                .orElseThrow(() -> new RuntimeException("Trip not found"));
-
-        if (trip.getStatus() != Trip.TripStatus.REQUESTED) {
-            throw new RuntimeException("Trip cannot be accepted in current status");
-        }
-
-        trip.setDriverId(driverId);
-        trip.setStatus(Trip.TripStatus.ACCEPTED);
-        trip = tripRepository.save(trip);
-
-        return mapToResponse(trip);
+        Trip trip = tripTransitionRepository.accept(tripId, driverId)
+                .orElseThrow(() -> transitionFailure(tripId, "Trip cannot be accepted in current status"));
+        return TripMapper.toResponse(trip);
     }
 
-    @Transactional
     public TripResponse startTrip(Long tripId) {
-        Trip trip = tripRepository.findById(tripId)
-                .orElseThrow(() -> new RuntimeException("Trip not found"));
-
-        if (trip.getStatus() != Trip.TripStatus.ACCEPTED) {
-            throw new RuntimeException("Trip cannot be started in current status");
-        }
-
-        trip.setStatus(Trip.TripStatus.IN_PROGRESS);
-        trip.setStartedAt(LocalDateTime.now());
-        trip = tripRepository.save(trip);
+        Trip trip = tripTransitionRepository.start(tripId, LocalDateTime.now())
+                .orElseThrow(() -> transitionFailure(tripId, "Trip cannot be started in current status"));
+        return TripMapper.toResponse(trip);
+    }
 
-        return mapToResponse(trip);
+    public TripResponse cancelTrip(Long tripId) {
+        Trip trip = tripTransitionRepository.cancel(tripId)
+                .orElseThrow(() -> transitionFailure(tripId, "Trip cannot be cancelled in current status"));
+        return TripMapper.toResponse(trip);
     }
 
     @Transactional
     public TripResponse completeTrip(Long tripId, String userEmail) {
-        Trip trip = tripRepository.findById(tripId)
-                .orElseThrow(() -> new RuntimeException("Trip not found"));
+        LocalDateTime completedAt = LocalDateTime.now();
+        Trip completed = tripTransitionRepository.complete(tripId, completedAt)
+                .orElseThrow(() -> transitionFailure(tripId, "Trip cannot be completed in current status"));
 
-        if (trip.getStatus() != Trip.TripStatus.IN_PROGRESS) {
-            throw new RuntimeException("Trip cannot be completed in current status");
-        }
+        // Recalculate actual cost based on completion time; the row stays locked until commit
+        BigDecimal actualCost = fareCalculationService.calculateFare(completed.getDistance(), completedAt);
+        Trip trip = tripTransitionRepository.setActualCost(tripId, actualCost);
 
-        trip.setStatus(Trip.TripStatus.COMPLETED);
-        trip.setCompletedAt(LocalDateTime.now());
-
-        // Recalculate actual cost based on completion time
-        BigDecimal actualCost = fareCalculationService.calculateFare(trip.getDistance(), trip.getCompletedAt());
-        trip.setActualCost(actualCost);
-
-        trip = tripRepository.save(trip);
-
-        // Publish trip completed event to Kafka
+        // Stored with the completed trip and published to Kafka by the outbox relay after commit
         TripCompletedEvent event = new TripCompletedEvent(
                 trip.getId(),
                 trip.getUserId(),
@@ -117,45 +131,81 @@ public class TripService {
                 trip.getStartedAt(),
                 trip.getCompletedAt()
         );
-        kafkaTemplate.send(KafkaTopics.TRIP_COMPLETED, event);
+        // Keyed by trip so redeliveries of one trip stay ordered on a single partition
+        outboxWriter.publish(KafkaTopics.TRIP_COMPLETED, String.valueOf(trip.getId()), event);
 
-        return mapToResponse(trip);
+        return TripMapper.toResponse(trip);
+    }
+
+    private RuntimeException transitionFailure(Long tripId, String message) {
+        // Only reached by the losers of a race, the winner never pays for this lookup
+        if (!tripRepository.existsById(tripId)) {
+            return new TripNotFoundException(tripId);
+        }
+        return new TripStateConflictException(message);
     }
 
     public TripResponse getTripById(Long tripId) {
         Trip trip = tripRepository.findById(tripId)
-                .orElseThrow(() -> new RuntimeException("Trip not found"));
-        return mapToResponse(trip);
+                .orElseThrow(() -> new TripNotFoundException(tripId));
+        return TripMapper.toResponse(trip);
     }
 
-    public List<TripResponse> getUserTripHistory(Long userId) {
-        return tripRepository.findByUserIdOrderByCreatedAtDesc(userId)
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+    public TripPageResponse getUserTripHistory(Long userId, TripCursor cursor, int limit) {
+        return toPage(findUserTrips(userId, cursor, limit + 1), limit);
     }
 
-    public List<TripResponse> getDriverTripHistory(Long driverId) {
-        return tripRepository.findByDriverIdOrderByCreatedAtDesc(driverId)
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+    public TripPageResponse getDriverTripHistory(Long driverId, TripCursor cursor, int limit) {
+        return toPage(findDriverTrips(driverId, cursor, limit + 1), limit);
     }
 
-    private TripResponse mapToResponse(Trip trip) {
-        TripResponse response = new TripResponse();
-        response.setId(trip.getId());
-        response.setUserId(trip.getUserId());
-        response.setDriverId(trip.getDriverId());
-        response.setPickupLocation(trip.getPickupLocation());
-        response.setDropoffLocation(trip.getDropoffLocation());
-        response.setEstimatedCost(trip.getEstimatedCost());
-        response.setActualCost(trip.getActualCost());
-        response.setDistance(trip.getDistance());
-        response.setStatus(trip.getStatus());
-        response.setRequestedAt(trip.getRequestedAt());
-        response.setStartedAt(trip.getStartedAt());
-        response.setCompletedAt(trip.getCompletedAt());
-        return response;
+    /**
+     * Streams the whole history page by page, so only one page is held in memory at a time.
+     */
+    public void exportUserTripHistory(Long userId, Consumer<TripResponse> consumer) {
+        export(cursor -> findUserTrips(userId, cursor, EXPORT_PAGE_SIZE), consumer);
+    }
+
+    public void exportDriverTripHistory(Long driverId, Consumer<TripResponse> consumer) {
+        export(cursor -> findDriverTrips(driverId, cursor, EXPORT_PAGE_SIZE), consumer);
+    }
+
+    private List<Trip> findUserTrips(Long userId, TripCursor cursor, int limit) {
+        return cursor == null
+                ? tripRepository.findUserTripsFirstPage(userId, limit)
+                : tripRepository.findUserTripsAfter(userId, cursor.createdAt(), cursor.id(), limit);
+    }
+
+    private List<Trip> findDriverTrips(Long driverId, TripCursor cursor, int limit) {
+        return cursor == null
+                ? tripRepository.findDriverTripsFirstPage(driverId, limit)
+                : tripRepository.findDriverTripsAfter(driverId, cursor.createdAt(), cursor.id(), limit);
+    }
+
+    private TripPageResponse toPage(List<Trip> trips, int limit) {
+        // One extra row was fetched to tell whether another page follows
+        boolean hasMore = trips.size() > limit;
+        List<Trip> page = hasMore ? trips.subList(0, limit) : trips;
+        String nextCursor = hasMore ? TripCursor.after(page.get(page.size() - 1)).encode() : null;
+        return new TripPageResponse(
+                page.stream().map(TripMapper::toResponse).collect(Collectors.toList()),
+                nextCursor
+        );
+    }
+
+    private void export(Function<TripCursor, List<Trip>> pageLoader, Consumer<TripResponse> consumer) {
+        TripCursor cursor = null;
+        List<Trip> page;
+        do {
+            page = pageLoader.apply(cursor);
+            for (Trip trip : page) {
+                consumer.accept(TripMapper.toResponse(trip));
+            }
+            if (!page.isEmpty()) {
+                cursor = TripCursor.after(page.get(page.size() - 1));
+            }
+            // Detach the written page in case an open-in-view EntityManager spans the whole export
+            entityManager.clear();
+        } while (page.size() == EXPORT_PAGE_SIZE);
     }
 }
@@ -1,5 +1,6 @@
 package com.taxi.trip;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.taxi.trip.dto.TripRequest;
 import org.junit.jupiter.api.Test;
@@ -17,6 +18,7 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
 
+import static org.hamcrest.Matchers.nullValue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -72,4 +74,60 @@ class TripControllerTest {
                 .andExpect(jsonPath("$.estimatedCost").exists())
                 .andExpect(jsonPath("$.status").value("REQUESTED"));
     }
+
+    @Test
+    @WithMockUser
+    void shouldPageUserTripHistoryWithCursor() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            TripRequest request = new TripRequest(77L, "Pickup " + i, 40.7128, -74.0060, "Dropoff", 40.7580, -73.9855);
+            mockMvc.perform(post("/api/trips")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isCreated());
+        }
+
+        String firstPage = mockMvc.perform(get("/api/trips/user/77").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].pickupLocation").value("Pickup 2"))
+                .andExpect(jsonPath("$.nextCursor").exists())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode page = objectMapper.readTree(firstPage);
+
+        mockMvc.perform(get("/api/trips/user/77")
+                        .param("limit", "2")
+                        .param("cursor", page.get("nextCursor").asText()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].pickupLocation").value("Pickup 0"))
+                .andExpect(jsonPath("$.nextCursor").value(nullValue()));
+
+        mockMvc.perform(get("/api/trips/user/77").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void shouldRejectLosingTransitionsWithConflict() throws Exception {
+        TripRequest request = new TripRequest(5L, "Pickup", 40.7128, -74.0060, "Dropoff", 40.7580, -73.9855);
+        String created = mockMvc.perform(post("/api/trips")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long tripId = objectMapper.readTree(created).get("id").asLong();
+
+        mockMvc.perform(put("/api/trips/{tripId}/accept", tripId).param("driverId", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.driverId").value(1))
+                .andExpect(jsonPath("$.status").value("ACCEPTED"));
+        mockMvc.perform(put("/api/trips/{tripId}/accept", tripId).param("driverId", "2"))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(put("/api/trips/{tripId}/cancel", tripId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("CANCELLED"));
+        mockMvc.perform(put("/api/trips/{tripId}/start", tripId))
+                .andExpect(status().isConflict());
+    }
 }
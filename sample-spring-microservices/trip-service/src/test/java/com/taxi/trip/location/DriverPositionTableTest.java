@@ -0,0 +1,54 @@
+package com.taxi.trip.location;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DriverPositionTableTest {
+
+    private final DriverPositionTable table = new DriverPositionTable();
+
+    @Test
+    void shouldReturnNearestFreshDriversFirst() {
+        table.update(1L, 40.7128, -74.0060, 1_000);
+        table.update(2L, 40.7300, -74.0000, 1_000);
+        table.update(3L, 40.7580, -73.9855, 1_000);
+        table.update(4L, 41.5000, -73.0000, 1_000);
+        table.update(5L, 40.7129, -74.0061, 100);
+
+        List<DriverPositionTable.Candidate> candidates = table.nearest(40.7130, -74.0050, 10, 10, 500);
+
+        assertThat(candidates).extracting(DriverPositionTable.Candidate::driverId).containsExactly(1L, 2L, 3L);
+        assertThat(table.nearest(40.7130, -74.0050, 2, 10, 500))
+                .extracting(DriverPositionTable.Candidate::driverId)
+                .containsExactly(1L, 2L);
+    }
+
+    @Test
+    void shouldIgnoreOutOfOrderUpdates() {
+        table.update(1L, 40.9000, -74.0060, 2_000);
+        table.update(1L, 40.7128, -74.0060, 1_000);
+
+        assertThat(table.nearest(40.9000, -74.0060, 5, 1, 0)).hasSize(1);
+        assertThat(table.nearest(40.7128, -74.0060, 5, 1, 0)).isEmpty();
+    }
+
+    @Test
+    void shouldEvictStalePositionsAndKeepFreshOnes() {
+        for (long driverId = 1; driverId <= 10_000; driverId++) {
+            table.update(driverId, 40.0 + driverId * 1e-5, -74.0, driverId % 2 == 0 ? 5_000 : 1_000);
+        }
+
+        assertThat(table.evictOlderThan(2_000)).isEqualTo(5_000);
+        assertThat(table.size()).isEqualTo(5_000);
+        assertThat(table.nearest(40.0, -74.0, 20_000, 100, 0))
+                .allMatch(candidate -> candidate.driverId() % 2 == 0)
+                .hasSize(5_000);
+
+        assertThat(table.remove(2L)).isTrue();
+        assertThat(table.remove(2L)).isFalse();
+        assertThat(table.size()).isEqualTo(4_999);
+    }
+}
@@ -0,0 +1,70 @@
+package com.taxi.trip.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class FareCalculationServiceTest {
+
+    private final FareCalculationService service = new FareCalculationService();
+
+    @Test
+    void shouldMatchDecimalFaresForAllHours() {
+        Random random = new Random(42);
+        int mismatches = 0;
+        for (int i = 0; i < 200_000; i++) {
+            double distance = random.nextDouble() * 80;
+            int hour = random.nextInt(24);
+            BigDecimal expected = decimalFare(distance, hour);
+            BigDecimal actual = service.calculateFare(distance, LocalDateTime.of(2024, 5, 1, hour, 30));
+            if (expected.compareTo(actual) != 0) {
+                mismatches++;
+            }
+        }
+        assertThat(mismatches).isZero();
+    }
+
+    @Test
+    void shouldApproximateHaversineDistance() {
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            double lat1 = random.nextDouble() * 140 - 70;
+            double lon1 = random.nextDouble() * 360 - 180;
+            double lat2 = lat1 + random.nextDouble() * 0.6 - 0.3;
+            double lon2 = lon1 + random.nextDouble() * 0.6 - 0.3;
+
+            double expected = haversine(lat1, lon1, lat2, lon2);
+            assertThat(service.distanceKm(lat1, lon1, lat2, lon2)).isCloseTo(expected, within(expected * 0.001 + 1e-9));
+        }
+
+        // New York to London is past the equirectangular threshold
+        assertThat(service.distanceKm(40.7128, -74.0060, 51.5074, -0.1278)).isCloseTo(5570.2, within(1.0));
+        // Across the antimeridian
+        assertThat(service.distanceKm(0.0, 179.99, 0.0, -179.99)).isCloseTo(2.224, within(0.001));
+    }
+
+    private static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        return 2 * 6371 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    private static BigDecimal decimalFare(double distance, int hour) {
+        BigDecimal fare = new BigDecimal("5.00").add(new BigDecimal("2.50").multiply(BigDecimal.valueOf(distance)));
+        if ((hour >= 7 && hour < 9) || (hour >= 17 && hour < 19)) {
+            fare = fare.multiply(new BigDecimal("1.5"));
+        } else if (hour >= 22 || hour < 6) {
+            fare = fare.multiply(new BigDecimal("1.3"));
+        }
+        return fare.setScale(2, RoundingMode.HALF_UP);
+    }
+}
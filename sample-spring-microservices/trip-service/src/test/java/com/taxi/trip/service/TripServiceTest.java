@@ -0,0 +1,91 @@
+package com.taxi.trip.service;
+
+import com.taxi.common.config.KafkaTopics;
+import com.taxi.common.event.TripCompletedEvent;
+import com.taxi.common.outbox.OutboxWriter;
+import com.taxi.trip.dto.TripResponse;
+import com.taxi.trip.exception.TripNotFoundException;
+import com.taxi.trip.exception.TripStateConflictException;
+import com.taxi.trip.location.DriverPositionTable;
+import com.taxi.trip.model.Trip;
+import com.taxi.trip.repository.TripRepository;
+import com.taxi.trip.repository.TripTransitionRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TripServiceTest {
+
+    private final TripRepository tripRepository = mock(TripRepository.class);
+    private final TripTransitionRepository tripTransitionRepository = mock(TripTransitionRepository.class);
+    private final OutboxWriter outboxWriter = mock(OutboxWriter.class);
+    private final TripService service = new TripService(tripRepository, tripTransitionRepository,
+            new FareCalculationService(), outboxWriter, mock(EntityManager.class), mock(DriverPositionTable.class));
+
+    @Test
+    void shouldCompleteWithoutReadingTheTripFirst() {
+        Trip completed = trip(Trip.TripStatus.COMPLETED);
+        when(tripTransitionRepository.complete(eq(42L), any())).thenReturn(Optional.of(completed));
+        Trip priced = trip(Trip.TripStatus.COMPLETED);
+        priced.setActualCost(new BigDecimal("30.00"));
+        when(tripTransitionRepository.setActualCost(eq(42L), any())).thenReturn(priced);
+
+        TripResponse response = service.completeTrip(42L, "rider@example.com");
+
+        verify(tripRepository, never()).findById(anyLong());
+        assertThat(response.getActualCost()).isEqualByComparingTo("30.00");
+        ArgumentCaptor<TripCompletedEvent> event = ArgumentCaptor.forClass(TripCompletedEvent.class);
+        verify(outboxWriter).publish(eq(KafkaTopics.TRIP_COMPLETED), eq("42"), event.capture());
+        assertThat(event.getValue().getCost()).isEqualByComparingTo("30.00");
+    }
+
+    @Test
+    void shouldRejectCompletingATripThatIsNotInProgress() {
+        when(tripTransitionRepository.complete(eq(42L), any())).thenReturn(Optional.empty());
+        when(tripRepository.existsById(42L)).thenReturn(true);
+
+        assertThatThrownBy(() -> service.completeTrip(42L, "rider@example.com"))
+                .isInstanceOf(TripStateConflictException.class);
+        verify(tripTransitionRepository, never()).setActualCost(anyLong(), any());
+    }
+
+    @Test
+    void shouldReportMissingTripsAsNotFound() {
+        when(tripTransitionRepository.complete(eq(42L), any())).thenReturn(Optional.empty());
+        when(tripRepository.findById(42L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.completeTrip(42L, "rider@example.com"))
+                .isInstanceOf(TripNotFoundException.class);
+        assertThatThrownBy(() -> service.getTripById(42L))
+                .isInstanceOf(TripNotFoundException.class);
+    }
+
+    private static Trip trip(Trip.TripStatus status) {
+        Trip trip = new Trip();
+        trip.setId(42L);
+        trip.setUserId(7L);
+        trip.setDriverId(9L);
+        trip.setPickupLocation("A");
+        trip.setDropoffLocation("B");
+        trip.setDistance(10.0);
+        trip.setEstimatedCost(new BigDecimal("30.00"));
+        trip.setStatus(status);
+        trip.setStartedAt(LocalDateTime.of(2024, 5, 1, 10, 0));
+        trip.setCompletedAt(LocalDateTime.of(2024, 5, 1, 10, 30));
+        return trip;
+    }
+}
@@ -1,5 +1,8 @@
 package com.taxi.user.config;
 
+import com.taxi.common.security.InternalPrincipalAuthenticationFilter;
+import com.taxi.common.security.InternalPrincipalCodec;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -10,6 +13,7 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
 import org.springframework.security.web.SecurityFilterChain;
 
 @Configuration
@@ -17,6 +21,12 @@ import org.springframework.security.web.SecurityFilterChain;
 @EnableMethodSecurity(prePostEnabled = true)
 public class SecurityConfig {
 
+    @Value("${taxi.internal-auth.enabled:false}")
+    private boolean internalAuthEnabled;
+
+    @Value("${taxi.internal-auth.secret:}")
+    private String internalAuthSecret;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -29,6 +39,11 @@ public class SecurityConfig {
             .oauth2ResourceServer(oauth2 -> oauth2
                 .jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter()))
             );
+        if (internalAuthEnabled) {
+            // Requests forwarded by the gateway carry a signed principal instead of a token to verify
+            http.addFilterBefore(new InternalPrincipalAuthenticationFilter(new InternalPrincipalCodec(internalAuthSecret)),
+                    BearerTokenAuthenticationFilter.class);
+        }
 
         return http.build();
     }